@@ -6,8 +6,14 @@ package dev.cerus.dwordle;
 public class Const {
 
     public static final int WORD_LENGTH = 5;
+    public static final int MIN_WORD_LENGTH = 4;
+    public static final int MAX_WORD_LENGTH = 6;
     public static final int INPUT_AMOUNT = 6;
+    public static final int MIN_INPUT_AMOUNT = 3;
+    public static final int MAX_INPUT_AMOUNT = 8;
     public static final int TIMEOUT = 15;
+    // Minutes before the timeout at which the user is warned, 0 disables the warning
+    public static final int TIMEOUT_WARNING = 1;
 
     public static final String EMOTE_GRAY = ":black_large_square:";
     public static final String EMOTE_YELLOW = ":yellow_square:";
@@ -15,7 +21,7 @@ public class Const {
     public static final String EMOTE_BLUE = ":blue_square:";
     public static final String EMOTE_ARROW_RIGHT = ":arrow_forward:";
     public static final String[] NUMBER_EMOTES = new String[] {
-            ":one:", ":two:", ":three:", ":four:", ":five:", ":six:"
+            ":one:", ":two:", ":three:", ":four:", ":five:", ":six:", ":seven:", ":eight:"
     };
 
     private Const() {
@@ -1,7 +1,12 @@
 package dev.cerus.dwordle;
 
 import dev.cerus.dwordle.bot.DWordleBot;
-import dev.cerus.dwordle.game.GameController;
+import dev.cerus.dwordle.bot.util.ImageBoardRenderer;
+import dev.cerus.dwordle.game.FeedbackMatrixCache;
+import dev.cerus.dwordle.game.GameJournal;
+import dev.cerus.dwordle.game.HintSolver;
+import dev.cerus.dwordle.game.ShardedGameController;
+import dev.cerus.dwordle.game.UserMailboxes;
 import dev.cerus.dwordle.stats.SQLiteStatsService;
 import dev.cerus.dwordle.stats.StatsService;
 import dev.cerus.dwordle.word.NyTimesWordService;
@@ -15,6 +20,9 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -28,14 +36,17 @@ public class Launcher {
     public static void main(final String[] args) {
         // Initialize words
         final WordServiceController wordServiceController = new WordServiceController();
+        final FeedbackMatrixCache feedbackMatrixCache = new FeedbackMatrixCache();
         final WordService officialWordService = new NyTimesWordService();
-        officialWordService.initialize().whenComplete((unused, throwable) -> {
+        final CompletableFuture<Void> officialFuture = officialWordService.initialize().whenComplete((unused, throwable) -> {
             wordServiceController.registerWordService("official", officialWordService);
+            feedbackMatrixCache.load(officialWordService.getWordList());
             log("Official words initialized");
         });
         final WordService germanWordService = new WordleAtWordService();
-        germanWordService.initialize().whenComplete((unused, throwable) -> {
+        final CompletableFuture<Void> germanFuture = germanWordService.initialize().whenComplete((unused, throwable) -> {
             wordServiceController.registerWordService("german", germanWordService);
+            feedbackMatrixCache.load(germanWordService.getWordList());
             log("German words initialized");
         });
 
@@ -44,16 +55,47 @@ public class Launcher {
         final StatsService statsService = new SQLiteStatsService();
         statsService.initialize(executor);
 
+        // Read the games that were running before the last shutdown
+        final GameJournal journal = new GameJournal();
+        final List<GameJournal.Entry> journalEntries;
+        try {
+            journalEntries = journal.open();
+        } catch (final IOException e) {
+            e.printStackTrace();
+            log("ERROR: Failed to open game journal");
+            System.exit(1);
+            return;
+        }
+
         // Initialize game controller and bot
-        final GameController gameController = new GameController(wordServiceController, statsService);
+        final String shardCount = System.getenv("SHARD_COUNT");
+        final int shards = shardCount == null ? 1 : Integer.parseInt(shardCount);
+        final boolean imageBoards = "image".equalsIgnoreCase(System.getenv("BOARD_MODE"));
+        if (imageBoards) {
+            final long atlasStart = System.currentTimeMillis();
+            ImageBoardRenderer.initialize();
+            log("Built board tile atlas in " + (System.currentTimeMillis() - atlasStart) + "ms");
+        }
+        final ShardedGameController gameController = new ShardedGameController(shards, wordServiceController,
+                statsService, feedbackMatrixCache, journal, imageBoards);
+        final HintSolver hintSolver = new HintSolver(Runtime.getRuntime().availableProcessors(), feedbackMatrixCache);
+        final String mailboxThreads = System.getenv("MAILBOX_THREADS");
+        final UserMailboxes mailboxes = new UserMailboxes(mailboxThreads == null
+                ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(mailboxThreads));
         final DWordleBot bot = new DWordleBot();
 
         // Register shutdown hook
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             try {
                 executor.shutdown();
-                statsService.close();
                 wordServiceController.close();
+                hintSolver.close();
+                mailboxes.close();
+                // Writes the remaining seen words, the stats service has to stay open until then
+                gameController.close();
+                statsService.close();
+                journal.close();
+                feedbackMatrixCache.close();
                 bot.shutdown();
             } catch (final Exception e) {
                 e.printStackTrace();
@@ -63,7 +105,7 @@ public class Launcher {
 
         // Attempt to start bot
         try {
-            bot.initialize(System.getenv("TOKEN"), gameController, wordServiceController, statsService);
+            bot.initialize(System.getenv("TOKEN"), shards, gameController, wordServiceController, statsService, hintSolver, mailboxes);
         } catch (final LoginException | InterruptedException e) {
             e.printStackTrace();
             log("ERROR: Failed to initialize bot");
@@ -71,6 +113,12 @@ public class Launcher {
             return;
         }
 
+        // Continue the games that were running before the last shutdown
+        CompletableFuture.allOf(officialFuture, germanFuture).exceptionally(throwable -> null).join();
+        final long restoreStart = System.currentTimeMillis();
+        final int restored = gameController.restore(journalEntries, bot.getShardManager());
+        log("Restored " + restored + " of " + journalEntries.size() + " games in " + (System.currentTimeMillis() - restoreStart) + "ms");
+
         // Start presence update task
         executor.scheduleAtFixedRate(() -> {
             if (bot.isSafeStopEnabled()) {
@@ -88,12 +136,23 @@ public class Launcher {
             if (!bot.isSafeStopEnabled()) {
                 return;
             }
-            if (gameController.getRunningGames() > 0) {
+            // Running games are in the journal and will be continued after the restart
+            try {
+                journal.flush().join();
+            } catch (final CompletionException e) {
+                e.printStackTrace();
+                log("ERROR: Failed to flush game journal, not stopping");
                 return;
             }
             System.exit(0);
         }, 0, 20, TimeUnit.SECONDS);
 
+        // Catch up on the guild and member events that were missed
+        executor.scheduleAtFixedRate(bot::reconcileCounts, 10, 10, TimeUnit.MINUTES);
+
+        // Reload word lists
+        executor.scheduleAtFixedRate(wordServiceController::reloadAll, 6, 6, TimeUnit.HOURS);
+
         // Post bot stats
         executor.scheduleAtFixedRate(() -> {
             try {
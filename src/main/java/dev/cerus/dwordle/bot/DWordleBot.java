@@ -1,85 +1,110 @@
 package dev.cerus.dwordle.bot;
 
+import dev.cerus.dwordle.Const;
 import dev.cerus.dwordle.bot.listener.AdminCommandListener;
 import dev.cerus.dwordle.bot.listener.CommandListener;
+import dev.cerus.dwordle.bot.listener.CommandRouter;
+import dev.cerus.dwordle.bot.listener.GuildCountListener;
 import dev.cerus.dwordle.bot.listener.ReplyListener;
-import dev.cerus.dwordle.game.GameController;
+import dev.cerus.dwordle.game.HintSolver;
+import dev.cerus.dwordle.game.ShardedGameController;
+import dev.cerus.dwordle.game.UserMailboxes;
 import dev.cerus.dwordle.stats.StatsService;
 import dev.cerus.dwordle.word.WordServiceController;
 import javax.security.auth.login.LoginException;
 import net.dv8tion.jda.api.JDA;
-import net.dv8tion.jda.api.JDABuilder;
 import net.dv8tion.jda.api.OnlineStatus;
 import net.dv8tion.jda.api.entities.Activity;
-import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.CommandData;
 import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
 import net.dv8tion.jda.api.interactions.commands.privileges.CommandPrivilege;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
 
 /**
  * The actual bot
  */
 public class DWordleBot {
 
-    private JDA jda;
+    private final GuildCountListener guildCounts = new GuildCountListener();
+    private ShardManager shardManager;
+    private CommandRouter commandRouter;
     private long adminUser;
-    private long adminCommandId;
-    private long commandId;
     private boolean safeStopEnabled;
 
     /**
      * Initialize the bot
      *
      * @param token                 The bot token
+     * @param shards                The amount of gateway shards
      * @param gameController        The game controller
      * @param wordServiceController The word service controller
      * @param statsService          The stats service
+     * @param hintSolver            The hint solver
+     * @param mailboxes             The executor for the work of users
      *
      * @throws LoginException       See JDA
      * @throws InterruptedException See JDA
      */
     public void initialize(final String token,
-                           final GameController gameController,
+                           final int shards,
+                           final ShardedGameController gameController,
                            final WordServiceController wordServiceController,
-                           final StatsService statsService) throws LoginException, InterruptedException {
+                           final StatsService statsService,
+                           final HintSolver hintSolver,
+                           final UserMailboxes mailboxes) throws LoginException, InterruptedException {
         this.adminUser = Long.parseLong(System.getenv("ADMIN_USER"));
         final long privateGuildId = Long.parseLong(System.getenv("GUILD_ID"));
 
-        this.jda = JDABuilder.create(token, GatewayIntent.GUILD_MESSAGES, GatewayIntent.DIRECT_MESSAGES).build().awaitReady();
-        this.jda.getGuildById(privateGuildId)
+        // Nothing needs cached members, the member counts come with the guilds
+        this.shardManager = DefaultShardManagerBuilder.create(token, GatewayIntent.GUILD_MESSAGES, GatewayIntent.DIRECT_MESSAGES)
+                .setShardsTotal(shards)
+                .setMemberCachePolicy(MemberCachePolicy.NONE)
+                .addEventListeners(this.guildCounts)
+                .build();
+        for (final JDA shard : this.shardManager.getShards()) {
+            shard.awaitReady();
+        }
+
+        // Commands are routed by their id, each command is added to the router once it's registered
+        final CommandListener commandListener = new CommandListener(gameController, wordServiceController, statsService, hintSolver, this);
+        final AdminCommandListener adminCommandListener = new AdminCommandListener(gameController, wordServiceController, mailboxes, hintSolver, this);
+        this.commandRouter = new CommandRouter(mailboxes);
+        this.shardManager.addEventListener(this.commandRouter, new ReplyListener(gameController, mailboxes));
+
+        this.shardManager.getGuildById(privateGuildId)
                 .upsertCommand(new CommandData("wordle-admin", "DWordle admin commands")
                         .setDefaultEnabled(false)
                         .addSubcommands(
                                 new SubcommandData("safestop", "Safely stop"),
-                                new SubcommandData("guilds", "Show guilds")
+                                new SubcommandData("guilds", "Show guilds"),
+                                new SubcommandData("reload", "Reload word lists"),
+                                new SubcommandData("metrics", "Show internal metrics")
                         )).queue(cmd -> {
-                    this.adminCommandId = cmd.getIdLong();
-                    this.jda.getGuildById(privateGuildId)
+                    this.commandRouter.addCommand(cmd.getIdLong(), "wordle-admin", adminCommandListener.getRoutes());
+                    this.shardManager.getGuildById(privateGuildId)
                             .updateCommandPrivilegesById(cmd.getIdLong(), CommandPrivilege.enableUser(this.adminUser))
                             .queue();
                 });
-        this.jda.upsertCommand(new CommandData("wordle", "DWordle Bot Command")
+        // Global commands are not bound to a shard, any shard can register them
+        this.shardManager.getShardById(0).upsertCommand(new CommandData("wordle", "DWordle Bot Command")
                 .addSubcommands(
                         new SubcommandData("start", "Start a game")
                                 .addOption(OptionType.STRING, "word-list",
-                                        "The word list that will be used for the game", false),
+                                        "The word list that will be used for the game", false)
+                                .addOption(OptionType.INTEGER, "length",
+                                        "The length of the secret word (" + Const.MIN_WORD_LENGTH + "-" + Const.MAX_WORD_LENGTH + ")", false)
+                                .addOption(OptionType.INTEGER, "guesses",
+                                        "The amount of guesses you have (" + Const.MIN_INPUT_AMOUNT + "-" + Const.MAX_INPUT_AMOUNT + ")", false),
                         new SubcommandData("end", "End a game"),
+                        new SubcommandData("hint", "Get a hint for your running game"),
                         new SubcommandData("info", "DWordle info"),
                         new SubcommandData("stats", "DWordle stats"),
                         new SubcommandData("help", "DWordle help")
-                )).queue(command -> {
-            this.commandId = command.getIdLong();
-        });
-
-
-        // We need to know the id of the command, that's why we register the event listeners this late
-        this.jda.addEventListener(
-                new CommandListener(gameController, wordServiceController, statsService, this),
-                new AdminCommandListener(gameController, this),
-                new ReplyListener(gameController, wordServiceController)
-        );
+                )).queue(command -> this.commandRouter.addCommand(command.getIdLong(), "wordle", commandListener.getRoutes()));
     }
 
     /**
@@ -89,41 +114,45 @@ public class DWordleBot {
      * @param msg  The activity message
      */
     public void updateActivity(final OnlineStatus status, final String msg) {
-        this.jda.getPresence().setPresence(status, Activity.of(Activity.ActivityType.DEFAULT, msg));
+        this.shardManager.setPresence(status, Activity.of(Activity.ActivityType.DEFAULT, msg));
     }
 
     public void shutdown() {
-        this.jda.shutdown();
+        if (this.shardManager != null) {
+            this.shardManager.shutdown();
+        }
     }
 
-    public JDA getJda() {
-        return this.jda;
+    public ShardManager getShardManager() {
+        return this.shardManager;
     }
 
     public long getId() {
-        return this.jda.getSelfUser().getIdLong();
+        return this.shardManager.getShardById(0).getSelfUser().getIdLong();
     }
 
     public int countGuilds() {
-        return this.jda.getGuilds().size();
+        return this.guildCounts.getGuildCount();
     }
 
-    public int countUsers() {
-        return this.jda.getGuilds().stream()
-                .mapToInt(Guild::getMemberCount)
-                .sum();
+    public long countUsers() {
+        return this.guildCounts.getMemberCount();
     }
 
-    public long getAdminUser() {
-        return this.adminUser;
+    /**
+     * Recounts the guilds and their members from scratch
+     * The counters are kept up to date by events, this catches the events that were missed.
+     */
+    public void reconcileCounts() {
+        this.guildCounts.reconcile(this.shardManager.getGuilds());
     }
 
-    public long getCommandId() {
-        return this.commandId;
+    public long getAdminUser() {
+        return this.adminUser;
     }
 
-    public long getAdminCommandId() {
-        return this.adminCommandId;
+    public CommandRouter getCommandRouter() {
+        return this.commandRouter;
     }
 
     public boolean isSafeStopEnabled() {
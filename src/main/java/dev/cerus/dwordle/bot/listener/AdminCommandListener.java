@@ -1,43 +1,88 @@
 package dev.cerus.dwordle.bot.listener;
 
 import dev.cerus.dwordle.bot.DWordleBot;
-import dev.cerus.dwordle.game.GameController;
+import dev.cerus.dwordle.game.HintSolver;
+import dev.cerus.dwordle.game.ShardedGameController;
+import dev.cerus.dwordle.game.UserMailboxes;
+import dev.cerus.dwordle.word.WordServiceController;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
-import net.dv8tion.jda.api.hooks.ListenerAdapter;
-import org.jetbrains.annotations.NotNull;
 
 /**
- * /wordle command listener
+ * /wordle-admin command handlers
+ * The command is only enabled for the admin user, the handlers check the user anyway.
  */
-public class AdminCommandListener extends ListenerAdapter {
+public class AdminCommandListener {
 
-    private final GameController gameController;
+    private final ShardedGameController gameController;
+    private final WordServiceController wordServiceController;
+    private final UserMailboxes mailboxes;
+    private final HintSolver hintSolver;
     private final DWordleBot bot;
 
-    public AdminCommandListener(final GameController gameController,
+    public AdminCommandListener(final ShardedGameController gameController,
+                                final WordServiceController wordServiceController,
+                                final UserMailboxes mailboxes,
+                                final HintSolver hintSolver,
                                 final DWordleBot bot) {
         this.gameController = gameController;
+        this.wordServiceController = wordServiceController;
+        this.mailboxes = mailboxes;
+        this.hintSolver = hintSolver;
         this.bot = bot;
     }
 
-    @Override
-    public void onSlashCommand(@NotNull final SlashCommandEvent event) {
-        if (event.getCommandIdLong() != this.bot.getAdminCommandId() || event.getSubcommandName() == null) {
-            return;
-        }
-        if (event.getUser().getIdLong() != this.bot.getAdminUser()) {
-            return;
-        }
-
-        switch (event.getSubcommandName()) {
-            case "safestop" -> this.handleSafeStop(event);
-            case "guilds" -> this.handleGuilds(event);
-        }
+    /**
+     * Gets the handlers of the subcommands
+     *
+     * @return The routes by subcommand
+     */
+    public Map<String, CommandRouter.Route> getRoutes() {
+        final Map<String, CommandRouter.Route> routes = new LinkedHashMap<>();
+        routes.put("safestop", CommandRouter.Route.inline(this.adminOnly(this::handleSafeStop)));
+        routes.put("guilds", CommandRouter.Route.inline(this.adminOnly(this::handleGuilds)));
+        routes.put("reload", CommandRouter.Route.inline(this.adminOnly(this::handleReload)));
+        routes.put("metrics", CommandRouter.Route.inline(this.adminOnly(this::handleMetrics)));
+        return routes;
+    }
+
+    private Consumer<SlashCommandEvent> adminOnly(final Consumer<SlashCommandEvent> handler) {
+        return event -> {
+            if (event.getUser().getIdLong() == this.bot.getAdminUser()) {
+                handler.accept(event);
+            }
+        };
+    }
+
+    private void handleMetrics(final SlashCommandEvent event) {
+        final long deletedMessages = this.gameController.getDeletedMessages();
+        final long deletionRequests = this.gameController.getDeletionRequests();
+        event.reply("**Mailboxes**: " + this.mailboxes.getActiveMailboxes() + " active, "
+                + this.mailboxes.getDepth() + " queued, " + this.mailboxes.getRejected() + " dropped\n"
+                + "**Input latency**: " + this.mailboxes.getLatency().summary() + "\n"
+                + "**Hint latency**: " + this.hintSolver.getLatency().summary() + "\n"
+                + "**Message edits**: " + this.gameController.getSentEdits() + " sent, "
+                + this.gameController.getEditDepth() + " queued, " + this.gameController.getDroppedEdits() + " replaced\n"
+                + "**Deletions**: " + deletedMessages + " messages in " + deletionRequests + " requests ("
+                + (deletedMessages - deletionRequests) + " saved)\n"
+                + "**Commands**:\n" + this.bot.getCommandRouter().getLatencies().entrySet().stream()
+                .filter(entry -> entry.getValue().getCount() > 0)
+                .map(entry -> "`" + entry.getKey() + "` " + entry.getValue().summary())
+                .collect(Collectors.joining("\n"))).queue();
+    }
+
+    private void handleReload(final SlashCommandEvent event) {
+        event.deferReply().queue(hook -> this.wordServiceController.reloadAll().whenComplete((unused, throwable) ->
+                hook.editOriginal(this.wordServiceController.getWordListNames().stream()
+                        .map(name -> "`" + name + "` [" + this.wordServiceController.getWordList(name).getWords().size() + "]")
+                        .collect(Collectors.joining(", ", "Reloaded ", ""))).queue()));
     }
 
     private void handleGuilds(final SlashCommandEvent event) {
-        event.reply(event.getJDA().getGuilds().stream()
+        event.reply(this.bot.getShardManager().getGuilds().stream()
                 .map(guild -> "`" + guild.getName() + "` [" + guild.getMemberCount() + "]")
                 .collect(Collectors.joining(", "))).queue();
     }
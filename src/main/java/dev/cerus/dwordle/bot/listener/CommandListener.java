@@ -1,51 +1,61 @@
 package dev.cerus.dwordle.bot.listener;
 
+import dev.cerus.dwordle.Const;
 import dev.cerus.dwordle.bot.DWordleBot;
-import dev.cerus.dwordle.game.GameController;
+import dev.cerus.dwordle.game.HintSolver;
+import dev.cerus.dwordle.game.ShardedGameController;
+import dev.cerus.dwordle.game.WordleGame;
 import dev.cerus.dwordle.stats.StatsService;
 import dev.cerus.dwordle.word.WordServiceController;
 import java.awt.Color;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.MessageBuilder;
-import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
-import net.dv8tion.jda.api.hooks.ListenerAdapter;
-import org.jetbrains.annotations.NotNull;
 
 /**
- * /wordle command listener
+ * /wordle command handlers
  */
-public class CommandListener extends ListenerAdapter {
+public class CommandListener {
 
-    private final GameController gameController;
+    private final ShardedGameController gameController;
     private final WordServiceController wordServiceController;
     private final StatsService statsService;
+    private final HintSolver hintSolver;
     private final DWordleBot bot;
 
-    public CommandListener(final GameController gameController,
+    public CommandListener(final ShardedGameController gameController,
                            final WordServiceController wordServiceController,
                            final StatsService statsService,
+                           final HintSolver hintSolver,
                            final DWordleBot bot) {
         this.gameController = gameController;
         this.wordServiceController = wordServiceController;
         this.statsService = statsService;
+        this.hintSolver = hintSolver;
         this.bot = bot;
     }
 
-    @Override
-    public void onSlashCommand(@NotNull final SlashCommandEvent event) {
-        if (event.getCommandIdLong() != this.bot.getCommandId() || event.getSubcommandName() == null) {
-            return;
-        }
-
-        switch (event.getSubcommandName()) {
-            case "start" -> this.handleStartGame(event);
-            case "end" -> this.handleEndGame(event);
-            case "info" -> this.handleInfo(event);
-            case "stats" -> this.handleStats(event);
-            case "help" -> this.handleHelp(event);
-        }
+    /**
+     * Gets the handlers of the subcommands
+     *
+     * @return The routes by subcommand
+     */
+    public Map<String, CommandRouter.Route> getRoutes() {
+        // Game commands go through the mailbox of the user to stay in order with their guesses
+        final Map<String, CommandRouter.Route> routes = new LinkedHashMap<>();
+        routes.put("start", CommandRouter.Route.perUser(this::handleStartGame));
+        routes.put("end", CommandRouter.Route.perUser(this::handleEndGame));
+        routes.put("hint", CommandRouter.Route.perUser(this::handleHint));
+        routes.put("info", CommandRouter.Route.inline(this::handleInfo));
+        routes.put("stats", CommandRouter.Route.inline(this::handleStats));
+        routes.put("help", CommandRouter.Route.inline(this::handleHelp));
+        return routes;
     }
 
     /**
@@ -62,8 +72,9 @@ public class CommandListener extends ListenerAdapter {
                                                         
                             `/wordle info`: Shows bot info
                             `wordle stats`: Shows DWordle stats
-                            `/wordle start`: Starts a wordle game
-                            `/wordle end`: Ends your running wordle game""")
+                            `/wordle start`: Starts a wordle game, optionally with a different word length or amount of guesses
+                            `/wordle end`: Ends your running wordle game
+                            `/wordle hint`: Suggests a guess for your running game""")
                     .addField("How do I submit guesses?", "Reply to the game message " +
                             "with your guess. ([GIF](https://i.imgur.com/e3DDiP2.gif))", false)
                     .setColor(new Color(127, 38, 146))
@@ -113,12 +124,19 @@ public class CommandListener extends ListenerAdapter {
                             DWordle uses the same words as the original Wordle game by default.""")
                     .addField("GitHub", "[Link](https://github.com/cerus/dwordle)", true)
                     .addField("Contact Cerus", "Cerus#5149", true)
-                    .addField("Servers", String.valueOf(event.getJDA().getGuilds().size()), true)
-                    .addField("Users", String.valueOf(event.getJDA().getGuilds().stream()
-                            .mapToInt(Guild::getMemberCount)
-                            .sum()), true)
+                    .addField("Servers", String.valueOf(this.bot.countGuilds()), true)
+                    .addField("Users", String.valueOf(this.bot.countUsers()), true)
                     .addField("Running games", String.valueOf(this.gameController.getRunningGames()), true)
                     .addField("Tech", "Java 16, JDA framework", true)
+                    .addField("Shards", this.bot.getShardManager().getShards().stream()
+                            .sorted(Comparator.comparingInt(shard -> shard.getShardInfo().getShardId()))
+                            .map(shard -> {
+                                final int shardId = shard.getShardInfo().getShardId();
+                                return "`#" + shardId + "` " + shard.getGuilds().size() + " servers, "
+                                        + this.gameController.getShard(shardId).getRunningGames() + " games, "
+                                        + shard.getGatewayPing() + "ms";
+                            })
+                            .collect(Collectors.joining("\n")), false)
                     .setColor(Color.ORANGE)
                     .setFooter("DWordle - Made by Cerus", "https://cerus.dev/favicon.png")
                     .setThumbnail(event.getJDA().getSelfUser().getEffectiveAvatarUrl())
@@ -136,8 +154,8 @@ public class CommandListener extends ListenerAdapter {
             event.deferReply(true).queue(h -> h.editOriginal(new MessageBuilder()
                     .setEmbed(new EmbedBuilder()
                             .setTitle("You can't start a game right now")
-                            .setDescription("The bot is currently waiting for all running games " +
-                                    "to end in order to restart. Please wait a few minutes.")
+                            .setDescription("The bot is about to restart. Running games will continue " +
+                                    "after the restart. Please wait a few minutes.")
                             .setColor(Color.RED)
                             .build())
                     .build()).queue());
@@ -157,8 +175,35 @@ public class CommandListener extends ListenerAdapter {
             return;
         }
 
+        final long length = event.getOption("length") == null ? Const.WORD_LENGTH
+                : event.getOption("length").getAsLong();
+        if (length < Const.MIN_WORD_LENGTH || length > Const.MAX_WORD_LENGTH) {
+            event.reply("The length has to be between " + Const.MIN_WORD_LENGTH + " and " + Const.MAX_WORD_LENGTH).queue();
+            return;
+        }
+        if (!this.wordServiceController.isValidWordList(wordListName, (int) length)) {
+            event.reply("The word list `" + wordListName + "` has no words with " + length + " letters. Available lengths: "
+                    + this.wordServiceController.getWordLengths(wordListName).stream()
+                    .sorted()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(", "))).queue();
+            return;
+        }
+
+        final long guesses = event.getOption("guesses") == null ? Const.INPUT_AMOUNT
+                : event.getOption("guesses").getAsLong();
+        final int maxGuesses = WordleGame.maxTries((int) length);
+        if (guesses < Const.MIN_INPUT_AMOUNT || guesses > maxGuesses) {
+            event.reply("The amount of guesses has to be between " + Const.MIN_INPUT_AMOUNT + " and " + maxGuesses
+                    + " for words with " + length + " letters").queue();
+            return;
+        }
+
+        if (!this.gameController.startGame(event.getJDA(), user.getIdLong(), event.getChannel(), wordListName, (int) length, (int) guesses)) {
+            event.reply("You already have a game running.").queue();
+            return;
+        }
         event.reply("Ok").queue();
-        this.gameController.startGame(user.getIdLong(), event.getChannel(), wordListName);
     }
 
     /**
@@ -177,4 +222,34 @@ public class CommandListener extends ListenerAdapter {
         this.gameController.endGame(user.getIdLong());
     }
 
+    /**
+     * Handles /wordle hint
+     *
+     * @param event The command event
+     */
+    private void handleHint(final SlashCommandEvent event) {
+        // A copy, the next guess of the user might be processed before the hint is calculated
+        final WordleGame game = this.gameController.getGameCopy(event.getUser().getIdLong());
+        if (game == null) {
+            event.reply("You do not have a game running.").setEphemeral(true).queue();
+            return;
+        }
+
+        final CompletableFuture<HintSolver.Hint> future = this.hintSolver.hint(game);
+        event.deferReply(true).queue(hook -> future.whenComplete((hint, throwable) -> {
+            if (throwable != null) {
+                throwable.printStackTrace();
+                hook.editOriginal("Failed to calculate a hint").queue();
+            } else if (hint.getWord() == null) {
+                hook.editOriginal("No word matches your guesses").queue();
+            } else {
+                hook.editOriginal(String.format("Try `%s` (%d possible %s left, %.2f bits of information expected)",
+                        hint.getWord(),
+                        hint.getCandidates(),
+                        hint.getCandidates() == 1 ? "word" : "words",
+                        hint.getEntropy())).queue();
+            }
+        }));
+    }
+
 }
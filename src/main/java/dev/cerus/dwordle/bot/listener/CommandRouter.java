@@ -0,0 +1,160 @@
+package dev.cerus.dwordle.bot.listener;
+
+import dev.cerus.dwordle.game.LatencyHistogram;
+import dev.cerus.dwordle.game.UserMailboxes;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import net.dv8tion.jda.api.events.interaction.SlashCommandEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The only slash command listener, dispatches the events by command id and subcommand
+ * <p>
+ * A command is added once Discord has assigned its id, from then on its events are looked up in a
+ * table that was built when it was added. Every handler is timed from the moment the event arrived
+ * until the handler returned, which is when it has queued its reply. Handlers of game commands run
+ * in the mailbox of the user, so their time includes the wait for the earlier work of the user.
+ */
+public class CommandRouter extends ListenerAdapter {
+
+    private final UserMailboxes mailboxes;
+    private volatile Command[] commands = new Command[0];
+
+    public CommandRouter(final UserMailboxes mailboxes) {
+        this.mailboxes = mailboxes;
+    }
+
+    /**
+     * Adds a registered command
+     *
+     * @param commandId The id Discord assigned to the command
+     * @param name      The name of the command
+     * @param routes    The handlers of the subcommands
+     */
+    public synchronized void addCommand(final long commandId, final String name, final Map<String, Route> routes) {
+        final Command[] commands = Arrays.copyOf(this.commands, this.commands.length + 1);
+        commands[commands.length - 1] = new Command(commandId, name, routes);
+        this.commands = commands;
+    }
+
+    @Override
+    public void onSlashCommand(@NotNull final SlashCommandEvent event) {
+        final long received = System.nanoTime();
+        final Target target = this.find(event.getCommandIdLong(), event.getSubcommandName());
+        if (target == null) {
+            return;
+        }
+
+        if (target.route.perUser) {
+            // Game commands go through the mailbox of the user to stay in order with their guesses
+            if (!this.mailboxes.submit(event.getUser().getIdLong(), () -> target.handle(event, received))) {
+                // The mailbox is full, the interaction still has to be answered
+                event.reply("Too many requests, slow down.").setEphemeral(true).queue();
+            }
+        } else {
+            target.handle(event, received);
+        }
+    }
+
+    private Target find(final long commandId, final String subcommand) {
+        if (subcommand == null) {
+            return null;
+        }
+        for (final Command command : this.commands) {
+            if (command.id == commandId) {
+                return command.targets.get(subcommand);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the handler latencies of all subcommands
+     *
+     * @return The latencies by command ("/wordle start"), in the order the commands were added
+     */
+    public Map<String, LatencyHistogram> getLatencies() {
+        final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+        for (final Command command : this.commands) {
+            command.targets.forEach((subcommand, target) ->
+                    latencies.put("/" + command.name + " " + subcommand, target.latency));
+        }
+        return latencies;
+    }
+
+    /**
+     * The handler of a subcommand
+     */
+    public static final class Route {
+
+        private final Consumer<SlashCommandEvent> handler;
+        private final boolean perUser;
+
+        private Route(final Consumer<SlashCommandEvent> handler, final boolean perUser) {
+            this.handler = handler;
+            this.perUser = perUser;
+        }
+
+        /**
+         * A handler that runs on the event thread, has to be quick
+         *
+         * @param handler The handler
+         *
+         * @return The route
+         */
+        public static Route inline(final Consumer<SlashCommandEvent> handler) {
+            return new Route(handler, false);
+        }
+
+        /**
+         * A handler that runs in the mailbox of the user
+         *
+         * @param handler The handler
+         *
+         * @return The route
+         */
+        public static Route perUser(final Consumer<SlashCommandEvent> handler) {
+            return new Route(handler, true);
+        }
+
+    }
+
+    private static final class Command {
+
+        private final long id;
+        private final String name;
+        private final Map<String, Target> targets;
+
+        private Command(final long id, final String name, final Map<String, Route> routes) {
+            this.id = id;
+            this.name = name;
+            // Never modified after this, so concurrent lookups are safe
+            this.targets = new LinkedHashMap<>();
+            routes.forEach((subcommand, route) -> this.targets.put(subcommand, new Target(route)));
+        }
+
+    }
+
+    private static final class Target {
+
+        private final Route route;
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Target(final Route route) {
+            this.route = route;
+        }
+
+        private void handle(final SlashCommandEvent event, final long received) {
+            try {
+                this.route.handler.accept(event);
+            } finally {
+                this.latency.record(System.nanoTime() - received);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,143 @@
+package dev.cerus.dwordle.bot.listener;
+
+import dev.cerus.dwordle.game.SessionRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.guild.GuildJoinEvent;
+import net.dv8tion.jda.api.events.guild.GuildLeaveEvent;
+import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Keeps count of the guilds and their members
+ * <p>
+ * The counts come from the member count Discord sends with every guild, not from the member
+ * cache, so they don't need cached members. Every guild remembers the count it contributed, a
+ * guild that becomes ready again after a reconnect replaces its old count instead of adding to it.
+ * Member events only arrive with the GUILD_MEMBERS intent, without it the member counts are as
+ * fresh as the last time Discord sent the guild. Missed events are corrected by
+ * {@link #reconcile(List)}.
+ */
+public class GuildCountListener extends ListenerAdapter {
+
+    // Events update the counts under the read lock, a reconciliation replaces them under the write lock
+    private final ReentrantReadWriteLock reconcileLock = new ReentrantReadWriteLock();
+    private final AtomicInteger guildCount = new AtomicInteger();
+    private final AtomicLong memberCount = new AtomicLong();
+    private SessionRegistry<GuildCount> guilds = new SessionRegistry<>(64);
+
+    @Override
+    public void onGuildReady(@NotNull final GuildReadyEvent event) {
+        this.update(event.getGuild());
+    }
+
+    @Override
+    public void onGuildJoin(@NotNull final GuildJoinEvent event) {
+        this.update(event.getGuild());
+    }
+
+    @Override
+    public void onGuildLeave(@NotNull final GuildLeaveEvent event) {
+        this.reconcileLock.readLock().lock();
+        try {
+            final GuildCount count = this.guilds.remove(event.getGuild().getIdLong());
+            if (count != null) {
+                this.guildCount.decrementAndGet();
+                this.memberCount.addAndGet(-count.members);
+            }
+        } finally {
+            this.reconcileLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onGuildMemberJoin(@NotNull final GuildMemberJoinEvent event) {
+        this.update(event.getGuild());
+    }
+
+    @Override
+    public void onGuildMemberRemove(@NotNull final GuildMemberRemoveEvent event) {
+        this.update(event.getGuild());
+    }
+
+    /**
+     * Takes over the current member count of a guild
+     * JDA updates the count before it fires the member events, so reading it is exact and can't drift.
+     *
+     * @param guild The guild
+     */
+    private void update(final Guild guild) {
+        this.reconcileLock.readLock().lock();
+        try {
+            final long guildId = guild.getIdLong();
+            final ReentrantLock lock = this.guilds.lockFor(guildId);
+            lock.lock();
+            try {
+                GuildCount count = this.guilds.get(guildId);
+                if (count == null) {
+                    count = new GuildCount();
+                    this.guilds.putIfAbsent(guildId, count);
+                    this.guildCount.incrementAndGet();
+                }
+                final int members = guild.getMemberCount();
+                this.memberCount.addAndGet(members - count.members);
+                count.members = members;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            this.reconcileLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the counts with the counts of the given guilds
+     *
+     * @param guilds All guilds of all shards
+     */
+    public void reconcile(final List<Guild> guilds) {
+        // Events wait until this is done, otherwise an event between reading a guild and replacing the counts would be lost
+        this.reconcileLock.writeLock().lock();
+        try {
+            final SessionRegistry<GuildCount> counts = new SessionRegistry<>(64);
+            long members = 0;
+            for (final Guild guild : guilds) {
+                final GuildCount count = new GuildCount();
+                count.members = guild.getMemberCount();
+                if (counts.putIfAbsent(guild.getIdLong(), count)) {
+                    members += count.members;
+                }
+            }
+            this.guilds = counts;
+            this.guildCount.set(counts.size());
+            this.memberCount.set(members);
+        } finally {
+            this.reconcileLock.writeLock().unlock();
+        }
+    }
+
+    public int getGuildCount() {
+        return this.guildCount.get();
+    }
+
+    public long getMemberCount() {
+        return this.memberCount.get();
+    }
+
+    /**
+     * The members a guild contributed to the count, only accessed while holding the lock of its guild
+     */
+    private static final class GuildCount {
+
+        private int members;
+
+    }
+
+}
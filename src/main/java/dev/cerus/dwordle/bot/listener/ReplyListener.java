@@ -1,11 +1,15 @@
 package dev.cerus.dwordle.bot.listener;
 
+import dev.cerus.dwordle.bot.util.DeletionBatcher;
 import dev.cerus.dwordle.game.GameController;
+import dev.cerus.dwordle.game.ShardedGameController;
+import dev.cerus.dwordle.game.UserMailboxes;
 import dev.cerus.dwordle.game.WordleGame;
-import dev.cerus.dwordle.word.WordService;
-import dev.cerus.dwordle.word.WordServiceController;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageReference;
 import net.dv8tion.jda.api.entities.MessageType;
 import net.dv8tion.jda.api.entities.TextChannel;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
@@ -17,48 +21,86 @@ import org.jetbrains.annotations.NotNull;
  */
 public class ReplyListener extends ListenerAdapter {
 
-    private final GameController gameController;
-    private final WordServiceController wordService;
+    private final ShardedGameController gameController;
+    private final UserMailboxes mailboxes;
 
-    public ReplyListener(final GameController gameController, final WordServiceController wordService) {
+    public ReplyListener(final ShardedGameController gameController, final UserMailboxes mailboxes) {
         this.gameController = gameController;
-        this.wordService = wordService;
+        this.mailboxes = mailboxes;
     }
 
     @Override
     public void onMessageReceived(@NotNull final MessageReceivedEvent event) {
         final Message message = event.getMessage();
-        if (message.getType() != MessageType.INLINE_REPLY
-                || message.getReferencedMessage() == null) {
+        if (message.getType() != MessageType.INLINE_REPLY) {
             return;
         }
-        if (!this.gameController.isGameMessage(
-                message.getAuthor().getIdLong(),
-                message.getReferencedMessage().getIdLong()
-        )) {
+        // Only the id of the replied message is needed, the referenced message itself might not even be resolved
+        final MessageReference reference = message.getMessageReference();
+        if (reference == null) {
             return;
         }
 
+        // Replies arrive on the same shard as the command that started the game
+        final GameController shardController = this.gameController.of(event.getJDA());
+        if (!shardController.isGameMessage(message.getAuthor().getIdLong(), reference.getMessageIdLong())) {
+            return;
+        }
+
+        // Everything else happens in the mailbox of the user, the event thread is shared by all guilds
+        if (!this.mailboxes.submit(message.getAuthor().getIdLong(), () -> this.handleReply(shardController, message))) {
+            // The mailbox is full, tell the user that the guess was not counted
+            this.sendNotice(shardController.getDeletionBatcher(), message, "Too many requests, slow down. Your guess was not counted.");
+        }
+    }
+
+    /**
+     * Processes a reply to a game message
+     *
+     * @param shardController The controller of the shard the reply arrived on
+     * @param message         The reply
+     */
+    private void handleReply(final GameController shardController, final Message message) {
+        final DeletionBatcher deletions = shardController.getDeletionBatcher();
+
         // Get game
-        final WordleGame game = gameController.getGame(message.getAuthor().getIdLong());
+        final WordleGame game = shardController.getGame(message.getAuthor().getIdLong());
+        if (game == null) {
+            return;
+        }
 
         // Check input validity
         final String input = message.getContentStripped().toLowerCase().trim();
-        if (!this.wordService.isValidInput(game.getWordList(), input)) {
-            message.reply("Invalid input").queue(msg ->
-                    msg.delete().queueAfter(5, TimeUnit.SECONDS, v -> {
-                        if (message.getChannel() instanceof TextChannel) {
-                            message.delete().queue();
-                        }
-                    }));
+        if (!game.getWordList().isValidInput(input)) {
+            final List<String> suggestions = game.getWordList().suggest(input, 3);
+            this.sendNotice(deletions, message, suggestions.isEmpty() ? "Invalid input" : suggestions.stream()
+                    .map(s -> "`" + s + "`")
+                    .collect(Collectors.joining(", ", "Invalid input. Did you mean ", "?")));
             return;
         }
 
         // All good, process input
-        this.gameController.handleInput(message.getAuthor().getIdLong(), input);
+        shardController.handleInput(message.getAuthor().getIdLong(), message.getChannel(), input);
         if (message.getChannel() instanceof TextChannel) {
-            message.delete().queueAfter(1, TimeUnit.SECONDS);
+            deletions.delete(message.getChannel(), message.getIdLong(), 1, TimeUnit.SECONDS);
         }
     }
 
+    /**
+     * Replies to a guess that was not processed
+     * The notice and the guess are deleted together after a few seconds.
+     *
+     * @param deletions The deletion batcher of the shard
+     * @param message   The guess
+     * @param notice    The reply
+     */
+    private void sendNotice(final DeletionBatcher deletions, final Message message, final String notice) {
+        message.reply(notice).queue(msg -> {
+            deletions.delete(message.getChannel(), msg.getIdLong(), 5, TimeUnit.SECONDS);
+            if (message.getChannel() instanceof TextChannel) {
+                deletions.delete(message.getChannel(), message.getIdLong(), 5, TimeUnit.SECONDS);
+            }
+        });
+    }
+
 }
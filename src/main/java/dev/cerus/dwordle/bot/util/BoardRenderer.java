@@ -0,0 +1,166 @@
+package dev.cerus.dwordle.bot.util;
+
+import static dev.cerus.dwordle.Const.*;
+import dev.cerus.dwordle.game.WordleGame;
+import dev.cerus.dwordle.word.WordDictionary;
+
+/**
+ * Renders the emoji boards of game messages and the texts next to image boards
+ * <p>
+ * Every row pattern of every word length is rendered once per variant (current row or not), so a
+ * board is assembled from a handful of cached fragments instead of being built tile by tile.
+ * Boards are assembled in a per-thread buffer that is sized for the largest message, the only
+ * allocation per message is the final string.
+ */
+public final class BoardRenderer {
+
+    private static final int INITIAL_CAPACITY = 2048;
+    private static final String[][][] ROWS = new String[MAX_WORD_LENGTH + 1][][];
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    static {
+        for (int length = MIN_WORD_LENGTH; length <= MAX_WORD_LENGTH; length++) {
+            final int patterns = WordleGame.patternCount(length);
+            ROWS[length] = new String[2][patterns];
+            for (int pattern = 0; pattern < patterns; pattern++) {
+                final StringBuilder tiles = new StringBuilder();
+                for (int col = 0; col < length; col++) {
+                    tiles.append(switch (WordleGame.stateAt(pattern, col)) {
+                        case WordleGame.YELLOW -> EMOTE_YELLOW;
+                        case WordleGame.GREEN -> EMOTE_GREEN;
+                        default -> EMOTE_GRAY;
+                    });
+                }
+                ROWS[length][0][pattern] = EMOTE_BLUE + "  " + tiles + "  ";
+                ROWS[length][1][pattern] = EMOTE_ARROW_RIGHT + "  " + tiles + "  ";
+            }
+        }
+    }
+
+    private BoardRenderer() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Renders the message of a new game
+     *
+     * @param userId     The user
+     * @param wordLength The word length of the game
+     * @param maxTries   The amount of guesses of the game
+     *
+     * @return The message
+     */
+    public static String renderStarted(final long userId, final int wordLength, final int maxTries) {
+        final StringBuilder buffer = header(userId);
+        for (int row = 0; row < maxTries; row++) {
+            buffer.append(ROWS[wordLength][row == 0 ? 1 : 0][0]).append(NUMBER_EMOTES[row]).append('\n');
+        }
+        return appendInstructions(buffer.append('\n')).toString();
+    }
+
+    /**
+     * Renders the text that accompanies the image board of a new game
+     *
+     * @param userId The user
+     *
+     * @return The message
+     */
+    public static String renderStartedCaption(final long userId) {
+        return appendInstructions(header(userId)).toString();
+    }
+
+    /**
+     * Renders the message of a game that was ended early
+     *
+     * @param userId The user
+     * @param game   The game
+     *
+     * @return The message
+     */
+    public static String renderEnded(final long userId, final WordleGame game) {
+        final StringBuilder buffer = board(userId, game);
+        buffer.append("\nThe game has ended");
+        return buffer.toString();
+    }
+
+    /**
+     * Renders the message of a game with its current status
+     *
+     * @param userId The user
+     * @param game   The game
+     *
+     * @return The message
+     */
+    public static String renderUpdate(final long userId, final WordleGame game) {
+        return appendStatus(board(userId, game).append('\n'), game).toString();
+    }
+
+    /**
+     * Renders the text that accompanies the image board of a game
+     *
+     * @param userId The user
+     * @param game   The game
+     * @param ended  True if the game was ended early
+     *
+     * @return The message
+     */
+    public static String renderCaption(final long userId, final WordleGame game, final boolean ended) {
+        final StringBuilder buffer = header(userId);
+        return (ended ? buffer.append("The game has ended") : appendStatus(buffer, game)).toString();
+    }
+
+    private static StringBuilder appendInstructions(final StringBuilder buffer) {
+        return buffer.append("You can start guessing by replying to this message with your guess. ")
+                .append("The game will automatically end if you don't guess for ").append(TIMEOUT).append(" minutes.");
+    }
+
+    private static StringBuilder appendStatus(final StringBuilder buffer, final WordleGame game) {
+        if (game.isDone()) {
+            buffer.append("You found the word! :partying_face: The word was `");
+            appendWord(buffer, game.getGuess(game.getTries() - 1));
+            buffer.append('`');
+        } else if (game.isAtEnd()) {
+            buffer.append("You did not find the word in time :disappointed: The word was `")
+                    .append(game.getSecretWord()).append('`');
+        } else {
+            final int triesLeft = game.getMaxTries() - game.getTries();
+            buffer.append(triesLeft).append(triesLeft == 1 ? " try" : " tries").append(" left");
+        }
+        return buffer;
+    }
+
+    private static StringBuilder header(final long userId) {
+        final StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return buffer.append("<@!").append(userId).append(">\n\n");
+    }
+
+    private static StringBuilder board(final long userId, final WordleGame game) {
+        final StringBuilder buffer = header(userId);
+        final String[][] rows = ROWS[game.getWordLength()];
+        for (int row = 0; row < game.getMaxTries(); row++) {
+            buffer.append(rows[row == game.getTries() ? 1 : 0][game.getPattern(row)]).append(NUMBER_EMOTES[row]);
+            if (row < game.getTries()) {
+                buffer.append("  '");
+                appendWord(buffer, game.getGuess(row));
+                buffer.append('\'');
+            }
+            buffer.append('\n');
+        }
+        return buffer;
+    }
+
+    /**
+     * Appends a packed word without unpacking it into a string first
+     *
+     * @param buffer The buffer
+     * @param packed The packed word
+     */
+    private static void appendWord(final StringBuilder buffer, final int packed) {
+        final int length = WordDictionary.length(packed);
+        for (int i = 0; i < length; i++) {
+            buffer.append((char) ('a' - 1 + WordDictionary.letterAt(packed, i)));
+        }
+    }
+
+}
@@ -0,0 +1,321 @@
+package dev.cerus.dwordle.bot.util;
+
+import dev.cerus.dwordle.game.SessionRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.TextChannel;
+
+/**
+ * Deletes messages per channel in batches
+ * <p>
+ * Guesses and notices are deleted a few seconds after they were sent. Instead of one request per
+ * message, every channel collects its due messages for a short window and deletes them with a
+ * single bulk delete. Discord only bulk deletes in guild channels and only messages younger than
+ * two weeks, everything else (direct messages, old messages, lone messages) is deleted one by one.
+ */
+public final class DeletionBatcher implements AutoCloseable {
+
+    private static final long DEFAULT_WINDOW_MILLIS = 500;
+    private static final int MAX_BULK_SIZE = 100;
+    // Discord rejects bulk deletes of messages older than two weeks, keep some distance
+    private static final long MAX_BULK_AGE_MILLIS = TimeUnit.DAYS.toMillis(14) - TimeUnit.HOURS.toMillis(1);
+    private static final long DISCORD_EPOCH = 1420070400000L;
+    private static final int TIMESTAMP_SHIFT = 22;
+    private static final long NO_FLUSH = Long.MIN_VALUE;
+
+    private final SessionRegistry<ChannelBatch> channels = new SessionRegistry<>(64);
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final ScheduledExecutorService executor;
+    private final Sink sink;
+    private final long windowNanos;
+
+    /**
+     * Creates a batcher that deletes the messages through JDA
+     * Collects the messages of a channel for half a second.
+     */
+    public DeletionBatcher() {
+        this(new JdaSink(), DEFAULT_WINDOW_MILLIS);
+    }
+
+    /**
+     * @param sink         Sends the deletions
+     * @param windowMillis The time a due message waits for others
+     */
+    public DeletionBatcher(final Sink sink, final long windowMillis) {
+        this.sink = sink;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "DeletionBatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Deletes a message after a delay
+     * The message is deleted together with the other due messages of its channel, at most one
+     * window after the delay.
+     *
+     * @param channel   The channel of the message
+     * @param messageId The message
+     * @param delay     The minimum time until the message is deleted
+     * @param unit      The unit of the delay
+     */
+    public void delete(final MessageChannel channel, final long messageId, final long delay, final TimeUnit unit) {
+        this.messages.increment();
+        final long channelId = channel.getIdLong();
+        final ReentrantLock lock = this.channels.lockFor(channelId);
+        lock.lock();
+        try {
+            ChannelBatch batch = this.channels.get(channelId);
+            if (batch == null) {
+                batch = new ChannelBatch(channel);
+                this.channels.putIfAbsent(channelId, batch);
+            }
+            final long dueAt = System.nanoTime() + unit.toNanos(delay);
+            batch.add(messageId, dueAt);
+            this.scheduleFlush(channelId, batch, dueAt + this.windowNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes a channel on the scheduler thread, needs the lock of the channel
+     * A flush that is already scheduled earlier makes this a no-op, a later one is superseded.
+     */
+    private void scheduleFlush(final long channelId, final ChannelBatch batch, final long flushAt) {
+        if (batch.flushAt != NO_FLUSH && batch.flushAt - flushAt <= 0) {
+            return;
+        }
+        batch.flushAt = flushAt;
+        try {
+            this.executor.schedule(() -> this.flush(channelId, flushAt),
+                    Math.max(0, flushAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (final RuntimeException ignored) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Deletes the due messages of a channel
+     *
+     * @param channelId The channel
+     * @param flushAt   The time this flush was scheduled for
+     */
+    private void flush(final long channelId, final long flushAt) {
+        final MessageChannel channel;
+        final long[] due;
+        final ReentrantLock lock = this.channels.lockFor(channelId);
+        lock.lock();
+        try {
+            final ChannelBatch batch = this.channels.get(channelId);
+            if (batch == null || batch.flushAt != flushAt) {
+                return;
+            }
+            batch.flushAt = NO_FLUSH;
+            channel = batch.channel;
+            due = batch.takeDue(System.nanoTime());
+            if (batch.size == 0) {
+                this.channels.remove(channelId, batch);
+            } else {
+                this.scheduleFlush(channelId, batch, batch.nextDue() + this.windowNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+        this.send(channel, due);
+    }
+
+    /**
+     * Deletes messages with as few requests as possible
+     *
+     * @param channel    The channel
+     * @param messageIds The messages
+     */
+    private void send(final MessageChannel channel, final long[] messageIds) {
+        if (!(channel instanceof TextChannel) || messageIds.length == 1) {
+            for (final long messageId : messageIds) {
+                this.deleteSingle(channel, messageId);
+            }
+            return;
+        }
+
+        final long oldest = System.currentTimeMillis() - MAX_BULK_AGE_MILLIS;
+        List<String> bulk = new ArrayList<>(Math.min(messageIds.length, MAX_BULK_SIZE));
+        for (final long messageId : messageIds) {
+            if ((messageId >>> TIMESTAMP_SHIFT) + DISCORD_EPOCH < oldest) {
+                this.deleteSingle(channel, messageId);
+                continue;
+            }
+            bulk.add(Long.toUnsignedString(messageId));
+            if (bulk.size() == MAX_BULK_SIZE) {
+                this.deleteBulk((TextChannel) channel, bulk);
+                bulk = new ArrayList<>(MAX_BULK_SIZE);
+            }
+        }
+        if (bulk.size() == 1) {
+            this.deleteSingle(channel, Long.parseLong(bulk.get(0)));
+        } else if (!bulk.isEmpty()) {
+            this.deleteBulk((TextChannel) channel, bulk);
+        }
+    }
+
+    private void deleteSingle(final MessageChannel channel, final long messageId) {
+        this.requests.increment();
+        this.sink.delete(channel, messageId);
+    }
+
+    private void deleteBulk(final TextChannel channel, final List<String> messageIds) {
+        this.requests.increment();
+        this.sink.deleteBulk(channel, messageIds, () -> {
+            // Missing permissions for example, try to delete what can be deleted
+            for (final String messageId : messageIds) {
+                this.deleteSingle(channel, Long.parseLong(messageId));
+            }
+        });
+    }
+
+    /**
+     * Gets the amount of messages that were handed to this batcher
+     *
+     * @return The amount of messages
+     */
+    public long getMessages() {
+        return this.messages.sum();
+    }
+
+    /**
+     * Gets the amount of requests that were sent to delete messages
+     * The difference to {@link #getMessages()} is the amount of requests that batching saved.
+     *
+     * @return The amount of requests
+     */
+    public long getRequests() {
+        return this.requests.sum();
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * Sends deletions to Discord
+     */
+    public interface Sink {
+
+        /**
+         * Deletes a single message
+         *
+         * @param channel   The channel
+         * @param messageId The message
+         */
+        void delete(MessageChannel channel, long messageId);
+
+        /**
+         * Deletes 2 to 100 messages that are younger than two weeks
+         *
+         * @param channel    The channel
+         * @param messageIds The messages
+         * @param fallback   Has to be called if the messages could not be deleted
+         */
+        void deleteBulk(TextChannel channel, List<String> messageIds, Runnable fallback);
+
+    }
+
+    private static final class JdaSink implements Sink {
+
+        @Override
+        public void delete(final MessageChannel channel, final long messageId) {
+            channel.deleteMessageById(messageId).queue();
+        }
+
+        @Override
+        public void deleteBulk(final TextChannel channel, final List<String> messageIds, final Runnable fallback) {
+            try {
+                channel.deleteMessagesByIds(messageIds).queue(null, throwable -> fallback.run());
+            } catch (final RuntimeException e) {
+                // JDA checks the permissions before sending anything
+                fallback.run();
+            }
+        }
+
+    }
+
+    /**
+     * The waiting messages of one channel, only accessed while holding its lock
+     */
+    private static final class ChannelBatch {
+
+        private final MessageChannel channel;
+        private long[] messageIds = new long[4];
+        private long[] dueAt = new long[4];
+        private int size;
+        private long flushAt = NO_FLUSH;
+
+        private ChannelBatch(final MessageChannel channel) {
+            this.channel = channel;
+        }
+
+        private void add(final long messageId, final long dueAt) {
+            if (this.size == this.messageIds.length) {
+                this.messageIds = Arrays.copyOf(this.messageIds, this.size * 2);
+                this.dueAt = Arrays.copyOf(this.dueAt, this.size * 2);
+            }
+            this.messageIds[this.size] = messageId;
+            this.dueAt[this.size] = dueAt;
+            this.size++;
+        }
+
+        /**
+         * Removes the messages that are due
+         *
+         * @param now The current time
+         *
+         * @return The due messages
+         */
+        private long[] takeDue(final long now) {
+            int count = 0;
+            for (int i = 0; i < this.size; i++) {
+                if (this.dueAt[i] - now <= 0) {
+                    count++;
+                }
+            }
+            final long[] due = new long[count];
+            int kept = 0;
+            count = 0;
+            for (int i = 0; i < this.size; i++) {
+                if (this.dueAt[i] - now <= 0) {
+                    due[count++] = this.messageIds[i];
+                } else {
+                    this.messageIds[kept] = this.messageIds[i];
+                    this.dueAt[kept] = this.dueAt[i];
+                    kept++;
+                }
+            }
+            this.size = kept;
+            return due;
+        }
+
+        private long nextDue() {
+            long next = this.dueAt[0];
+            for (int i = 1; i < this.size; i++) {
+                if (this.dueAt[i] - next < 0) {
+                    next = this.dueAt[i];
+                }
+            }
+            return next;
+        }
+
+    }
+
+}
@@ -0,0 +1,332 @@
+package dev.cerus.dwordle.bot.util;
+
+import dev.cerus.dwordle.game.SessionRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.requests.RestAction;
+
+/**
+ * Sends message edits per channel without flooding Discord
+ * <p>
+ * Every channel has a token bucket that matches Discord's per channel rate limit. Edits that
+ * can't be sent right away wait in their channel, and a newer edit of the same message replaces
+ * the waiting one, so only the latest content is ever sent. Each message has at most one edit in
+ * flight. Priority edits (the end of a game) are sent before the other waiting edits of their
+ * channel. A single thread drains the channels, the requests themselves are sent by the sink.
+ */
+public final class EditScheduler implements AutoCloseable {
+
+    private static final int DEFAULT_BURST = 5;
+    private static final long DEFAULT_REFILL_MILLIS = 1000;
+    private static final long NO_DRAIN = Long.MIN_VALUE;
+
+    private final SessionRegistry<ChannelQueue> channels = new SessionRegistry<>(64);
+    private final AtomicInteger depth = new AtomicInteger();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final ScheduledExecutorService executor;
+    private final Sink sink;
+    private final int burst;
+    private final long refillNanos;
+
+    /**
+     * Creates a scheduler that edits the messages through JDA
+     * Allows 5 edits per channel at once and one more every second.
+     */
+    public EditScheduler() {
+        this(EditScheduler::editMessage, DEFAULT_BURST, DEFAULT_REFILL_MILLIS);
+    }
+
+    /**
+     * @param sink         Sends the edits
+     * @param burst        The amount of edits a channel can send at once
+     * @param refillMillis The time it takes to earn another edit
+     */
+    public EditScheduler(final Sink sink, final int burst, final long refillMillis) {
+        this.sink = sink;
+        this.burst = burst;
+        this.refillNanos = TimeUnit.MILLISECONDS.toNanos(refillMillis);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "EditScheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static void editMessage(final MessageChannel channel, final long messageId, final String content, final Runnable callback) {
+        channel.editMessageById(messageId, content).queue(message -> callback.run(), throwable -> {
+            RestAction.getDefaultFailure().accept(throwable);
+            callback.run();
+        });
+    }
+
+    /**
+     * Queues an edit
+     * Replaces the waiting edit of the same message if there is one.
+     *
+     * @param channel   The channel of the message
+     * @param messageId The message
+     * @param content   The new content
+     * @param priority  True to send this before the other edits of the channel
+     */
+    public void edit(final MessageChannel channel, final long messageId, final String content, final boolean priority) {
+        final long channelId = channel.getIdLong();
+        final ReentrantLock lock = this.channels.lockFor(channelId);
+        lock.lock();
+        try {
+            ChannelQueue queue = this.channels.get(channelId);
+            if (queue == null) {
+                queue = new ChannelQueue(channel, this.burst, System.nanoTime());
+                this.channels.putIfAbsent(channelId, queue);
+            }
+
+            Edit edit = queue.find(messageId);
+            if (edit == null) {
+                edit = new Edit(messageId);
+                queue.edits.add(edit);
+            }
+            if (edit.content != null) {
+                this.dropped.increment();
+            } else {
+                this.depth.incrementAndGet();
+            }
+            edit.content = content;
+            edit.priority |= priority;
+            this.scheduleDrain(channelId, queue, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drains a channel on the scheduler thread, needs the lock of the channel
+     * A drain that is already scheduled earlier makes this a no-op, a later one is superseded.
+     */
+    private void scheduleDrain(final long channelId, final ChannelQueue queue, final long delayNanos) {
+        final long drainAt = System.nanoTime() + delayNanos;
+        if (queue.drainAt != NO_DRAIN && queue.drainAt - drainAt <= 0) {
+            return;
+        }
+        queue.drainAt = drainAt;
+        try {
+            this.executor.schedule(() -> this.drain(channelId, drainAt), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (final RuntimeException ignored) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Sends the waiting edits of a channel that the bucket allows
+     *
+     * @param channelId The channel
+     * @param drainAt   The time this drain was scheduled for
+     */
+    private void drain(final long channelId, final long drainAt) {
+        final List<Edit> batch = new ArrayList<>(2);
+        final List<String> contents = new ArrayList<>(2);
+        final MessageChannel channel;
+        final ReentrantLock lock = this.channels.lockFor(channelId);
+        lock.lock();
+        try {
+            final ChannelQueue queue = this.channels.get(channelId);
+            if (queue == null || queue.drainAt != drainAt) {
+                return;
+            }
+            queue.drainAt = NO_DRAIN;
+            channel = queue.channel;
+
+            final long now = System.nanoTime();
+            queue.refill(now, this.burst, this.refillNanos);
+            Edit next;
+            while ((next = queue.next()) != null) {
+                if (queue.tokens < 1) {
+                    final long wait = (long) ((1 - queue.tokens) * this.refillNanos);
+                    this.scheduleDrain(channelId, queue, Math.max(1, wait));
+                    break;
+                }
+                queue.tokens--;
+                batch.add(next);
+                contents.add(next.content);
+                next.content = null;
+                next.priority = false;
+                next.inFlight = true;
+                this.depth.decrementAndGet();
+            }
+            this.releaseIfIdle(channelId, queue, now);
+        } finally {
+            lock.unlock();
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            final Edit edit = batch.get(i);
+            this.sent.increment();
+            this.sink.edit(channel, edit.messageId, contents.get(i), () -> this.complete(channelId, edit));
+        }
+    }
+
+    /**
+     * Removes a channel without edits once its bucket is full again
+     * Removing it earlier would hand out a fresh bucket to the next edit.
+     */
+    private void releaseIfIdle(final long channelId, final ChannelQueue queue, final long now) {
+        if (!queue.edits.isEmpty() || queue.drainAt != NO_DRAIN) {
+            return;
+        }
+        queue.refill(now, this.burst, this.refillNanos);
+        if (queue.tokens >= this.burst) {
+            this.channels.remove(channelId, queue);
+        } else {
+            this.scheduleDrain(channelId, queue, (long) ((this.burst - queue.tokens) * this.refillNanos));
+        }
+    }
+
+    /**
+     * Called when the request of an edit is done
+     *
+     * @param channelId The channel
+     * @param edit      The edit
+     */
+    private void complete(final long channelId, final Edit edit) {
+        final ReentrantLock lock = this.channels.lockFor(channelId);
+        lock.lock();
+        try {
+            final ChannelQueue queue = this.channels.get(channelId);
+            if (queue == null) {
+                return;
+            }
+            edit.inFlight = false;
+            if (edit.content != null) {
+                // A newer edit arrived while this one was in flight
+                this.scheduleDrain(channelId, queue, 0);
+            } else {
+                queue.edits.remove(edit);
+                this.releaseIfIdle(channelId, queue, System.nanoTime());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the amount of edits that wait for their turn
+     *
+     * @return The amount of waiting edits
+     */
+    public int getDepth() {
+        return this.depth.get();
+    }
+
+    /**
+     * Gets the amount of edits that were replaced by a newer edit before they were sent
+     *
+     * @return The amount of dropped edits
+     */
+    public long getDropped() {
+        return this.dropped.sum();
+    }
+
+    public long getSent() {
+        return this.sent.sum();
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * Sends an edit to Discord
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * Sends an edit
+         *
+         * @param channel   The channel
+         * @param messageId The message
+         * @param content   The new content
+         * @param callback  Has to be called once the request is done, no matter if it failed
+         */
+        void edit(MessageChannel channel, long messageId, String content, Runnable callback);
+
+    }
+
+    /**
+     * The edit state of one message, only accessed while holding the lock of its channel
+     */
+    private static final class Edit {
+
+        private final long messageId;
+        private String content;
+        private boolean priority;
+        private boolean inFlight;
+
+        private Edit(final long messageId) {
+            this.messageId = messageId;
+        }
+
+    }
+
+    /**
+     * The edits and the bucket of one channel, only accessed while holding its lock
+     */
+    private static final class ChannelQueue {
+
+        private final List<Edit> edits = new ArrayList<>(2);
+        private final MessageChannel channel;
+        private double tokens;
+        private long lastRefill;
+        private long drainAt = NO_DRAIN;
+
+        private ChannelQueue(final MessageChannel channel, final int burst, final long now) {
+            this.channel = channel;
+            this.tokens = burst;
+            this.lastRefill = now;
+        }
+
+        private void refill(final long now, final int burst, final long refillNanos) {
+            this.tokens = Math.min(burst, this.tokens + (now - this.lastRefill) / (double) refillNanos);
+            this.lastRefill = now;
+        }
+
+        private Edit find(final long messageId) {
+            for (final Edit edit : this.edits) {
+                if (edit.messageId == messageId) {
+                    return edit;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Picks the next edit to send: the oldest waiting priority edit, otherwise the oldest waiting edit
+         *
+         * @return The edit or null if nothing can be sent
+         */
+        private Edit next() {
+            Edit first = null;
+            for (final Edit edit : this.edits) {
+                if (edit.content == null || edit.inFlight) {
+                    continue;
+                }
+                if (edit.priority) {
+                    return edit;
+                }
+                if (first == null) {
+                    first = edit;
+                }
+            }
+            return first;
+        }
+
+    }
+
+}
@@ -0,0 +1,311 @@
+package dev.cerus.dwordle.bot.util;
+
+import static dev.cerus.dwordle.Const.*;
+import dev.cerus.dwordle.game.WordleGame;
+import dev.cerus.dwordle.word.WordDictionary;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Renders game boards as PNG images
+ * <p>
+ * Every tile (3 colors times 26 letters, plus the empty tiles) is rasterized once into an atlas,
+ * a board is composed by copying the pixel rows of its tiles into a per-thread image. The image
+ * is encoded by a minimal PNG encoder that reuses its deflater and buffers, so the only
+ * allocation per board is the final byte array. Java2D is only used to build the atlas.
+ */
+public final class ImageBoardRenderer {
+
+    private static final int TILE = 56;
+    private static final int GAP = 6;
+    private static final int PADDING = 10;
+    private static final int CHANNELS = 3;
+    private static final int LETTERS = 26;
+
+    private static final Color BACKGROUND = new Color(0x121213);
+    private static final Color BORDER = new Color(0x3A3A3C);
+    private static final Color BORDER_CURRENT = new Color(0x818384);
+    private static final Color[] STATE_COLORS = {
+            new Color(0x3A3A3C), // GRAY
+            new Color(0xB59F3B), // YELLOW
+            new Color(0x538D4E) // GREEN
+    };
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+    private static final int FILTER_SUB = 1;
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private ImageBoardRenderer() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Builds the tile atlas if it was not built yet
+     * Called at startup so the first game doesn't pay for it.
+     */
+    public static void initialize() {
+        Atlas.init();
+    }
+
+    /**
+     * Renders the board of a new game
+     *
+     * @param wordLength The word length of the game
+     * @param maxTries   The amount of guesses of the game
+     *
+     * @return The PNG
+     */
+    public static byte[] renderEmpty(final int wordLength, final int maxTries) {
+        final Buffers buffers = BUFFERS.get();
+        final BufferedImage image = buffers.image(wordLength, maxTries);
+        final byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int row = 0; row < maxTries; row++) {
+            for (int col = 0; col < wordLength; col++) {
+                copyTile(row == 0 ? Atlas.CURRENT : Atlas.EMPTY, pixels, image.getWidth(), row, col);
+            }
+        }
+        return encode(buffers, image);
+    }
+
+    /**
+     * Renders the board of a game
+     *
+     * @param game The game
+     *
+     * @return The PNG
+     */
+    public static byte[] render(final WordleGame game) {
+        final Buffers buffers = BUFFERS.get();
+        final BufferedImage image = buffers.image(game.getWordLength(), game.getMaxTries());
+        final byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int row = 0; row < game.getMaxTries(); row++) {
+            final int guess = row < game.getTries() ? game.getGuess(row) : 0;
+            final int pattern = game.getPattern(row);
+            for (int col = 0; col < game.getWordLength(); col++) {
+                final byte[] tile;
+                if (row < game.getTries()) {
+                    tile = Atlas.TILES[WordleGame.stateAt(pattern, col)][WordDictionary.letterAt(guess, col) - 1];
+                } else {
+                    tile = row == game.getTries() ? Atlas.CURRENT : Atlas.EMPTY;
+                }
+                copyTile(tile, pixels, image.getWidth(), row, col);
+            }
+        }
+        return encode(buffers, image);
+    }
+
+    private static int size(final int tiles) {
+        return PADDING * 2 + tiles * TILE + (tiles - 1) * GAP;
+    }
+
+    private static void copyTile(final byte[] tile, final byte[] pixels, final int width, final int row, final int col) {
+        final int top = PADDING + row * (TILE + GAP);
+        final int left = PADDING + col * (TILE + GAP);
+        final int rowBytes = TILE * CHANNELS;
+        for (int y = 0; y < TILE; y++) {
+            System.arraycopy(tile, y * rowBytes, pixels, ((top + y) * width + left) * CHANNELS, rowBytes);
+        }
+    }
+
+    /**
+     * Encodes an image as an 8 bit RGB PNG
+     * Every scanline uses the sub filter, which turns the flat tiles into long runs of zeros.
+     */
+    private static byte[] encode(final Buffers buffers, final BufferedImage image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        final int rowBytes = width * CHANNELS;
+        final byte[] scanline = buffers.scanline(rowBytes + 1);
+        final byte[] chunk = buffers.chunk;
+        final Deflater deflater = buffers.deflater;
+        final Output idat = buffers.idat;
+
+        deflater.reset();
+        idat.reset();
+        scanline[0] = FILTER_SUB;
+        for (int y = 0; y < height; y++) {
+            final int offset = y * rowBytes;
+            for (int x = 0; x < rowBytes; x += CHANNELS) {
+                // The raster is BGR, PNG wants RGB
+                final int i = offset + x;
+                final int prev = i - CHANNELS;
+                final boolean first = x == 0;
+                scanline[x + 1] = (byte) (pixels[i + 2] - (first ? 0 : pixels[prev + 2]));
+                scanline[x + 2] = (byte) (pixels[i + 1] - (first ? 0 : pixels[prev + 1]));
+                scanline[x + 3] = (byte) (pixels[i] - (first ? 0 : pixels[prev]));
+            }
+            deflater.setInput(scanline, 0, rowBytes + 1);
+            while (!deflater.needsInput()) {
+                idat.write(chunk, 0, deflater.deflate(chunk));
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            idat.write(chunk, 0, deflater.deflate(chunk));
+        }
+
+        final Output out = buffers.out;
+        out.reset();
+        out.write(SIGNATURE, 0, SIGNATURE.length);
+        final byte[] header = buffers.header;
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8; // Bit depth
+        header[9] = 2; // Color type: RGB
+        writeChunk(buffers, IHDR, header, header.length);
+        writeChunk(buffers, IDAT, idat.array(), idat.size());
+        writeChunk(buffers, IEND, header, 0);
+        return out.toByteArray();
+    }
+
+    private static void writeChunk(final Buffers buffers, final byte[] type, final byte[] data, final int length) {
+        final Output out = buffers.out;
+        final CRC32 crc = buffers.crc;
+        final byte[] word = buffers.word;
+        writeInt(word, 0, length);
+        out.write(word, 0, 4);
+        out.write(type, 0, type.length);
+        out.write(data, 0, length);
+        crc.reset();
+        crc.update(type, 0, type.length);
+        crc.update(data, 0, length);
+        writeInt(word, 0, (int) crc.getValue());
+        out.write(word, 0, 4);
+    }
+
+    private static void writeInt(final byte[] buffer, final int offset, final int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    /**
+     * The pre-rasterized tiles, stored as BGR pixel rows
+     */
+    private static final class Atlas {
+
+        private static final byte[][][] TILES;
+        private static final byte[] EMPTY;
+        private static final byte[] CURRENT;
+
+        static {
+            final BufferedImage image = new BufferedImage(TILE, TILE, BufferedImage.TYPE_3BYTE_BGR);
+            final Graphics2D graphics = image.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, TILE * 3 / 5));
+            final FontMetrics metrics = graphics.getFontMetrics();
+
+            TILES = new byte[STATE_COLORS.length][LETTERS][];
+            for (int state = 0; state < STATE_COLORS.length; state++) {
+                for (int letter = 0; letter < LETTERS; letter++) {
+                    graphics.setColor(STATE_COLORS[state]);
+                    graphics.fillRect(0, 0, TILE, TILE);
+                    final String text = String.valueOf((char) ('A' + letter));
+                    graphics.setColor(Color.WHITE);
+                    graphics.drawString(text, (TILE - metrics.stringWidth(text)) / 2,
+                            (TILE - metrics.getHeight()) / 2 + metrics.getAscent());
+                    TILES[state][letter] = pixels(image);
+                }
+            }
+
+            graphics.setStroke(new BasicStroke(2));
+            EMPTY = emptyTile(graphics, image, BORDER);
+            CURRENT = emptyTile(graphics, image, BORDER_CURRENT);
+            graphics.dispose();
+        }
+
+        private Atlas() {
+            throw new UnsupportedOperationException();
+        }
+
+        private static void init() {
+            // Loading the class builds the atlas
+        }
+
+        private static byte[] emptyTile(final Graphics2D graphics, final BufferedImage image, final Color border) {
+            graphics.setColor(BACKGROUND);
+            graphics.fillRect(0, 0, TILE, TILE);
+            graphics.setColor(border);
+            graphics.drawRect(1, 1, TILE - 2, TILE - 2);
+            return pixels(image);
+        }
+
+        private static byte[] pixels(final BufferedImage image) {
+            return ((DataBufferByte) image.getRaster().getDataBuffer()).getData().clone();
+        }
+
+    }
+
+    /**
+     * The reusable buffers of one thread
+     */
+    private static final class Buffers {
+
+        private final BufferedImage[][] images = new BufferedImage[MAX_WORD_LENGTH + 1][MAX_INPUT_AMOUNT + 1];
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final CRC32 crc = new CRC32();
+        private final Output idat = new Output(8192);
+        private final Output out = new Output(8192);
+        private final byte[] chunk = new byte[8192];
+        private final byte[] header = new byte[13];
+        private final byte[] word = new byte[4];
+        private byte[] scanline = new byte[0];
+
+        /**
+         * Gets the image of a board size, the padding and the gaps are only painted once
+         */
+        private BufferedImage image(final int wordLength, final int maxTries) {
+            BufferedImage image = this.images[wordLength][maxTries];
+            if (image == null) {
+                image = new BufferedImage(size(wordLength), size(maxTries), BufferedImage.TYPE_3BYTE_BGR);
+                final Graphics2D graphics = image.createGraphics();
+                graphics.setColor(BACKGROUND);
+                graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+                graphics.dispose();
+                this.images[wordLength][maxTries] = image;
+            }
+            return image;
+        }
+
+        private byte[] scanline(final int length) {
+            if (this.scanline.length < length) {
+                this.scanline = new byte[length];
+            }
+            return this.scanline;
+        }
+
+    }
+
+    /**
+     * A byte stream that exposes its buffer
+     */
+    private static final class Output extends ByteArrayOutputStream {
+
+        private Output(final int size) {
+            super(size);
+        }
+
+        private byte[] array() {
+            return this.buf;
+        }
+
+    }
+
+}
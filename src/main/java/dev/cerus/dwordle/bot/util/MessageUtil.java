@@ -1,8 +1,7 @@
 package dev.cerus.dwordle.bot.util;
 
-import dev.cerus.dwordle.Const;
-import static dev.cerus.dwordle.Const.*;
 import dev.cerus.dwordle.game.WordleGame;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.MessageChannel;
@@ -12,6 +11,8 @@ import net.dv8tion.jda.api.entities.MessageChannel;
  */
 public class MessageUtil {
 
+    private static final String BOARD_FILE_NAME = "board.png";
+
     private MessageUtil() {
         throw new UnsupportedOperationException();
     }
@@ -19,87 +20,104 @@ public class MessageUtil {
     /**
      * Sends a new game message
      *
+     * @param userId     The user
+     * @param channel    The channel
+     * @param wordLength The word length of the game
+     * @param maxTries   The amount of guesses of the game
+     * @param callback   A callback to return the sent message
+     */
+    public static void sendGameStarted(final long userId,
+                                       final MessageChannel channel,
+                                       final int wordLength,
+                                       final int maxTries,
+                                       final Consumer<Message> callback) {
+        channel.sendMessage(BoardRenderer.renderStarted(userId, wordLength, maxTries)).queue(callback);
+    }
+
+    /**
+     * Sends a new game message with an image board
+     *
+     * @param userId     The user
+     * @param channel    The channel
+     * @param wordLength The word length of the game
+     * @param maxTries   The amount of guesses of the game
+     * @param callback   A callback to return the sent message
+     */
+    public static void sendGameStartedImage(final long userId,
+                                            final MessageChannel channel,
+                                            final int wordLength,
+                                            final int maxTries,
+                                            final Consumer<Message> callback) {
+        channel.sendMessage(BoardRenderer.renderStartedCaption(userId))
+                .addFile(ImageBoardRenderer.renderEmpty(wordLength, maxTries), BOARD_FILE_NAME)
+                .queue(callback);
+    }
+
+    /**
+     * Sends a game message with the current image board
+     * Attachments can't be added to a message that was already sent, so every board is a new
+     * message and the callback has to replace the old one.
+     *
      * @param userId   The user
+     * @param game     The game
      * @param channel  The channel
+     * @param ended    True if the game was ended early
      * @param callback A callback to return the sent message
      */
-    public static void sendGameStarted(final long userId, final MessageChannel channel, final Consumer<Message> callback) {
-        final StringBuilder msgBuilder = new StringBuilder("<@!" + userId + ">\n\n");
-        for (int i = 0; i < Const.INPUT_AMOUNT; i++) {
-            final boolean start = i == 0;
-            msgBuilder.append(start ? EMOTE_ARROW_RIGHT : EMOTE_BLUE).append("  ")
-                    .append(EMOTE_GRAY.repeat(Const.WORD_LENGTH)).append("  ")
-                    .append(NUMBER_EMOTES[i]).append("\n");
-        }
-        msgBuilder.append("\nYou can start guessing by replying to this message with your guess. "
-                + "The game will automatically end in " + TIMEOUT + " minutes.");
-        channel.sendMessage(msgBuilder.toString()).queue(callback);
+    public static void sendGameImage(final long userId,
+                                     final WordleGame game,
+                                     final MessageChannel channel,
+                                     final boolean ended,
+                                     final Consumer<Message> callback) {
+        channel.sendMessage(BoardRenderer.renderCaption(userId, game, ended))
+                .addFile(ImageBoardRenderer.render(game), BOARD_FILE_NAME)
+                .queue(callback);
+    }
+
+    /**
+     * Warns the user that their game is about to time out
+     *
+     * @param deletions   The deletion batcher that removes the warning once it's obsolete
+     * @param userId      The user
+     * @param channel     The channel of the game message
+     * @param messageId   The game message
+     * @param minutesLeft Minutes until the game ends
+     */
+    public static void sendTimeoutWarning(final DeletionBatcher deletions, final long userId, final MessageChannel channel,
+                                          final long messageId, final int minutesLeft) {
+        channel.sendMessage("<@!" + userId + "> Your game will end in " + minutesLeft
+                        + (minutesLeft == 1 ? " minute" : " minutes") + " if you don't make a guess.")
+                .referenceById(messageId)
+                .queue(msg -> deletions.delete(channel, msg.getIdLong(), minutesLeft, TimeUnit.MINUTES));
     }
 
     /**
      * Edits a game messages to communicate the end of said game
      *
-     * @param userId  The user
-     * @param game    The game
-     * @param message The game message
+     * @param edits     The edit scheduler
+     * @param userId    The user
+     * @param game      The game
+     * @param channel   The channel of the game message
+     * @param messageId The game message
      */
-    public static void sendGameEnded(final long userId, final WordleGame game, final Message message) {
-        final StringBuilder msgBuilder = new StringBuilder("<@!").append(userId).append(">\n\n");
-        for (int row = 0; row < Const.INPUT_AMOUNT; row++) {
-            msgBuilder.append(row == game.getTries() ? EMOTE_ARROW_RIGHT : EMOTE_BLUE).append("  ");
-            for (int col = 0; col < Const.WORD_LENGTH; col++) {
-                msgBuilder.append(switch (game.getState(row, col)) {
-                    case WordleGame.YELLOW -> EMOTE_YELLOW;
-                    case WordleGame.GREEN -> EMOTE_GREEN;
-                    default -> EMOTE_GRAY;
-                });
-            }
-            msgBuilder.append("  ").append(NUMBER_EMOTES[row]);
-            if (game.getInput(row) != null) {
-                msgBuilder.append("  '").append(game.getInput(row)).append("'");
-            }
-            msgBuilder.append("\n");
-        }
-        msgBuilder.append("\nThe game has ended");
-        message.editMessage(msgBuilder.toString()).queue();
+    public static void sendGameEnded(final EditScheduler edits, final long userId, final WordleGame game,
+                                     final MessageChannel channel, final long messageId) {
+        edits.edit(channel, messageId, BoardRenderer.renderEnded(userId, game), true);
     }
 
     /**
      * Updates a game message to communicate possible changes
+     * Updates that end the game are sent before the other waiting edits of the channel.
      *
-     * @param userId  The user
-     * @param game    The game
-     * @param message The message
+     * @param edits     The edit scheduler
+     * @param userId    The user
+     * @param game      The game
+     * @param channel   The channel of the game message
+     * @param messageId The game message
      */
-    public static void sendGameUpdate(final long userId, final WordleGame game, final Message message) {
-        final StringBuilder wordleGridBuilder = new StringBuilder();
-        for (int row = 0; row < Const.INPUT_AMOUNT; row++) {
-            wordleGridBuilder.append(row == game.getTries() ? EMOTE_ARROW_RIGHT : EMOTE_BLUE).append("  ");
-            for (int col = 0; col < Const.WORD_LENGTH; col++) {
-                wordleGridBuilder.append(switch (game.getState(row, col)) {
-                    case WordleGame.YELLOW -> EMOTE_YELLOW;
-                    case WordleGame.GREEN -> EMOTE_GREEN;
-                    default -> EMOTE_GRAY;
-                });
-            }
-            wordleGridBuilder.append("  ").append(NUMBER_EMOTES[row]);
-            if (game.getInput(row) != null) {
-                wordleGridBuilder.append("  '").append(game.getInput(row)).append("'");
-            }
-            wordleGridBuilder.append("\n");
-        }
-
-        final String status;
-        if (game.isDone()) {
-            status = "You found the word! :partying_face: The word was `" + game.getSecretWord() + "`";
-        } else if (game.isAtEnd()) {
-            status = "You did not find the word in time :disappointed: The word was `" + game.getSecretWord() + "`";
-        } else {
-            final int triesLeft = Const.INPUT_AMOUNT - game.getTries();
-            status = triesLeft + (triesLeft == 1 ? " try" : " tries") + " left";
-        }
-
-        message.editMessage("<@!" + userId + ">\n\n" + wordleGridBuilder + "\n" + status).queue();
+    public static void sendGameUpdate(final EditScheduler edits, final long userId, final WordleGame game,
+                                      final MessageChannel channel, final long messageId) {
+        edits.edit(channel, messageId, BoardRenderer.renderUpdate(userId, game), game.isDone() || game.isAtEnd());
     }
 
 }
@@ -0,0 +1,255 @@
+package dev.cerus.dwordle.game;
+
+import dev.cerus.dwordle.word.WordList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed patterns of every guess against every secret word of a word list
+ * <p>
+ * The table stores one byte per (secret, guess) pair, ~30 MB for the official list. Six letter
+ * words have more than 256 patterns and use two bytes per pair instead. The table lives
+ * in a file that is memory-mapped read-only, so multiple processes share the same page cache
+ * and only the touched pages are ever loaded. Files are keyed to {@link WordList#getVersion()}.
+ */
+public final class FeedbackMatrix {
+
+    private static final int MAGIC = 0x4446424D; // "DFBM"
+    // Increase when the scoring rules change, old files will be regenerated
+    private static final int FORMAT_VERSION = 3;
+    private static final int HEADER_SIZE = 32;
+    private static final int VERIFY_SAMPLES = 10_000;
+
+    private final long version;
+    private final int secrets;
+    private final int guesses;
+    private final int entrySize;
+    private final ByteBuffer table;
+
+    private FeedbackMatrix(final long version, final int secrets, final int guesses, final int entrySize, final ByteBuffer table) {
+        this.version = version;
+        this.secrets = secrets;
+        this.guesses = guesses;
+        this.entrySize = entrySize;
+        this.table = table;
+    }
+
+    /**
+     * Gets the amount of bytes needed to store a pattern
+     *
+     * @param wordLength The word length
+     *
+     * @return 1 or 2
+     */
+    private static int entrySize(final int wordLength) {
+        return WordleGame.patternCount(wordLength) <= 256 ? Byte.BYTES : Short.BYTES;
+    }
+
+    /**
+     * Opens the matrix for a word list, generates it first if the file is missing or outdated
+     *
+     * @param dir      The directory that contains the matrix files
+     * @param wordList The word list
+     *
+     * @return The matrix
+     *
+     * @throws IOException If the file can't be read or written
+     */
+    public static FeedbackMatrix openOrGenerate(final Path dir, final WordList wordList) throws IOException {
+        final Path file = dir.resolve(filePrefix(wordList) + Long.toHexString(wordList.getVersion()) + ".fbm");
+        if (Files.isRegularFile(file)) {
+            final FeedbackMatrix matrix = open(file);
+            if (matrix != null && matrix.matches(wordList) && matrix.verify(wordList)) {
+                return matrix;
+            }
+        }
+        generate(file, wordList);
+        final FeedbackMatrix matrix = open(file);
+        if (matrix == null || !matrix.matches(wordList)) {
+            throw new IOException("Generated matrix " + file + " is invalid");
+        }
+        return matrix;
+    }
+
+    /**
+     * Deletes the files of other versions of a word list
+     * Matrices that are still mapped stay readable until they are unmapped.
+     *
+     * @param dir      The directory that contains the matrix files
+     * @param wordList The current word list
+     *
+     * @return The amount of deleted files
+     *
+     * @throws IOException If the directory can't be listed or a file can't be deleted
+     */
+    public static int deleteOthers(final Path dir, final WordList wordList) throws IOException {
+        final String prefix = filePrefix(wordList);
+        final String current = prefix + Long.toHexString(wordList.getVersion()) + ".fbm";
+        int deleted = 0;
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.fbm")) {
+            for (final Path file : stream) {
+                final String name = file.getFileName().toString();
+                if (name.startsWith(prefix) && !name.equals(current)
+                        && name.substring(prefix.length(), name.length() - 4).matches("[0-9a-f]+")
+                        && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private static String filePrefix(final WordList wordList) {
+        return wordList.getName() + "-" + wordList.getLength() + "-";
+    }
+
+    /**
+     * Maps a matrix file
+     *
+     * @param file The file
+     *
+     * @return The matrix or null if the file has an unknown format
+     *
+     * @throws IOException If the file can't be mapped
+     */
+    public static FeedbackMatrix open(final Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                return null;
+            }
+            final long version = buffer.getLong(8);
+            final int secrets = buffer.getInt(16);
+            final int guesses = buffer.getInt(20);
+            final int entrySize = buffer.getInt(24);
+            if ((entrySize != Byte.BYTES && entrySize != Short.BYTES)
+                    || buffer.capacity() != HEADER_SIZE + (long) secrets * guesses * entrySize) {
+                return null;
+            }
+            final ByteBuffer table = buffer.slice(HEADER_SIZE, buffer.capacity() - HEADER_SIZE);
+            return new FeedbackMatrix(version, secrets, guesses, entrySize, table);
+        }
+    }
+
+    /**
+     * Computes the matrix of a word list and writes it to a file
+     * The rows are computed in parallel, the file is replaced atomically when it's done.
+     *
+     * @param file     The file
+     * @param wordList The word list
+     *
+     * @throws IOException If the file can't be written
+     */
+    public static void generate(final Path file, final WordList wordList) throws IOException {
+        final int secrets = wordList.getWords().size();
+        final int guesses = wordList.getGuessCount();
+        final int entrySize = entrySize(wordList.getLength());
+        final long size = HEADER_SIZE + (long) secrets * guesses * entrySize;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Word list " + wordList.getName() + " is too large for a feedback matrix");
+        }
+
+        final Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        final Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (final FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, FORMAT_VERSION);
+                buffer.putLong(8, wordList.getVersion());
+                buffer.putInt(16, secrets);
+                buffer.putInt(20, guesses);
+                buffer.putInt(24, entrySize);
+
+                // Absolute puts on disjoint rows, safe to do in parallel
+                IntStream.range(0, secrets).parallel().forEach(secretIndex -> {
+                    final int secret = wordList.getWords().get(secretIndex);
+                    final int offset = HEADER_SIZE + secretIndex * guesses * entrySize;
+                    for (int guessIndex = 0; guessIndex < guesses; guessIndex++) {
+                        final int pattern = WordleGame.score(secret, wordList.getGuess(guessIndex));
+                        if (entrySize == Byte.BYTES) {
+                            buffer.put(offset + guessIndex, (byte) pattern);
+                        } else {
+                            buffer.putShort(offset + guessIndex * Short.BYTES, (short) pattern);
+                        }
+                    }
+                });
+                buffer.force();
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Compares random samples of this matrix with {@link WordleGame#score(int, int)}
+     *
+     * @param wordList The word list of this matrix
+     *
+     * @return True if all samples are equal
+     */
+    private boolean verify(final WordList wordList) {
+        final Random random = new Random();
+        for (int i = 0; i < VERIFY_SAMPLES; i++) {
+            final int secretIndex = random.nextInt(this.secrets);
+            final int guessIndex = random.nextInt(this.guesses);
+            if (this.getPattern(secretIndex, guessIndex)
+                    != WordleGame.score(wordList.getWords().get(secretIndex), wordList.getGuess(guessIndex))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if this matrix was computed for a word list
+     *
+     * @param wordList The word list
+     *
+     * @return True if the matrix belongs to the word list
+     */
+    public boolean matches(final WordList wordList) {
+        return this.version == wordList.getVersion()
+                && this.secrets == wordList.getWords().size()
+                && this.guesses == wordList.getGuessCount()
+                && this.entrySize == entrySize(wordList.getLength());
+    }
+
+    /**
+     * Gets the pattern of a guess against a secret word
+     *
+     * @param secretIndex The index of the secret in {@link WordList#getWords()}
+     * @param guessIndex  The guess index, see {@link WordList#guessIndexOf(int)}
+     *
+     * @return The pattern, see {@link WordleGame#score(int, int)}
+     */
+    public int getPattern(final int secretIndex, final int guessIndex) {
+        final int entry = secretIndex * this.guesses + guessIndex;
+        return this.entrySize == Byte.BYTES ? this.table.get(entry) & 0xFF
+                : this.table.getShort(entry * Short.BYTES) & 0xFFFF;
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    public int getSecrets() {
+        return this.secrets;
+    }
+
+    public int getGuesses() {
+        return this.guesses;
+    }
+
+}
@@ -0,0 +1,141 @@
+package dev.cerus.dwordle.game;
+
+import dev.cerus.dwordle.Launcher;
+import dev.cerus.dwordle.word.WordList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the feedback matrices of all word lists
+ * <p>
+ * Matrices are opened or generated in the background. Until the matrix of a word list is
+ * ready, {@link #get(WordList)} returns null and games fall back to calculating patterns.
+ * <p>
+ * Matrices are kept by word list version. Once the matrix of a new version is ready, the matrix
+ * of the previous version of that word list is dropped and its file deleted. Games that still
+ * use the previous version keep the matrix they were started with.
+ */
+public class FeedbackMatrixCache implements AutoCloseable {
+
+    private final Map<Long, FeedbackMatrix> matrixMap = new ConcurrentHashMap<>();
+    private final Map<String, Long> currentVersions = new ConcurrentHashMap<>();
+    private final Set<Long> pendingVersions = ConcurrentHashMap.newKeySet();
+    private final Set<Long> failedVersions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final Path dir;
+
+    public FeedbackMatrixCache() {
+        this(defaultDir());
+    }
+
+    /**
+     * @param dir The directory of the matrix files
+     */
+    public FeedbackMatrixCache(final Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Gets the default directory of the matrix files
+     * The directory can be changed with the FEEDBACK_MATRIX_DIR environment variable.
+     *
+     * @return The directory
+     */
+    public static Path defaultDir() {
+        final String dir = System.getenv("FEEDBACK_MATRIX_DIR");
+        return Path.of(dir == null ? "./matrices" : dir);
+    }
+
+    /**
+     * Gets the matrix of a word list
+     * Starts loading the matrix if it's not available, so the word list should be the current one.
+     *
+     * @param wordList The word list
+     *
+     * @return The matrix or null if it's not loaded yet
+     */
+    public FeedbackMatrix get(final WordList wordList) {
+        final FeedbackMatrix matrix = this.getLoaded(wordList);
+        if (matrix == null) {
+            this.load(wordList);
+        }
+        return matrix;
+    }
+
+    /**
+     * Gets the matrix of a word list without loading it
+     *
+     * @param wordList The word list
+     *
+     * @return The matrix or null if it's not loaded
+     */
+    public FeedbackMatrix getLoaded(final WordList wordList) {
+        final FeedbackMatrix matrix = this.matrixMap.get(wordList.getVersion());
+        return matrix != null && matrix.matches(wordList) ? matrix : null;
+    }
+
+    /**
+     * Opens or generates the matrix of a word list in the background
+     *
+     * @param wordList The word list
+     */
+    public void load(final WordList wordList) {
+        if (wordList.isEmpty()
+                || this.matrixMap.containsKey(wordList.getVersion())
+                || this.failedVersions.contains(wordList.getVersion())
+                || !this.pendingVersions.add(wordList.getVersion())) {
+            return;
+        }
+
+        this.executorService.execute(() -> {
+            try {
+                final long start = System.currentTimeMillis();
+                this.matrixMap.put(wordList.getVersion(), FeedbackMatrix.openOrGenerate(this.dir, wordList));
+                Launcher.log("Feedback matrix for " + wordList.getKey() + " ready after "
+                        + (System.currentTimeMillis() - start) + "ms");
+                this.dropPrevious(wordList);
+            } catch (final IOException | RuntimeException e) {
+                e.printStackTrace();
+                Launcher.log("ERROR: Failed to load feedback matrix for " + wordList.getKey());
+                this.failedVersions.add(wordList.getVersion());
+            } finally {
+                this.pendingVersions.remove(wordList.getVersion());
+            }
+        });
+    }
+
+    /**
+     * Drops the matrix and the files of the previous versions of a word list
+     *
+     * @param wordList The word list whose matrix was just loaded
+     */
+    private void dropPrevious(final WordList wordList) {
+        final Long previous = this.currentVersions.put(wordList.getKey(), wordList.getVersion());
+        // Word lists with the same words share a version
+        if (previous != null && previous != wordList.getVersion() && !this.currentVersions.containsValue(previous)) {
+            this.matrixMap.remove(previous);
+        }
+        try {
+            final int deleted = FeedbackMatrix.deleteOthers(this.dir, wordList);
+            if (deleted > 0) {
+                Launcher.log("Deleted " + deleted + " outdated feedback matrices of " + wordList.getKey());
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+            Launcher.log("ERROR: Failed to delete outdated feedback matrices of " + wordList.getKey());
+        }
+    }
+
+    @Override
+    public void close() {
+        this.executorService.shutdown();
+        this.matrixMap.clear();
+        this.currentVersions.clear();
+    }
+
+}
@@ -1,57 +1,157 @@
 package dev.cerus.dwordle.game;
 
 import static dev.cerus.dwordle.Const.TIMEOUT;
+import static dev.cerus.dwordle.Const.TIMEOUT_WARNING;
+import dev.cerus.dwordle.Const;
+import dev.cerus.dwordle.bot.util.DeletionBatcher;
+import dev.cerus.dwordle.bot.util.EditScheduler;
 import dev.cerus.dwordle.bot.util.MessageUtil;
 import dev.cerus.dwordle.stats.StatsService;
+import dev.cerus.dwordle.word.SeenWords;
+import dev.cerus.dwordle.word.WordDictionary;
+import dev.cerus.dwordle.word.WordList;
 import dev.cerus.dwordle.word.WordServiceController;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.MessageChannel;
-import net.jodah.expiringmap.ExpiringMap;
 
-public class GameController {
+/**
+ * Keeps track of all running games
+ * <p>
+ * JDA event threads, slash command threads and the timeout thread all call into this class
+ * concurrently. Every method that touches a session holds the lock of the user for its whole
+ * duration, so the operations of one user never interleave.
+ * <p>
+ * Games end after {@link dev.cerus.dwordle.Const#TIMEOUT} minutes without a guess. The
+ * timeouts live in a {@link TimingWheel} and are handled in batches on a small worker pool.
+ * <p>
+ * Every change is recorded in the {@link GameJournal}, so running games survive restarts.
+ * <p>
+ * Boards are either emoji messages that are edited in place, or images. An image can't be added
+ * to a message that was already sent, so in image mode every new board is sent as a new message
+ * that replaces the previous one.
+ */
+public class GameController implements AutoCloseable {
 
-    private final Map<Long, WordleGame> gameMap = new HashMap<>();    private final Map<Long, Object> timeoutMap = ExpiringMap.builder()
-            .expiration(TIMEOUT, TimeUnit.MINUTES)
-            .expirationListener((o, o2) -> this.endGame((Long) o))
-            .build();
-    private final Map<Long, Message> messageMap = new HashMap<>();
+    private static final int TIMEOUT_EXPIRED = 0;
+    private static final int TIMEOUT_WARNING_DUE = 1;
+
+    private final SessionRegistry<GameSession> sessions = new SessionRegistry<>(64);
+    private final MessageIdIndex messageIds = new MessageIdIndex();
+    private final ExecutorService timeoutExecutor = Executors.newFixedThreadPool(2);
+    private final TimingWheel timingWheel;
+    private final EditScheduler edits = new EditScheduler();
+    private final DeletionBatcher deletions = new DeletionBatcher();
     private final WordServiceController wordServiceController;
     private final StatsService statsService;
-    public GameController(final WordServiceController wordServiceController, final StatsService statsService) {
+    private final FeedbackMatrixCache feedbackMatrixCache;
+    private final SecretSelector secretSelector;
+    private final GameJournal journal;
+    private final boolean imageBoards;
+    private final long timeoutMillis;
+    private final long warningMillis;
+    // Set by restore, used to open the private channels of restored games
+    private volatile JDA jda;
+
+    public GameController(final WordServiceController wordServiceController,
+                          final StatsService statsService,
+                          final FeedbackMatrixCache feedbackMatrixCache,
+                          final SecretSelector secretSelector,
+                          final GameJournal journal,
+                          final boolean imageBoards) {
+        this(wordServiceController, statsService, feedbackMatrixCache, secretSelector, journal, imageBoards,
+                1000, TimeUnit.MINUTES.toMillis(TIMEOUT), TimeUnit.MINUTES.toMillis(TIMEOUT_WARNING));
+    }
+
+    /**
+     * @param tickMillis    The resolution of the timeouts
+     * @param timeoutMillis The time without a guess until a game ends
+     * @param warningMillis The time before the end of a game when the user is warned, 0 to not warn
+     */
+    GameController(final WordServiceController wordServiceController,
+                   final StatsService statsService,
+                   final FeedbackMatrixCache feedbackMatrixCache,
+                   final SecretSelector secretSelector,
+                   final GameJournal journal,
+                   final boolean imageBoards,
+                   final long tickMillis,
+                   final long timeoutMillis,
+                   final long warningMillis) {
         this.wordServiceController = wordServiceController;
         this.statsService = statsService;
+        this.feedbackMatrixCache = feedbackMatrixCache;
+        this.journal = journal;
+        this.imageBoards = imageBoards;
+        this.secretSelector = secretSelector;
+        this.timeoutMillis = timeoutMillis;
+        this.warningMillis = warningMillis;
+        this.timingWheel = new TimingWheel(tickMillis, 1024, this.timeoutExecutor, this::handleTimeouts);
     }
 
     /**
      * Makes a call to the game object to process the input and updates the Discord message
      * Will also save stats if this causes the game to end
      *
-     * @param userId The user
-     * @param input  The input
+     * @param userId  The user
+     * @param channel The channel the input was sent in, can be null
+     * @param input   The input
      */
-    public void handleInput(final long userId, final String input) {
-        final WordleGame game = this.gameMap.get(userId);
-        game.handleInput(input);
+    public void handleInput(final long userId, final MessageChannel channel, final String input) {
+        final Lock lock = this.sessions.lockFor(userId);
+        lock.lock();
+        try {
+            final GameSession session = this.sessions.get(userId);
+            if (session == null) {
+                // The game ended in the meantime
+                return;
+            }
+            if (session.getChannel() == null && channel != null && channel.getIdLong() == session.getChannelId()) {
+                // Restored games in uncached private channels get their channel from the first reply
+                session.setChannel(channel);
+            }
+            final WordleGame game = session.getGame();
+            final int tries = game.getTries();
+            game.handleInput(input);
 
-        MessageUtil.sendGameUpdate(userId, game, this.messageMap.get(userId));
+            if (game.getTries() > tries) {
+                this.journal.guessed(userId, game.getGuess(tries));
+            }
+            if (session.hasMessage() && !this.imageBoards) {
+                MessageUtil.sendGameUpdate(this.edits, userId, game, session.getChannel(), session.getMessageId());
+            } else if (session.hasMessage() && game.getTries() > tries) {
+                // A rejected guess doesn't change the image board, no need to send it again
+                this.sendBoardImage(userId, session, false);
+            } else if (session.getMessageId() != 0 && game.getTries() > tries) {
+                this.resolveChannel(userId, session);
+            }
 
-        if (game.isAtEnd() || game.isDone()) {
-            this.gameMap.remove(userId);
-            this.messageMap.remove(userId);
-            this.timeoutMap.remove(userId);
+            if (game.isAtEnd() || game.isDone()) {
+                this.sessions.remove(userId);
+                this.messageIds.remove(session.getMessageId());
+                this.cancelTimeouts(session);
+                this.journal.ended(userId);
 
-            // Update stats
-            this.statsService.exec(() -> {
-                this.statsService.gamePlayed(userId);
-                if (game.isDone()) {
-                    this.statsService.gameWon(userId);
-                } else {
-                    this.statsService.gameLost(userId);
-                }
-            });
+                // Update stats
+                this.statsService.exec(() -> {
+                    this.statsService.gamePlayed(userId);
+                    if (game.isDone()) {
+                        this.statsService.gameWon(userId);
+                    } else {
+                        this.statsService.gameLost(userId);
+                    }
+                });
+            } else if (game.getTries() > tries) {
+                // The user is still active, give them more time
+                this.scheduleTimeouts(userId, session);
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -61,34 +161,312 @@ public class GameController {
      * @param userId The user
      */
     public void endGame(final long userId) {
-        if (!this.hasGame(userId)) {
-            return;
+        final Lock lock = this.sessions.lockFor(userId);
+        lock.lock();
+        try {
+            final GameSession session = this.sessions.remove(userId);
+            if (session == null) {
+                return;
+            }
+            this.messageIds.remove(session.getMessageId());
+            this.cancelTimeouts(session);
+            this.journal.ended(userId);
+
+            if (session.hasMessage()) {
+                this.sendGameEnded(userId, session);
+            } else if (session.getMessageId() != 0) {
+                // The channel of a restored game is not known yet, the channel callback will notice that the game is over
+                this.resolveChannel(userId, session);
+            }
+            // Otherwise the message was not sent yet, the message callback will notice that the game is over
+            this.statsService.exec(() -> {
+                this.statsService.gamePlayed(userId);
+                this.statsService.gameLost(userId);
+            });
+        } finally {
+            lock.unlock();
         }
+    }
 
-        this.timeoutMap.remove(userId);
-        final WordleGame game = this.gameMap.remove(userId);
-        final Message message = this.messageMap.remove(userId);
+    /**
+     * Starts a new game for the user
+     *
+     * @param userId   The user
+     * @param channel  The channel where the game is going to be played
+     * @param wordList The name of the word list
+     * @param length   The word length
+     * @param maxTries The amount of guesses
+     *
+     * @return False if the user already has a running game
+     */
+    public boolean startGame(final long userId, final MessageChannel channel, final String wordList, final int length, final int maxTries) {
+        if (this.sessions.containsKey(userId)) {
+            return false;
+        }
+        // Might read the database, so it happens before the lock is taken
+        final WordList list = this.wordServiceController.getWordList(wordList, length);
+        final SeenWords seen = this.secretSelector.load(userId, list);
+
+        final Lock lock = this.sessions.lockFor(userId);
+        lock.lock();
+        try {
+            if (this.sessions.containsKey(userId)) {
+                return false;
+            }
+            final String secret = this.secretSelector.select(userId, list, seen);
+            final GameSession session = new GameSession(new WordleGame(list, secret, maxTries, this.feedbackMatrixCache.get(list)));
+            session.setChannel(channel);
+            this.scheduleTimeouts(userId, session);
+            this.sessions.putIfAbsent(userId, session);
+            this.journal.started(userId, channel.getIdLong(), wordList, length, maxTries, WordDictionary.pack(secret));
+
+            final Consumer<Message> callback = message -> {
+                lock.lock();
+                try {
+                    session.setMessageId(message.getIdLong());
+                    if (this.sessions.get(userId) == session) {
+                        this.messageIds.add(message.getIdLong());
+                        this.journal.messageSent(userId, message.getIdLong());
+                    } else {
+                        // The game was ended before the message was sent
+                        this.sendGameEnded(userId, session);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            };
+            if (this.imageBoards) {
+                MessageUtil.sendGameStartedImage(userId, channel, length, maxTries, callback);
+            } else {
+                MessageUtil.sendGameStarted(userId, channel, length, maxTries, callback);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Restores the games that were running when the bot stopped
+     * Games that can't be continued (unknown word list, game message was never sent) are dropped.
+     * Channels that are not cached are not requested here, see {@link #resolveChannel(long, GameSession)}.
+     *
+     * @param entries The games from {@link GameJournal#open()}
+     * @param jda     The JDA instance, used to look up the game channels
+     *
+     * @return The amount of restored games
+     */
+    public int restore(final List<GameJournal.Entry> entries, final JDA jda) {
+        this.jda = jda;
+        int restored = 0;
+        for (final GameJournal.Entry entry : entries) {
+            final long userId = entry.getUserId();
+            final WordList list = entry.getLength() < Const.MIN_WORD_LENGTH || entry.getLength() > Const.MAX_WORD_LENGTH
+                    || !this.wordServiceController.isValidWordList(entry.getWordList(), entry.getLength()) ? null
+                    : this.wordServiceController.getWordList(entry.getWordList(), entry.getLength());
+            if (list == null || entry.getMessageId() == 0
+                    || entry.getMaxTries() < 1 || entry.getMaxTries() > WordleGame.maxTries(entry.getLength())) {
+                this.journal.ended(userId);
+                continue;
+            }
+
+            final WordleGame game = new WordleGame(list, entry.getSecret(),
+                    entry.getMaxTries(), this.feedbackMatrixCache.get(list));
+            for (final int guess : entry.getGuesses()) {
+                game.handleGuess(guess);
+            }
+            if (game.isDone() || game.isAtEnd()) {
+                this.journal.ended(userId);
+                continue;
+            }
+
+            final GameSession session = new GameSession(game);
+            session.setMessageId(entry.getMessageId());
+            session.setChannelId(entry.getChannelId());
+            final Lock lock = this.sessions.lockFor(userId);
+            lock.lock();
+            try {
+                if (!this.sessions.putIfAbsent(userId, session)) {
+                    continue;
+                }
+                this.scheduleTimeouts(userId, session);
+                this.messageIds.add(entry.getMessageId());
+
+                MessageChannel channel = jda.getTextChannelById(entry.getChannelId());
+                if (channel == null) {
+                    channel = jda.getPrivateChannelById(entry.getChannelId());
+                }
+                if (channel != null) {
+                    session.setChannel(channel);
+                }
+                restored++;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Starts or restarts the timeouts of a session
+     *
+     * @param userId  The user
+     * @param session The session
+     */
+    private void scheduleTimeouts(final long userId, final GameSession session) {
+        if (session.getTimeout() == null) {
+            session.setTimeout(this.timingWheel.schedule(userId, TIMEOUT_EXPIRED, this.timeoutMillis, TimeUnit.MILLISECONDS));
+            if (this.warningMillis > 0 && this.warningMillis < this.timeoutMillis) {
+                session.setWarning(this.timingWheel.schedule(userId, TIMEOUT_WARNING_DUE,
+                        this.timeoutMillis - this.warningMillis, TimeUnit.MILLISECONDS));
+            }
+            return;
+        }
+        this.timingWheel.reschedule(session.getTimeout(), this.timeoutMillis, TimeUnit.MILLISECONDS);
+        if (session.getWarning() != null) {
+            this.timingWheel.reschedule(session.getWarning(), this.timeoutMillis - this.warningMillis, TimeUnit.MILLISECONDS);
+        }
+    }
 
-        MessageUtil.sendGameEnded(userId, game, message);
-        this.statsService.exec(() -> {
-            this.statsService.gamePlayed(userId);
-            this.statsService.gameLost(userId);
+    /**
+     * Opens the private channel of a restored game that was not cached, needs the lock of the user
+     * Once the channel is open the current board is sent, or the end of the game if it is over by then.
+     * Games whose channel can't be opened or turns out not to be their private channel are ended.
+     *
+     * @param userId  The user
+     * @param session The session of the game, has to have a message id
+     */
+    private void resolveChannel(final long userId, final GameSession session) {
+        final JDA jda = this.jda;
+        if (session.isChannelRequested() || jda == null) {
+            return;
+        }
+        session.setChannelRequested(true);
+        final Lock lock = this.sessions.lockFor(userId);
+        jda.openPrivateChannelById(userId).queue(channel -> {
+            lock.lock();
+            try {
+                final boolean running = this.sessions.get(userId) == session;
+                if (channel.getIdLong() != session.getChannelId()) {
+                    // The game was in a guild channel that is gone, the message can't be edited anywhere
+                    if (running) {
+                        this.endGame(userId);
+                    }
+                    return;
+                }
+                session.setChannel(channel);
+                final WordleGame game = session.getGame();
+                if (running || game.isDone() || game.isAtEnd()) {
+                    // Shows the guesses that were made in the meantime, or how the game was won or lost
+                    this.sendBoard(userId, session);
+                } else {
+                    this.sendGameEnded(userId, session);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }, throwable -> {
+            lock.lock();
+            try {
+                if (this.sessions.get(userId) == session) {
+                    this.endGame(userId);
+                }
+            } finally {
+                lock.unlock();
+            }
         });
     }
 
     /**
-     * Starts a new game for the user
+     * Shows the current board, needs the lock of the user
      *
      * @param userId  The user
-     * @param channel The channel where the game is going to be played
+     * @param session The session of the game, has to have a message
      */
-    public void startGame(final long userId, final MessageChannel channel, final String wordList) {
-        this.timeoutMap.put(userId, new Object());
-        this.gameMap.put(userId, new WordleGame(wordList, this.wordServiceController.getRandomSecretWord(wordList)));
+    private void sendBoard(final long userId, final GameSession session) {
+        if (this.imageBoards) {
+            this.sendBoardImage(userId, session, false);
+        } else {
+            MessageUtil.sendGameUpdate(this.edits, userId, session.getGame(), session.getChannel(), session.getMessageId());
+        }
+    }
 
-        System.out.println(this.gameMap.get(userId).getSecretWord());
+    /**
+     * Shows the end of a game that was ended early, needs the lock of the user
+     *
+     * @param userId  The user
+     * @param session The session of the game, has to have a message
+     */
+    private void sendGameEnded(final long userId, final GameSession session) {
+        if (this.imageBoards) {
+            this.sendBoardImage(userId, session, true);
+        } else {
+            MessageUtil.sendGameEnded(this.edits, userId, session.getGame(), session.getChannel(), session.getMessageId());
+        }
+    }
 
-        MessageUtil.sendGameStarted(userId, channel, message -> this.messageMap.put(userId, message));
+    /**
+     * Sends the current image board as a new message that replaces the game message, needs the lock of the user
+     * Messages of one channel are sent in order, so the callbacks replace the messages in the order of the boards.
+     *
+     * @param userId  The user
+     * @param session The session of the game, has to have a message
+     * @param ended   True if the game was ended early
+     */
+    private void sendBoardImage(final long userId, final GameSession session, final boolean ended) {
+        final Lock lock = this.sessions.lockFor(userId);
+        final MessageChannel channel = session.getChannel();
+        MessageUtil.sendGameImage(userId, session.getGame(), channel, ended, message -> {
+            final long replaced;
+            lock.lock();
+            try {
+                replaced = session.getMessageId();
+                session.setMessageId(message.getIdLong());
+                this.messageIds.remove(replaced);
+                if (this.sessions.get(userId) == session) {
+                    this.messageIds.add(message.getIdLong());
+                    this.journal.messageSent(userId, message.getIdLong());
+                }
+            } finally {
+                lock.unlock();
+            }
+            this.deletions.delete(channel, replaced, 0, TimeUnit.SECONDS);
+        });
+    }
+
+    private void cancelTimeouts(final GameSession session) {
+        this.timingWheel.cancel(session.getTimeout());
+        if (session.getWarning() != null) {
+            this.timingWheel.cancel(session.getWarning());
+        }
+    }
+
+    /**
+     * Ends the games or sends the warnings of expired timeouts
+     *
+     * @param timeouts The expired timeouts
+     */
+    private void handleTimeouts(final TimingWheel.Timeout[] timeouts) {
+        for (final TimingWheel.Timeout timeout : timeouts) {
+            final long userId = timeout.getKey();
+            final Lock lock = this.sessions.lockFor(userId);
+            lock.lock();
+            try {
+                // The timeout might belong to an old game or might have been rescheduled after it expired
+                final GameSession session = this.sessions.get(userId);
+                if (session == null || !this.timingWheel.isExpired(timeout)) {
+                    continue;
+                }
+                if (timeout == session.getTimeout()) {
+                    this.endGame(userId);
+                } else if (timeout == session.getWarning() && session.hasMessage()) {
+                    MessageUtil.sendTimeoutWarning(this.deletions, userId, session.getChannel(), session.getMessageId(),
+                            (int) TimeUnit.MILLISECONDS.toMinutes(this.warningMillis));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
     }
 
     /**
@@ -99,11 +477,12 @@ public class GameController {
      * @return True if user has a running game
      */
     public boolean hasGame(final long userId) {
-        return this.gameMap.containsKey(userId);
+        return this.sessions.containsKey(userId);
     }
 
     /**
      * Is this message a game message?
+     * Messages of no running game are rejected without locking.
      *
      * @param userId The user
      * @param msgId  The message
@@ -111,10 +490,17 @@ public class GameController {
      * @return True or false
      */
     public boolean isGameMessage(final long userId, final long msgId) {
-        if (!this.messageMap.containsKey(userId)) {
+        if (!this.messageIds.contains(msgId)) {
             return false;
         }
-        return this.messageMap.get(userId).getIdLong() == msgId;
+        final Lock lock = this.sessions.lockFor(userId);
+        lock.lock();
+        try {
+            final GameSession session = this.sessions.get(userId);
+            return session != null && session.getMessageId() == msgId;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -122,16 +508,50 @@ public class GameController {
      *
      * @param userId The user
      *
-     * @return A game
+     * @return A game or null
      */
     public WordleGame getGame(final long userId) {
-        return this.gameMap.get(userId);
+        final GameSession session = this.sessions.get(userId);
+        return session == null ? null : session.getGame();
+    }
+
+    /**
+     * Gets a copy of the running game of a user, taken while holding the lock of the user
+     * Use this instead of {@link #getGame(long)} to read the game on another thread.
+     *
+     * @param userId The user
+     *
+     * @return A copy of the game or null
+     */
+    public WordleGame getGameCopy(final long userId) {
+        final Lock lock = this.sessions.lockFor(userId);
+        lock.lock();
+        try {
+            final GameSession session = this.sessions.get(userId);
+            return session == null ? null : session.getGame().copy();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public int getRunningGames() {
-        return this.gameMap.size();
+        return this.sessions.size();
+    }
+
+    public EditScheduler getEditScheduler() {
+        return this.edits;
     }
 
+    public DeletionBatcher getDeletionBatcher() {
+        return this.deletions;
+    }
 
+    @Override
+    public void close() {
+        this.timingWheel.close();
+        this.timeoutExecutor.shutdown();
+        this.edits.close();
+        this.deletions.close();
+    }
 
 }
@@ -0,0 +1,538 @@
+package dev.cerus.dwordle.game;
+
+import dev.cerus.dwordle.Launcher;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of all running games
+ * <p>
+ * Game starts, sent game messages, guesses and game ends are appended to a log file by a single
+ * writer thread. The thread writes everything that queued up since its last write at once and
+ * forces it to disk with one fsync, so the callers never wait for the disk. The writer also keeps
+ * the state of all running games and compacts the log into a snapshot once it gets too large.
+ * <p>
+ * Every snapshot and log carries a generation. A snapshot of generation n is only ever combined
+ * with the log of generation n, so a crash in the middle of a compaction can't apply a record twice.
+ * <p>
+ * Records: [int length][int crc32][byte type][long user id][payload]
+ */
+public class GameJournal implements AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x44474A53; // "DGJS"
+    private static final int LOG_MAGIC = 0x44474A4C; // "DGJL"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int MAX_RECORD_SIZE = 1024;
+    private static final long COMPACT_BYTES = 16 * 1024 * 1024;
+
+    private static final byte TYPE_START = 1;
+    private static final byte TYPE_MESSAGE = 2;
+    private static final byte TYPE_GUESS = 3;
+    private static final byte TYPE_END = 4;
+    // A whole game, only used in snapshots
+    private static final byte TYPE_GAME = 5;
+    // Internal records, never written
+    private static final byte TYPE_FLUSH = 6;
+    private static final byte TYPE_CLOSE = 7;
+
+    private final BlockingQueue<Record> queue = new LinkedBlockingQueue<>();
+    private final CRC32 crc = new CRC32();
+    private final Path dir;
+    private Map<Long, Entry> state;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private FileChannel log;
+    private long generation;
+    private Thread writer;
+
+    /**
+     * Creates a journal in the directory from the JOURNAL_DIR environment variable
+     */
+    public GameJournal() {
+        this(Path.of(System.getenv("JOURNAL_DIR") == null ? "./journal" : System.getenv("JOURNAL_DIR")));
+    }
+
+    /**
+     * @param dir The directory of the snapshot and log files
+     */
+    public GameJournal(final Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Reads the last state, compacts it into a new generation and starts the journal
+     * Has to be called once before anything else.
+     *
+     * @return All games that were running when the journal was closed
+     *
+     * @throws IOException If the journal can't be read or written
+     */
+    public List<Entry> open() throws IOException {
+        Files.createDirectories(this.dir);
+        final Map<Long, Entry> state = new HashMap<>();
+        long generation = 0;
+
+        final Path snapshot = this.dir.resolve("snapshot.bin");
+        if (Files.isRegularFile(snapshot)) {
+            final ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+            if (data.remaining() >= HEADER_SIZE && data.getInt() == SNAPSHOT_MAGIC && data.getInt() == FORMAT_VERSION) {
+                generation = data.getLong();
+                read(data, state);
+            } else {
+                Launcher.log("ERROR: Game journal snapshot has an unknown format, ignoring it");
+            }
+        }
+        final Path logFile = this.logFile(generation);
+        if (Files.isRegularFile(logFile)) {
+            final ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(logFile));
+            if (data.remaining() >= HEADER_SIZE && data.getInt() == LOG_MAGIC
+                    && data.getInt() == FORMAT_VERSION && data.getLong() == generation) {
+                read(data, state);
+            }
+        }
+
+        this.state = state;
+        this.generation = generation;
+
+        // Nothing is appended to the old log, the writer can't run without a log of its own
+        this.compact();
+        final List<Entry> entries = new ArrayList<>(state.values());
+        this.writer = new Thread(this::run, "GameJournal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        return entries;
+    }
+
+    private Path logFile(final long generation) {
+        return this.dir.resolve("journal-" + generation + ".log");
+    }
+
+    /**
+     * Applies all intact records of a buffer
+     * Stops at the first damaged record, that's where the process died while writing.
+     *
+     * @param data  The records
+     * @param state The state to update
+     */
+    private static void read(final ByteBuffer data, final Map<Long, Entry> state) {
+        final CRC32 crc = new CRC32();
+        while (data.remaining() >= Integer.BYTES * 2) {
+            final int length = data.getInt();
+            final int checksum = data.getInt();
+            if (length <= 0 || length > MAX_RECORD_SIZE || length > data.remaining()) {
+                return;
+            }
+            crc.reset();
+            crc.update(data.array(), data.arrayOffset() + data.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                return;
+            }
+            final int end = data.position() + length;
+            apply(data, state);
+            data.position(end);
+        }
+    }
+
+    private static void apply(final ByteBuffer data, final Map<Long, Entry> state) {
+        final byte type = data.get();
+        final long userId = data.getLong();
+        switch (type) {
+            case TYPE_START -> {
+                final long channelId = data.getLong();
+                final int secret = data.getInt();
+                final int length = data.get();
+                final int maxTries = data.get();
+                final byte[] name = new byte[data.getShort()];
+                data.get(name);
+                state.put(userId, new Entry(userId, channelId, new String(name, StandardCharsets.UTF_8), length, maxTries, secret));
+            }
+            case TYPE_MESSAGE -> {
+                final Entry entry = state.get(userId);
+                if (entry != null) {
+                    entry.messageId = data.getLong();
+                }
+            }
+            case TYPE_GUESS -> {
+                final Entry entry = state.get(userId);
+                if (entry != null && entry.guessCount < entry.guesses.length) {
+                    entry.guesses[entry.guessCount++] = data.getInt();
+                }
+            }
+            case TYPE_END -> state.remove(userId);
+            case TYPE_GAME -> {
+                final long channelId = data.getLong();
+                final long messageId = data.getLong();
+                final int secret = data.getInt();
+                final int length = data.get();
+                final int maxTries = data.get();
+                final byte[] name = new byte[data.getShort()];
+                data.get(name);
+                final Entry entry = new Entry(userId, channelId, new String(name, StandardCharsets.UTF_8), length, maxTries, secret);
+                entry.messageId = messageId;
+                entry.guessCount = Math.min(data.get(), entry.guesses.length);
+                for (int i = 0; i < entry.guessCount; i++) {
+                    entry.guesses[i] = data.getInt();
+                }
+                state.put(userId, entry);
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of the current state and starts a new log
+     * Only called by the writer thread.
+     *
+     * @throws IOException If the files can't be written
+     */
+    private void compact() throws IOException {
+        final long next = this.generation + 1;
+        final Path snapshot = this.dir.resolve("snapshot.bin");
+        final Path tmp = Files.createTempFile(this.dir, "snapshot", ".tmp");
+        try {
+            try (final FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                this.buffer.clear();
+                this.buffer.putInt(SNAPSHOT_MAGIC).putInt(FORMAT_VERSION).putLong(next);
+                for (final Entry entry : this.state.values()) {
+                    this.encode(channel, TYPE_GAME, entry.userId, entry.channelId, entry.secret,
+                            entry.length, entry.maxTries, entry.wordList, entry);
+                }
+                this.writeBuffer(channel);
+                channel.force(true);
+            }
+            Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        final FileChannel log = FileChannel.open(this.logFile(next), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            this.buffer.clear();
+            this.buffer.putInt(LOG_MAGIC).putInt(FORMAT_VERSION).putLong(next);
+            this.writeBuffer(log);
+            log.force(true);
+        } catch (final IOException e) {
+            log.close();
+            throw e;
+        }
+        if (this.log != null) {
+            this.log.close();
+        }
+        this.log = log;
+        this.generation = next;
+
+        // Older logs are covered by the snapshot now
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(this.dir, "journal-*.log")) {
+            for (final Path file : stream) {
+                if (!file.equals(this.logFile(next))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writer thread, writes and syncs everything that queued up in one go
+     * A failed write leaves the log in an unknown state. The records are still applied to the
+     * state, so the next batch retries with a compaction instead of appending to the damaged log.
+     */
+    private void run() {
+        final List<Record> batch = new ArrayList<>();
+        final List<CompletableFuture<Void>> flushed = new ArrayList<>();
+        boolean damaged = false;
+        boolean closed = false;
+        while (!closed) {
+            try {
+                batch.add(this.queue.take());
+                this.queue.drainTo(batch);
+
+                for (final Record record : batch) {
+                    if (record.type == TYPE_FLUSH) {
+                        flushed.add(record.future);
+                    } else if (record.type == TYPE_CLOSE) {
+                        flushed.add(record.future);
+                        closed = true;
+                    } else {
+                        this.apply(record);
+                    }
+                }
+
+                if (damaged) {
+                    // The snapshot contains this batch as well
+                    this.compact();
+                    damaged = false;
+                } else {
+                    this.buffer.clear();
+                    for (final Record record : batch) {
+                        if (record.type != TYPE_FLUSH && record.type != TYPE_CLOSE) {
+                            this.encode(this.log, record.type, record.userId, record.id, record.value,
+                                    record.length, record.maxTries, record.wordList, null);
+                        }
+                    }
+                    this.writeBuffer(this.log);
+                    this.log.force(false);
+
+                    if (this.log.size() > COMPACT_BYTES) {
+                        this.compact();
+                    }
+                }
+                flushed.forEach(future -> future.complete(null));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                closed = true;
+                flushed.forEach(future -> future.completeExceptionally(e));
+            } catch (final IOException | RuntimeException e) {
+                e.printStackTrace();
+                Launcher.log("ERROR: Failed to write game journal");
+                damaged = true;
+                flushed.forEach(future -> future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+                flushed.clear();
+            }
+        }
+
+        try {
+            this.log.close();
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void apply(final Record record) {
+        switch (record.type) {
+            case TYPE_START -> this.state.put(record.userId, new Entry(record.userId, record.id,
+                    record.wordList, record.length, record.maxTries, record.value));
+            case TYPE_MESSAGE -> {
+                final Entry entry = this.state.get(record.userId);
+                if (entry != null) {
+                    entry.messageId = record.id;
+                }
+            }
+            case TYPE_GUESS -> {
+                final Entry entry = this.state.get(record.userId);
+                if (entry != null && entry.guessCount < entry.guesses.length) {
+                    entry.guesses[entry.guessCount++] = record.value;
+                }
+            }
+            case TYPE_END -> this.state.remove(record.userId);
+        }
+    }
+
+    /**
+     * Appends a record to the buffer, writes the buffer to the channel if it's full
+     *
+     * @param entry The game for {@link #TYPE_GAME} records, null otherwise
+     */
+    private void encode(final FileChannel channel, final byte type, final long userId, final long id, final int value,
+                        final int length, final int maxTries, final String wordList, final Entry entry) throws IOException {
+        final byte[] name = wordList == null ? null : wordList.getBytes(StandardCharsets.UTF_8);
+        if (this.buffer.remaining() < MAX_RECORD_SIZE + Integer.BYTES * 2) {
+            this.writeBuffer(channel);
+        }
+
+        final int start = this.buffer.position();
+        this.buffer.position(start + Integer.BYTES * 2);
+        this.buffer.put(type).putLong(userId);
+        switch (type) {
+            case TYPE_START -> this.buffer.putLong(id).putInt(value)
+                    .put((byte) length).put((byte) maxTries)
+                    .putShort((short) name.length).put(name);
+            case TYPE_MESSAGE -> this.buffer.putLong(id);
+            case TYPE_GUESS -> this.buffer.putInt(value);
+            case TYPE_GAME -> {
+                this.buffer.putLong(id).putLong(entry.messageId).putInt(value)
+                        .put((byte) length).put((byte) maxTries)
+                        .putShort((short) name.length).put(name)
+                        .put((byte) entry.guessCount);
+                for (int i = 0; i < entry.guessCount; i++) {
+                    this.buffer.putInt(entry.guesses[i]);
+                }
+            }
+        }
+        final int recordLength = this.buffer.position() - start - Integer.BYTES * 2;
+
+        this.crc.reset();
+        this.crc.update(this.buffer.duplicate().position(start + Integer.BYTES * 2).limit(start + Integer.BYTES * 2 + recordLength));
+        this.buffer.putInt(start, recordLength);
+        this.buffer.putInt(start + Integer.BYTES, (int) this.crc.getValue());
+    }
+
+    private void writeBuffer(final FileChannel channel) throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Logs a game start
+     *
+     * @param userId    The user
+     * @param channelId The channel of the game
+     * @param wordList  The name of the word list
+     * @param length    The word length
+     * @param maxTries  The amount of guesses
+     * @param secret    The packed secret word
+     */
+    public void started(final long userId, final long channelId, final String wordList, final int length, final int maxTries, final int secret) {
+        this.queue.add(new Record(TYPE_START, userId, channelId, secret, length, maxTries, wordList));
+    }
+
+    public void messageSent(final long userId, final long messageId) {
+        this.queue.add(new Record(TYPE_MESSAGE, userId, messageId, 0, 0, 0, null));
+    }
+
+    public void guessed(final long userId, final int packedGuess) {
+        this.queue.add(new Record(TYPE_GUESS, userId, 0, packedGuess, 0, 0, null));
+    }
+
+    public void ended(final long userId) {
+        this.queue.add(new Record(TYPE_END, userId, 0, 0, 0, 0, null));
+    }
+
+    /**
+     * Waits until everything that was logged so far is on disk
+     *
+     * @return A callback, completes exceptionally if the journal could not be written
+     */
+    public CompletableFuture<Void> flush() {
+        final Record record = new Record(TYPE_FLUSH, 0, 0, 0, 0, 0, null);
+        this.queue.add(record);
+        return record.future;
+    }
+
+    @Override
+    public void close() {
+        if (this.writer == null) {
+            return;
+        }
+        final Record record = new Record(TYPE_CLOSE, 0, 0, 0, 0, 0, null);
+        this.queue.add(record);
+        try {
+            record.future.get(10, TimeUnit.SECONDS);
+        } catch (final Exception e) {
+            e.printStackTrace();
+            Launcher.log("ERROR: Failed to close game journal");
+        }
+    }
+
+    /**
+     * A queued record
+     */
+    private static final class Record {
+
+        private final byte type;
+        private final long userId;
+        // Channel id for starts, message id for messages
+        private final long id;
+        // Secret for starts, guess for guesses
+        private final int value;
+        private final int length;
+        private final int maxTries;
+        private final String wordList;
+        private final CompletableFuture<Void> future;
+
+        private Record(final byte type, final long userId, final long id, final int value,
+                       final int length, final int maxTries, final String wordList) {
+            this.type = type;
+            this.userId = userId;
+            this.id = id;
+            this.value = value;
+            this.length = length;
+            this.maxTries = maxTries;
+            this.wordList = wordList;
+            this.future = type == TYPE_FLUSH || type == TYPE_CLOSE ? new CompletableFuture<>() : null;
+        }
+
+    }
+
+    /**
+     * A game as recorded in the journal
+     */
+    public static final class Entry {
+
+        private final long userId;
+        private final long channelId;
+        private final String wordList;
+        private final int length;
+        private final int maxTries;
+        private final int secret;
+        private final int[] guesses;
+        private long messageId;
+        private int guessCount;
+
+        private Entry(final long userId, final long channelId, final String wordList,
+                      final int length, final int maxTries, final int secret) {
+            this.userId = userId;
+            this.channelId = channelId;
+            this.wordList = wordList;
+            this.length = length;
+            this.maxTries = maxTries;
+            this.secret = secret;
+            this.guesses = new int[Math.max(0, maxTries)];
+        }
+
+        public long getUserId() {
+            return this.userId;
+        }
+
+        public long getChannelId() {
+            return this.channelId;
+        }
+
+        /**
+         * Gets the id of the game message
+         *
+         * @return The message id or 0 if the message was not sent
+         */
+        public long getMessageId() {
+            return this.messageId;
+        }
+
+        public String getWordList() {
+            return this.wordList;
+        }
+
+        public int getLength() {
+            return this.length;
+        }
+
+        public int getMaxTries() {
+            return this.maxTries;
+        }
+
+        public int getSecret() {
+            return this.secret;
+        }
+
+        /**
+         * Gets the packed guesses
+         *
+         * @return A copy of the guesses
+         */
+        public int[] getGuesses() {
+            return Arrays.copyOf(this.guesses, this.guessCount);
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+package dev.cerus.dwordle.game;
+
+import net.dv8tion.jda.api.entities.MessageChannel;
+
+/**
+ * A running game and everything that belongs to it
+ * Only accessed while holding the lock of the user, see {@link SessionRegistry#lockFor(long)}.
+ */
+class GameSession {
+
+    private final WordleGame game;
+    private MessageChannel channel;
+    private long channelId;
+    private boolean channelRequested;
+    private long messageId;
+    private TimingWheel.Timeout timeout;
+    private TimingWheel.Timeout warning;
+
+    GameSession(final WordleGame game) {
+        this.game = game;
+    }
+
+    WordleGame getGame() {
+        return this.game;
+    }
+
+    /**
+     * Gets the channel of the game
+     *
+     * @return The channel or null if it is not available yet
+     */
+    MessageChannel getChannel() {
+        return this.channel;
+    }
+
+    void setChannel(final MessageChannel channel) {
+        this.channel = channel;
+        this.channelId = channel.getIdLong();
+    }
+
+    /**
+     * Gets the id of the channel of the game
+     * Known even if the channel itself is not, for example for a restored game in a private channel that is not cached.
+     *
+     * @return The channel id
+     */
+    long getChannelId() {
+        return this.channelId;
+    }
+
+    void setChannelId(final long channelId) {
+        this.channelId = channelId;
+    }
+
+    /**
+     * Checks if the channel was already requested from Discord
+     *
+     * @return True if the channel is being opened or could not be opened
+     */
+    boolean isChannelRequested() {
+        return this.channelRequested;
+    }
+
+    void setChannelRequested(final boolean channelRequested) {
+        this.channelRequested = channelRequested;
+    }
+
+    /**
+     * Gets the id of the game message
+     *
+     * @return The message id or 0 if it was not sent yet
+     */
+    long getMessageId() {
+        return this.messageId;
+    }
+
+    void setMessageId(final long messageId) {
+        this.messageId = messageId;
+    }
+
+    /**
+     * Checks if the game message can be edited
+     *
+     * @return True if the channel and the message are known
+     */
+    boolean hasMessage() {
+        return this.channel != null && this.messageId != 0;
+    }
+
+    TimingWheel.Timeout getTimeout() {
+        return this.timeout;
+    }
+
+    void setTimeout(final TimingWheel.Timeout timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Gets the timeout of the "time is almost up" warning
+     *
+     * @return The timeout or null if warnings are disabled
+     */
+    TimingWheel.Timeout getWarning() {
+        return this.warning;
+    }
+
+    void setWarning(final TimingWheel.Timeout warning) {
+        this.warning = warning;
+    }
+
+}
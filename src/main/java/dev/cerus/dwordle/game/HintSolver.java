@@ -0,0 +1,390 @@
+package dev.cerus.dwordle.game;
+
+import dev.cerus.dwordle.word.WordDictionary;
+import dev.cerus.dwordle.word.WordList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import net.jodah.expiringmap.ExpirationPolicy;
+import net.jodah.expiringmap.ExpiringMap;
+
+/**
+ * Finds the guess with the highest expected information for a running game
+ * <p>
+ * For every possible guess the distribution of patterns over the remaining candidates is
+ * counted and the guess with the highest entropy wins. Guesses are split across a dedicated
+ * fork/join pool, so the amount of threads used for hints is bounded no matter how many users
+ * ask for one at the same time. Patterns come from the {@link FeedbackMatrix} of the game, or from
+ * the loaded matrix of its word list if the game was started before the matrix was ready.
+ * <p>
+ * Results are cached by the guesses and patterns of the game, so the games passed in can be
+ * copies. The opening hint is the same for every game of a word list, so it is cached per word
+ * list version.
+ * <p>
+ * The time from the request to the completed hint, cached or not, is recorded in a latency histogram.
+ */
+public class HintSolver implements AutoCloseable {
+
+    private static final int GUESSES_PER_TASK = 512;
+    private static final int CACHE_MINUTES = 10;
+    private static final int CACHE_SIZE = 10_000;
+
+    private final Map<State, Hint> gameCache = ExpiringMap.builder()
+            .expiration(CACHE_MINUTES, TimeUnit.MINUTES)
+            .expirationPolicy(ExpirationPolicy.ACCESSED)
+            .maxSize(CACHE_SIZE)
+            .build();
+    private final Map<Long, Hint> openingCache = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final ForkJoinPool pool;
+    private final FeedbackMatrixCache feedbackMatrixCache;
+
+    /**
+     * @param parallelism         Maximum amount of threads used for hint calculations
+     * @param feedbackMatrixCache The feedback matrices
+     */
+    public HintSolver(final int parallelism, final FeedbackMatrixCache feedbackMatrixCache) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.feedbackMatrixCache = feedbackMatrixCache;
+    }
+
+    /**
+     * Calculates a hint for a running game
+     * The state of the game is read on the calling thread, the game must not change meanwhile.
+     *
+     * @param game The game, see {@link GameController#getGameCopy(long)}
+     *
+     * @return A callback with the hint
+     */
+    public CompletableFuture<Hint> hint(final WordleGame game) {
+        final long start = System.nanoTime();
+        final WordList wordList = game.getWordList();
+        final FeedbackMatrix matrix = game.getFeedbackMatrix() != null ? game.getFeedbackMatrix()
+                : this.feedbackMatrixCache.getLoaded(wordList);
+        final int tries = game.getTries();
+        final int[] guesses = new int[tries];
+        final int[] patterns = new int[tries];
+        for (int row = 0; row < tries; row++) {
+            guesses[row] = game.getGuess(row);
+            patterns[row] = game.getPattern(row);
+        }
+
+        final State state = new State(wordList.getVersion(), guesses, patterns);
+        final Hint cached = tries == 0 ? this.openingCache.get(wordList.getVersion()) : this.gameCache.get(state);
+        if (cached != null) {
+            this.latency.record(System.nanoTime() - start);
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            final Hint hint = this.solve(wordList, matrix, guesses, patterns);
+            if (tries == 0) {
+                this.openingCache.put(wordList.getVersion(), hint);
+            } else {
+                this.gameCache.put(state, hint);
+            }
+            this.latency.record(System.nanoTime() - start);
+            return hint;
+        }, this.pool);
+    }
+
+    /**
+     * Gets the time from a hint request to its completion
+     *
+     * @return The latency histogram
+     */
+    public LatencyHistogram getLatency() {
+        return this.latency;
+    }
+
+    /**
+     * Finds the best guess for a game state
+     *
+     * @param wordList The word list
+     * @param matrix   The feedback matrix of the word list, can be null
+     * @param guesses  The packed guesses made so far
+     * @param patterns The patterns of the guesses
+     *
+     * @return The hint
+     */
+    private Hint solve(final WordList wordList, final FeedbackMatrix matrix, final int[] guesses, final int[] patterns) {
+        final Context context = new Context(wordList, matrix);
+
+        // Collect the secrets that are still possible
+        final WordDictionary words = wordList.getWords();
+        final int[] guessIndices = new int[guesses.length];
+        for (int row = 0; row < guesses.length; row++) {
+            guessIndices[row] = matrix == null ? -1 : wordList.guessIndexOf(guesses[row]);
+        }
+        final int[] candidates = new int[words.size()];
+        int candidateCount = 0;
+        for (int secretIndex = 0; secretIndex < words.size(); secretIndex++) {
+            boolean possible = true;
+            for (int row = 0; row < guesses.length && possible; row++) {
+                final int guessIndex = guessIndices[row];
+                final int pattern = guessIndex >= 0 ? matrix.getPattern(secretIndex, guessIndex)
+                        : WordleGame.score(words.get(secretIndex), guesses[row]);
+                possible = pattern == patterns[row];
+            }
+            if (possible) {
+                candidates[candidateCount++] = secretIndex;
+            }
+        }
+        context.candidates = Arrays.copyOf(candidates, candidateCount);
+
+        final int bestGuess;
+        final double entropy;
+        if (candidateCount <= 2) {
+            // Guessing a candidate is at least as good as anything else
+            bestGuess = candidateCount == 0 ? -1 : context.candidates[0];
+            entropy = candidateCount == 2 ? 1 : 0;
+        } else {
+            context.prepare();
+            final Best best = new BestGuessTask(context, 0, wordList.getGuessCount()).invoke();
+            bestGuess = best.guessIndex;
+            entropy = (Math.log(candidateCount) - best.weightedLog / candidateCount) / Math.log(2);
+        }
+
+        return new Hint(
+                bestGuess < 0 ? null : WordDictionary.unpack(wordList.getGuess(bestGuess)),
+                candidateCount,
+                entropy
+        );
+    }
+
+    /**
+     * Finds the guess with the highest entropy over a set of candidates on the calling thread
+     * For callers that already run many of these in parallel, like the simulator.
+     *
+     * @param wordList   The word list
+     * @param matrix     The feedback matrix of the word list, can be null
+     * @param candidates The indices of the secret words that are still possible
+     * @param count      The amount of candidates
+     *
+     * @return The guess index or -1 if there are no candidates
+     */
+    public static int bestGuess(final WordList wordList, final FeedbackMatrix matrix, final int[] candidates, final int count) {
+        if (count <= 2) {
+            return count == 0 ? -1 : candidates[0];
+        }
+        final Context context = new Context(wordList, matrix);
+        context.candidates = Arrays.copyOf(candidates, count);
+        context.prepare();
+        return new BestGuessTask(context, 0, wordList.getGuessCount()).scan().guessIndex;
+    }
+
+    @Override
+    public void close() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * A calculated hint
+     */
+    public static final class Hint {
+
+        private final String word;
+        private final int candidates;
+        private final double entropy;
+
+        private Hint(final String word, final int candidates, final double entropy) {
+            this.word = word;
+            this.candidates = candidates;
+            this.entropy = entropy;
+        }
+
+        /**
+         * Gets the suggested guess
+         *
+         * @return The guess or null if no word matches the game
+         */
+        public String getWord() {
+            return this.word;
+        }
+
+        public int getCandidates() {
+            return this.candidates;
+        }
+
+        /**
+         * Gets the expected information of the suggested guess
+         *
+         * @return Expected information in bits
+         */
+        public double getEntropy() {
+            return this.entropy;
+        }
+
+    }
+
+    /**
+     * The key of a cached hint, everything the hint depends on
+     */
+    private static final class State {
+
+        private final long version;
+        private final int[] guesses;
+        private final int[] patterns;
+
+        private State(final long version, final int[] guesses, final int[] patterns) {
+            this.version = version;
+            this.guesses = guesses;
+            this.patterns = patterns;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof State other)) {
+                return false;
+            }
+            return this.version == other.version
+                    && Arrays.equals(this.guesses, other.guesses)
+                    && Arrays.equals(this.patterns, other.patterns);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Long.hashCode(this.version) + Arrays.hashCode(this.guesses)) + Arrays.hashCode(this.patterns);
+        }
+
+    }
+
+    /**
+     * Everything the tasks of one calculation share
+     */
+    private static final class Context {
+
+        private final WordList wordList;
+        private final FeedbackMatrix matrix;
+        private int[] candidates;
+        private boolean[] candidateMask;
+        private double[] entropyTable;
+
+        private Context(final WordList wordList, final FeedbackMatrix matrix) {
+            this.wordList = wordList;
+            this.matrix = matrix;
+        }
+
+        /**
+         * Builds the candidate mask and the entropy table for the candidates
+         */
+        private void prepare() {
+            this.candidateMask = new boolean[this.wordList.getWords().size()];
+            for (final int candidate : this.candidates) {
+                this.candidateMask[candidate] = true;
+            }
+            this.entropyTable = new double[this.candidates.length + 1];
+            for (int count = 1; count <= this.candidates.length; count++) {
+                this.entropyTable[count] = count * Math.log(count);
+            }
+        }
+
+    }
+
+    /**
+     * Best guess of a range
+     * A lower weighted log (sum of count * log(count)) means a higher entropy.
+     */
+    private static final class Best {
+
+        private final int guessIndex;
+        private final double weightedLog;
+        private final boolean candidate;
+
+        private Best(final int guessIndex, final double weightedLog, final boolean candidate) {
+            this.guessIndex = guessIndex;
+            this.weightedLog = weightedLog;
+            this.candidate = candidate;
+        }
+
+        private Best better(final Best other) {
+            if (this.weightedLog != other.weightedLog) {
+                return this.weightedLog < other.weightedLog ? this : other;
+            }
+            // Prefer guesses that could be the answer
+            if (this.candidate != other.candidate) {
+                return this.candidate ? this : other;
+            }
+            return this.guessIndex < other.guessIndex ? this : other;
+        }
+
+    }
+
+    /**
+     * Finds the best guess in a range of guess indices
+     */
+    private static final class BestGuessTask extends RecursiveTask<Best> {
+
+        private final Context context;
+        private final int from;
+        private final int to;
+
+        private BestGuessTask(final Context context, final int from, final int to) {
+            this.context = context;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Best compute() {
+            if (this.to - this.from > GUESSES_PER_TASK) {
+                final int mid = (this.from + this.to) >>> 1;
+                final BestGuessTask left = new BestGuessTask(this.context, this.from, mid);
+                left.fork();
+                final Best right = new BestGuessTask(this.context, mid, this.to).compute();
+                return right.better(left.join());
+            }
+            return this.scan();
+        }
+
+        /**
+         * Checks every guess of the range on the current thread
+         *
+         * @return The best guess of the range
+         */
+        private Best scan() {
+            final Context ctx = this.context;
+            final int[] counts = new int[WordleGame.patternCount(ctx.wordList.getLength())];
+            int bestIndex = -1;
+            double bestLog = Double.MAX_VALUE;
+            boolean bestCandidate = false;
+            for (int guessIndex = this.from; guessIndex < this.to; guessIndex++) {
+                final int guess = ctx.wordList.getGuess(guessIndex);
+                for (final int candidate : ctx.candidates) {
+                    counts[this.pattern(candidate, guessIndex, guess)]++;
+                }
+
+                // Only visit the patterns that actually occurred, this also resets the counts
+                double weightedLog = 0;
+                for (final int candidate : ctx.candidates) {
+                    final int pattern = this.pattern(candidate, guessIndex, guess);
+                    if (counts[pattern] != 0) {
+                        weightedLog += ctx.entropyTable[counts[pattern]];
+                        counts[pattern] = 0;
+                    }
+                }
+                final boolean candidate = guessIndex < ctx.candidateMask.length && ctx.candidateMask[guessIndex];
+                if (weightedLog < bestLog || weightedLog == bestLog && candidate && !bestCandidate) {
+                    bestIndex = guessIndex;
+                    bestLog = weightedLog;
+                    bestCandidate = candidate;
+                }
+            }
+            return new Best(bestIndex, bestLog, bestCandidate);
+        }
+
+        private int pattern(final int candidate, final int guessIndex, final int guess) {
+            return this.context.matrix != null ? this.context.matrix.getPattern(candidate, guessIndex)
+                    : WordleGame.score(this.context.wordList.getWords().get(candidate), guess);
+        }
+
+    }
+
+}
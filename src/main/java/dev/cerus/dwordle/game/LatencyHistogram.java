@@ -0,0 +1,112 @@
+package dev.cerus.dwordle.game;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations
+ * <p>
+ * Values are counted in log-linear buckets: every power of two is split into 8 buckets, so a
+ * reported percentile is at most 12.5% above the real value. Recording is a single atomic
+ * increment and never allocates, any amount of threads can record at the same time.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    private static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long upperBoundOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * Records a duration
+     *
+     * @param nanos The duration in nanoseconds, negative values are counted as 0
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        this.buckets.incrementAndGet(bucketOf(value));
+        this.max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Gets the amount of recorded durations
+     *
+     * @return The amount of recorded durations
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += this.buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Gets a percentile of the recorded durations
+     * Recordings that happen while this is running might or might not be included.
+     *
+     * @param percentile The percentile (0 - 100)
+     *
+     * @return The duration in nanoseconds or 0 if nothing was recorded
+     */
+    public long getPercentile(final double percentile) {
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = this.buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        final long target = Math.max(1, (long) Math.ceil(total * Math.min(100, percentile) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Formats the median, the 99th percentile and the maximum in milliseconds
+     *
+     * @return Something like "p50 1.20ms, p99 8.40ms, max 12.00ms (1234 samples)"
+     */
+    public String summary() {
+        return String.format("p50 %.2fms, p99 %.2fms, max %.2fms (%d samples)",
+                this.getPercentile(50) / (double) TimeUnit.MILLISECONDS.toNanos(1),
+                this.getPercentile(99) / (double) TimeUnit.MILLISECONDS.toNanos(1),
+                this.getMax() / (double) TimeUnit.MILLISECONDS.toNanos(1),
+                this.getCount());
+    }
+
+}
@@ -0,0 +1,129 @@
+package dev.cerus.dwordle.game;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of message ids that can be read without locking
+ * <p>
+ * Every message the bot can see goes through the reply listener, almost none of them belong to a
+ * game. This set lets the listener drop them with a few array reads. Writers are serialized by a
+ * lock, readers never block: the table is an open addressing array of primitive longs, and a
+ * resize builds a new table before publishing it. A reader can briefly see a stale table, so a
+ * hit has to be confirmed by the session itself.
+ */
+final class MessageIdIndex {
+
+    private static final long EMPTY = 0;
+    private static final long REMOVED = -1;
+    private static final int MIN_CAPACITY = 64;
+
+    private volatile AtomicLongArray table = new AtomicLongArray(MIN_CAPACITY);
+    // Only accessed while holding the monitor of this index
+    private int size;
+    private int used;
+
+    private static int hash(final long id) {
+        // Discord ids are snowflakes, the lower bits alone are not well distributed
+        final long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Is this id in the set?
+     *
+     * @param id The message id
+     *
+     * @return True if the id was added and not removed
+     */
+    boolean contains(final long id) {
+        final AtomicLongArray table = this.table;
+        final int mask = table.length() - 1;
+        int slot = hash(id) & mask;
+        long current;
+        while ((current = table.get(slot)) != EMPTY) {
+            if (current == id) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Adds an id
+     *
+     * @param id The message id, has to be positive
+     */
+    synchronized void add(final long id) {
+        if (this.contains(id)) {
+            return;
+        }
+        if ((this.used + 1) * 4L > this.table.length() * 3L) {
+            this.rehash();
+        }
+        final AtomicLongArray table = this.table;
+        final int mask = table.length() - 1;
+        int slot = hash(id) & mask;
+        long current;
+        while ((current = table.get(slot)) != EMPTY && current != REMOVED) {
+            slot = (slot + 1) & mask;
+        }
+        if (current == EMPTY) {
+            this.used++;
+        }
+        this.size++;
+        table.set(slot, id);
+    }
+
+    /**
+     * Removes an id
+     *
+     * @param id The message id
+     */
+    synchronized void remove(final long id) {
+        final AtomicLongArray table = this.table;
+        final int mask = table.length() - 1;
+        int slot = hash(id) & mask;
+        long current;
+        while ((current = table.get(slot)) != EMPTY) {
+            if (current == id) {
+                // Leave a marker, otherwise the probe chains that run through this slot would break
+                table.set(slot, REMOVED);
+                this.size--;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Builds a new table without the removed markers, grows it if it is more than half full
+     */
+    private void rehash() {
+        final AtomicLongArray old = this.table;
+        int capacity = MIN_CAPACITY;
+        while ((this.size + 1) * 2L > capacity) {
+            capacity <<= 1;
+        }
+        final AtomicLongArray table = new AtomicLongArray(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < old.length(); i++) {
+            final long id = old.get(i);
+            if (id == EMPTY || id == REMOVED) {
+                continue;
+            }
+            int slot = hash(id) & mask;
+            while (table.get(slot) != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table.set(slot, id);
+        }
+        this.used = this.size;
+        this.table = table;
+    }
+
+    synchronized int size() {
+        return this.size;
+    }
+
+}
@@ -0,0 +1,142 @@
+package dev.cerus.dwordle.game;
+
+import dev.cerus.dwordle.Launcher;
+import dev.cerus.dwordle.stats.StatsService;
+import dev.cerus.dwordle.word.SeenWords;
+import dev.cerus.dwordle.word.WordList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import net.jodah.expiringmap.ExpirationPolicy;
+import net.jodah.expiringmap.ExpiringMap;
+
+/**
+ * Selects secret words that the user has not played yet
+ * <p>
+ * Every user has a {@link SeenWords} set per word list which is persisted by the stats service.
+ * Only the sets of recently active users are kept in memory. Random numbers come from
+ * {@link ThreadLocalRandom}, so concurrent game starts never contend on a shared random.
+ * <p>
+ * Sets are loaded by {@link #load(long, WordList)} before the lock of the user is taken, so a slow
+ * database read never blocks other users. Changed sets are written in batches every few seconds
+ * instead of on every game start.
+ */
+public class SecretSelector implements AutoCloseable {
+
+    private static final int CACHE_MINUTES = 30;
+    private static final int CACHE_SIZE = 100_000;
+    private static final int FLUSH_SECONDS = 30;
+
+    private final Map<String, Map<Long, SeenWords>> cacheMap = new ConcurrentHashMap<>();
+    // Sets that changed since they were written last, they also stay readable after being evicted from the cache
+    private final Map<String, Map<Long, SeenWords>> dirtyMap = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flushExecutor;
+    private final StatsService statsService;
+
+    public SecretSelector(final StatsService statsService) {
+        this.statsService = statsService;
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "SeenWordsFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flushExecutor.scheduleWithFixedDelay(this::flush, FLUSH_SECONDS, FLUSH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Loads the set of a user, reads the database if the set is not cached
+     * Must not be called while holding a session lock.
+     *
+     * @param userId   The user
+     * @param wordList The word list
+     *
+     * @return The set
+     */
+    public SeenWords load(final long userId, final WordList wordList) {
+        final Map<Long, SeenWords> cache = this.cacheMap.computeIfAbsent(wordList.getKey(), name -> ExpiringMap.builder()
+                .expiration(CACHE_MINUTES, TimeUnit.MINUTES)
+                .expirationPolicy(ExpirationPolicy.ACCESSED)
+                .maxSize(CACHE_SIZE)
+                .build());
+        final SeenWords cached = cache.get(userId);
+        if (cached != null && cached.matches(wordList)) {
+            return cached;
+        }
+
+        SeenWords seen = this.dirtyMap.getOrDefault(wordList.getKey(), Map.of()).get(userId);
+        if (seen == null || !seen.matches(wordList)) {
+            final byte[] data = this.statsService.getSeenWords(userId, wordList.getKey());
+            seen = data == null ? null : SeenWords.deserialize(data);
+            // Indices of other list versions are meaningless
+            if (seen == null || !seen.matches(wordList)) {
+                seen = new SeenWords(wordList.getVersion(), wordList.getWords().size());
+            }
+        }
+
+        // Another thread might have loaded the set in the meantime, only one of them may be used
+        final SeenWords current = cached == null ? cache.putIfAbsent(userId, seen)
+                : cache.replace(userId, cached, seen) ? null : cache.get(userId);
+        return current != null && current.matches(wordList) ? current : seen;
+    }
+
+    /**
+     * Selects a secret word the user has not seen yet and remembers it
+     * Once the user has seen all words of the list they start over.
+     *
+     * @param userId   The user
+     * @param wordList The word list
+     * @param seen     The set of the user from {@link #load(long, WordList)}
+     *
+     * @return The secret word
+     */
+    public String select(final long userId, final WordList wordList, final SeenWords seen) {
+        final int index;
+        synchronized (seen) {
+            index = seen.pickUnseen(ThreadLocalRandom.current());
+        }
+        this.dirtyMap.computeIfAbsent(wordList.getKey(), name -> new ConcurrentHashMap<>()).put(userId, seen);
+        return wordList.getWords().getWord(index);
+    }
+
+    /**
+     * Writes the changed sets in one batch on the stats executor
+     */
+    private void flush() {
+        try {
+            this.statsService.exec(this::write);
+        } catch (final RuntimeException e) {
+            // Shutting down, close() writes the rest
+        }
+    }
+
+    private void write() {
+        this.dirtyMap.forEach((wordList, dirty) -> dirty.forEach((userId, seen) -> {
+            // Removed before serializing, a pick that happens meanwhile marks the set again
+            dirty.remove(userId, seen);
+            final byte[] data;
+            synchronized (seen) {
+                data = seen.serialize();
+            }
+            try {
+                this.statsService.setSeenWords(userId, wordList, data);
+            } catch (final RuntimeException e) {
+                dirty.putIfAbsent(userId, seen);
+                e.printStackTrace();
+                Launcher.log("ERROR: Failed to save seen words of user " + userId);
+            }
+        }));
+    }
+
+    /**
+     * Stops the periodic flush and writes the remaining changes on the calling thread
+     */
+    @Override
+    public void close() {
+        this.flushExecutor.shutdown();
+        this.write();
+    }
+
+}
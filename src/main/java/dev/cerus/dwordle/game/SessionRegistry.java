@@ -0,0 +1,238 @@
+package dev.cerus.dwordle.game;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent map from user ids to sessions
+ * <p>
+ * Keys are split across a fixed amount of stripes by their hash. Every stripe has its own lock
+ * and its own open addressing table of primitive longs, so there is no global lock and no boxing.
+ * All methods lock the stripe of the key themselves. To run several operations on the same user
+ * atomically, hold {@link #lockFor(long)} around them: the locks are reentrant and every operation
+ * on a user goes through the same lock, which serializes everything that happens to one session.
+ *
+ * @param <V> The session type
+ */
+public final class SessionRegistry<V> {
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int stripeShift;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param stripes The amount of stripes, rounded up to a power of two
+     */
+    public SessionRegistry(final int stripes) {
+        final int count = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.stripeMask = count - 1;
+        // Stripes use the upper bits of the hash, the tables of the stripes the lower ones
+        this.stripeShift = Integer.SIZE - Integer.numberOfTrailingZeros(count);
+    }
+
+    private static int hash(final long key) {
+        // Discord ids are snowflakes, the lower bits alone are not well distributed
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private Stripe stripe(final long key) {
+        return this.stripes[(hash(key) >>> this.stripeShift) & this.stripeMask];
+    }
+
+    /**
+     * Gets the lock that guards a key
+     *
+     * @param key The key
+     *
+     * @return The lock
+     */
+    public ReentrantLock lockFor(final long key) {
+        return this.stripe(key).lock;
+    }
+
+    /**
+     * Gets the session of a key
+     *
+     * @param key The key
+     *
+     * @return The session or null
+     */
+    public V get(final long key) {
+        final Stripe stripe = this.stripe(key);
+        stripe.lock.lock();
+        try {
+            return this.cast(stripe.get(key));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public boolean containsKey(final long key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Stores a session if the key has none
+     *
+     * @param key   The key
+     * @param value The session
+     *
+     * @return True if the session was stored
+     */
+    public boolean putIfAbsent(final long key, final V value) {
+        final Stripe stripe = this.stripe(key);
+        stripe.lock.lock();
+        try {
+            if (stripe.get(key) != null) {
+                return false;
+            }
+            stripe.put(key, value);
+            this.size.incrementAndGet();
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the session of a key
+     *
+     * @param key The key
+     *
+     * @return The removed session or null
+     */
+    public V remove(final long key) {
+        final Stripe stripe = this.stripe(key);
+        stripe.lock.lock();
+        try {
+            final Object removed = stripe.remove(key);
+            if (removed != null) {
+                this.size.decrementAndGet();
+            }
+            return this.cast(removed);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the session of a key if it is the specified session
+     *
+     * @param key   The key
+     * @param value The expected session
+     *
+     * @return True if the session was removed
+     */
+    public boolean remove(final long key, final V value) {
+        final Stripe stripe = this.stripe(key);
+        stripe.lock.lock();
+        try {
+            if (stripe.get(key) != value) {
+                return false;
+            }
+            stripe.remove(key);
+            this.size.decrementAndGet();
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public int size() {
+        return this.size.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private V cast(final Object o) {
+        return (V) o;
+    }
+
+    /**
+     * Linear probing table, only accessed while holding the lock
+     * A null value marks an empty slot, so every key including 0 is allowed.
+     */
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private long[] keys = new long[16];
+        private Object[] values = new Object[16];
+        private int size;
+
+        private int slot(final long key) {
+            return hash(key) & (this.keys.length - 1);
+        }
+
+        private Object get(final long key) {
+            final int mask = this.keys.length - 1;
+            for (int i = this.slot(key); this.values[i] != null; i = (i + 1) & mask) {
+                if (this.keys[i] == key) {
+                    return this.values[i];
+                }
+            }
+            return null;
+        }
+
+        private void put(final long key, final Object value) {
+            if ((this.size + 1) * 4 > this.keys.length * 3) {
+                this.resize(this.keys.length * 2);
+            }
+            final int mask = this.keys.length - 1;
+            int i = this.slot(key);
+            while (this.values[i] != null && this.keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (this.values[i] == null) {
+                this.size++;
+            }
+            this.keys[i] = key;
+            this.values[i] = value;
+        }
+
+        private Object remove(final long key) {
+            final int mask = this.keys.length - 1;
+            int i = this.slot(key);
+            while (this.values[i] != null && this.keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            final Object removed = this.values[i];
+            if (removed == null) {
+                return null;
+            }
+
+            // Shift the following entries back so no probe chain is interrupted
+            int gap = i;
+            for (int j = (gap + 1) & mask; this.values[j] != null; j = (j + 1) & mask) {
+                final int home = this.slot(this.keys[j]);
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    this.keys[gap] = this.keys[j];
+                    this.values[gap] = this.values[j];
+                    gap = j;
+                }
+            }
+            this.values[gap] = null;
+            this.size--;
+            return removed;
+        }
+
+        private void resize(final int capacity) {
+            final long[] oldKeys = this.keys;
+            final Object[] oldValues = this.values;
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    this.put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,263 @@
+package dev.cerus.dwordle.game;
+
+import dev.cerus.dwordle.stats.StatsService;
+import dev.cerus.dwordle.word.WordServiceController;
+import java.util.ArrayList;
+import java.util.List;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.sharding.ShardManager;
+
+/**
+ * One {@link GameController} per gateway shard
+ * <p>
+ * A game lives in the controller of the shard that delivered the command that started it, and all
+ * replies to its message arrive on the same shard (direct messages always arrive on shard 0).
+ * Shards therefore never share sessions, locks or timeout wheels. Only the "one game per user"
+ * rule and the counters look at all shards.
+ */
+public class ShardedGameController implements AutoCloseable {
+
+    private final GameController[] controllers;
+    private final SecretSelector secretSelector;
+
+    public ShardedGameController(final int shards,
+                                 final WordServiceController wordServiceController,
+                                 final StatsService statsService,
+                                 final FeedbackMatrixCache feedbackMatrixCache,
+                                 final GameJournal journal,
+                                 final boolean imageBoards) {
+        this.controllers = new GameController[shards];
+        this.secretSelector = new SecretSelector(statsService);
+        for (int i = 0; i < shards; i++) {
+            this.controllers[i] = new GameController(wordServiceController, statsService, feedbackMatrixCache,
+                    this.secretSelector, journal, imageBoards);
+        }
+    }
+
+    /**
+     * Gets the controller of a shard
+     *
+     * @param shardId The shard id
+     *
+     * @return The controller
+     */
+    public GameController getShard(final int shardId) {
+        return this.controllers[shardId];
+    }
+
+    /**
+     * Gets the controller of the shard a JDA instance belongs to
+     *
+     * @param jda The JDA instance of an event
+     *
+     * @return The controller
+     */
+    public GameController of(final JDA jda) {
+        return this.controllers[jda.getShardInfo().getShardId()];
+    }
+
+    /**
+     * Finds the controller that holds the game of a user
+     *
+     * @param userId The user
+     *
+     * @return The controller or null if the user has no running game
+     */
+    public GameController find(final long userId) {
+        for (final GameController controller : this.controllers) {
+            if (controller.hasGame(userId)) {
+                return controller;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Starts a new game for the user on the shard of the command
+     * Two concurrent starts on different shards are not detected, there is no lock across shards.
+     *
+     * @param jda      The JDA instance of the command event
+     * @param userId   The user
+     * @param channel  The channel where the game is going to be played
+     * @param wordList The name of the word list
+     * @param length   The word length
+     * @param maxTries The amount of guesses
+     *
+     * @return False if the user already has a running game
+     */
+    public boolean startGame(final JDA jda, final long userId, final MessageChannel channel,
+                             final String wordList, final int length, final int maxTries) {
+        if (this.hasGame(userId)) {
+            return false;
+        }
+        return this.of(jda).startGame(userId, channel, wordList, length, maxTries);
+    }
+
+    public void endGame(final long userId) {
+        final GameController controller = this.find(userId);
+        if (controller != null) {
+            controller.endGame(userId);
+        }
+    }
+
+    public boolean hasGame(final long userId) {
+        return this.find(userId) != null;
+    }
+
+    /**
+     * Get the running game of a user
+     *
+     * @param userId The user
+     *
+     * @return A game or null
+     */
+    public WordleGame getGame(final long userId) {
+        for (final GameController controller : this.controllers) {
+            final WordleGame game = controller.getGame(userId);
+            if (game != null) {
+                return game;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets a copy of the running game of a user
+     *
+     * @param userId The user
+     *
+     * @return A copy of the game or null
+     *
+     * @see GameController#getGameCopy(long)
+     */
+    public WordleGame getGameCopy(final long userId) {
+        for (final GameController controller : this.controllers) {
+            final WordleGame game = controller.getGameCopy(userId);
+            if (game != null) {
+                return game;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Restores the games of the journal on the shards of their channels
+     *
+     * @param entries      The games from {@link GameJournal#open()}
+     * @param shardManager The shard manager
+     *
+     * @return The amount of restored games
+     *
+     * @see GameController#restore(List, JDA)
+     */
+    public int restore(final List<GameJournal.Entry> entries, final ShardManager shardManager) {
+        final List<List<GameJournal.Entry>> partitions = new ArrayList<>();
+        for (int i = 0; i < this.controllers.length; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (final GameJournal.Entry entry : entries) {
+            // Everything that is not a guild channel is a direct message channel, those belong to shard 0
+            final TextChannel channel = shardManager.getTextChannelById(entry.getChannelId());
+            final int shardId = channel == null ? 0 : channel.getJDA().getShardInfo().getShardId();
+            partitions.get(shardId < this.controllers.length ? shardId : 0).add(entry);
+        }
+
+        int restored = 0;
+        for (int i = 0; i < this.controllers.length; i++) {
+            final JDA shard = shardManager.getShardById(i);
+            restored += shard == null ? 0 : this.controllers[i].restore(partitions.get(i), shard);
+        }
+        return restored;
+    }
+
+    public int getRunningGames() {
+        int games = 0;
+        for (final GameController controller : this.controllers) {
+            games += controller.getRunningGames();
+        }
+        return games;
+    }
+
+    /**
+     * Gets the amount of message edits that wait for their turn on all shards
+     *
+     * @return The amount of waiting edits
+     *
+     * @see dev.cerus.dwordle.bot.util.EditScheduler#getDepth()
+     */
+    public int getEditDepth() {
+        int depth = 0;
+        for (final GameController controller : this.controllers) {
+            depth += controller.getEditScheduler().getDepth();
+        }
+        return depth;
+    }
+
+    /**
+     * Gets the amount of message edits that were replaced by newer ones on all shards
+     *
+     * @return The amount of dropped edits
+     *
+     * @see dev.cerus.dwordle.bot.util.EditScheduler#getDropped()
+     */
+    public long getDroppedEdits() {
+        long dropped = 0;
+        for (final GameController controller : this.controllers) {
+            dropped += controller.getEditScheduler().getDropped();
+        }
+        return dropped;
+    }
+
+    public long getSentEdits() {
+        long sent = 0;
+        for (final GameController controller : this.controllers) {
+            sent += controller.getEditScheduler().getSent();
+        }
+        return sent;
+    }
+
+    /**
+     * Gets the amount of messages that were deleted on all shards
+     *
+     * @return The amount of deleted messages
+     *
+     * @see dev.cerus.dwordle.bot.util.DeletionBatcher#getMessages()
+     */
+    public long getDeletedMessages() {
+        long messages = 0;
+        for (final GameController controller : this.controllers) {
+            messages += controller.getDeletionBatcher().getMessages();
+        }
+        return messages;
+    }
+
+    /**
+     * Gets the amount of requests that were sent to delete messages on all shards
+     *
+     * @return The amount of deletion requests
+     *
+     * @see dev.cerus.dwordle.bot.util.DeletionBatcher#getRequests()
+     */
+    public long getDeletionRequests() {
+        long requests = 0;
+        for (final GameController controller : this.controllers) {
+            requests += controller.getDeletionBatcher().getRequests();
+        }
+        return requests;
+    }
+
+    public int getShardCount() {
+        return this.controllers.length;
+    }
+
+    @Override
+    public void close() {
+        for (final GameController controller : this.controllers) {
+            controller.close();
+        }
+        this.secretSelector.close();
+    }
+
+}
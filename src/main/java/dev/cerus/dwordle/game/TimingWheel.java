@@ -0,0 +1,233 @@
+package dev.cerus.dwordle.game;
+
+import dev.cerus.dwordle.Launcher;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timing wheel for a large amount of timeouts
+ * <p>
+ * Every timeout is a node in a doubly linked list of the slot its deadline falls into, so
+ * scheduling, rescheduling and cancelling are O(1) no matter how many timeouts are pending.
+ * A single thread advances the wheel once per tick and only looks at the nodes of the current
+ * slot. Expired timeouts are not handled on that thread, they are handed to an executor in
+ * batches.
+ */
+public final class TimingWheel implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 256;
+
+    private final Timeout[] slots;
+    private final int mask;
+    private final long tickMillis;
+    private final long startNanos;
+    private final Executor executor;
+    private final Handler handler;
+    private final ScheduledExecutorService ticker;
+    private long currentTick;
+
+    /**
+     * @param tickMillis The resolution of the wheel
+     * @param slots      The amount of slots, rounded up to a power of two. Timeouts that are
+     *                   further away than one rotation stay in their slot for multiple rotations.
+     * @param executor   The executor that runs the handler
+     * @param handler    Receives the expired timeouts
+     */
+    public TimingWheel(final long tickMillis, final int slots, final Executor executor, final Handler handler) {
+        final int count = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.slots = new Timeout[count];
+        this.mask = count - 1;
+        this.tickMillis = tickMillis;
+        this.startNanos = System.nanoTime();
+        this.executor = executor;
+        this.handler = handler;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "TimingWheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private long tickNow() {
+        return (System.nanoTime() - this.startNanos) / TimeUnit.MILLISECONDS.toNanos(this.tickMillis);
+    }
+
+    /**
+     * Schedules a new timeout
+     *
+     * @param key   The key that is passed to the handler
+     * @param type  The type that is passed to the handler
+     * @param delay The delay
+     * @param unit  The unit of the delay
+     *
+     * @return The timeout
+     */
+    public Timeout schedule(final long key, final int type, final long delay, final TimeUnit unit) {
+        final Timeout timeout = new Timeout(key, type);
+        this.reschedule(timeout, delay, unit);
+        return timeout;
+    }
+
+    /**
+     * Moves a timeout to a new deadline
+     * Timeouts that already expired or were cancelled are scheduled again.
+     *
+     * @param timeout The timeout
+     * @param delay   The delay from now
+     * @param unit    The unit of the delay
+     */
+    public synchronized void reschedule(final Timeout timeout, final long delay, final TimeUnit unit) {
+        this.unlink(timeout);
+        // Round up, a timeout must never fire early
+        final long tickNanos = TimeUnit.MILLISECONDS.toNanos(this.tickMillis);
+        final long deadlineNanos = System.nanoTime() - this.startNanos + unit.toNanos(delay);
+        timeout.deadline = Math.max(this.currentTick + 1, (deadlineNanos + tickNanos - 1) / tickNanos);
+        timeout.state = Timeout.PENDING;
+        this.link(timeout);
+    }
+
+    /**
+     * Cancels a timeout
+     *
+     * @param timeout The timeout
+     */
+    public synchronized void cancel(final Timeout timeout) {
+        this.unlink(timeout);
+        timeout.state = Timeout.CANCELLED;
+    }
+
+    private void link(final Timeout timeout) {
+        final int slot = (int) (timeout.deadline & this.mask);
+        timeout.prev = null;
+        timeout.next = this.slots[slot];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        this.slots[slot] = timeout;
+    }
+
+    private void unlink(final Timeout timeout) {
+        if (timeout.state != Timeout.PENDING) {
+            return;
+        }
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            this.slots[(int) (timeout.deadline & this.mask)] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+    }
+
+    /**
+     * Processes all slots up to the current tick
+     */
+    private void advance() {
+        Timeout[] batch = new Timeout[16];
+        int size = 0;
+        synchronized (this) {
+            final long target = this.tickNow();
+            while (this.currentTick < target) {
+                this.currentTick++;
+                final int slot = (int) (this.currentTick & this.mask);
+                Timeout timeout = this.slots[slot];
+                while (timeout != null) {
+                    final Timeout next = timeout.next;
+                    if (timeout.deadline <= this.currentTick) {
+                        this.unlink(timeout);
+                        timeout.state = Timeout.EXPIRED;
+                        if (size == batch.length) {
+                            batch = Arrays.copyOf(batch, size * 2);
+                        }
+                        batch[size++] = timeout;
+                    }
+                    timeout = next;
+                }
+            }
+        }
+
+        for (int from = 0; from < size; from += BATCH_SIZE) {
+            final Timeout[] chunk = Arrays.copyOfRange(batch, from, Math.min(size, from + BATCH_SIZE));
+            this.executor.execute(() -> {
+                try {
+                    this.handler.handle(chunk);
+                } catch (final RuntimeException e) {
+                    e.printStackTrace();
+                    Launcher.log("ERROR: Failed to handle timeouts");
+                }
+            });
+        }
+    }
+
+    /**
+     * Checks if a timeout expired and was not scheduled again since then
+     *
+     * @param timeout The timeout
+     *
+     * @return True if the timeout is expired
+     */
+    public synchronized boolean isExpired(final Timeout timeout) {
+        return timeout.state == Timeout.EXPIRED;
+    }
+
+    @Override
+    public void close() {
+        this.ticker.shutdown();
+    }
+
+    /**
+     * Receives expired timeouts
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        /**
+         * Handles a batch of expired timeouts
+         * A timeout might have been scheduled again before this is called, check
+         * {@link #isExpired(Timeout)} while holding whatever guards the timeout.
+         *
+         * @param timeouts The timeouts
+         */
+        void handle(Timeout[] timeouts);
+
+    }
+
+    /**
+     * A timeout, only modified by the wheel while holding its lock
+     */
+    public static final class Timeout {
+
+        private static final byte PENDING = 0;
+        private static final byte EXPIRED = 1;
+        private static final byte CANCELLED = 2;
+
+        private final long key;
+        private final int type;
+        private long deadline;
+        private byte state = CANCELLED;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(final long key, final int type) {
+            this.key = key;
+            this.type = type;
+        }
+
+        public long getKey() {
+            return this.key;
+        }
+
+        public int getType() {
+            return this.type;
+        }
+
+    }
+
+}
@@ -0,0 +1,188 @@
+package dev.cerus.dwordle.game;
+
+import dev.cerus.dwordle.Launcher;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs the work of every user in order on a small, fixed pool
+ * <p>
+ * Every user with pending work has a mailbox. A mailbox is handed to the pool when its first task
+ * arrives and runs its tasks one after another, so tasks of the same user never overlap and keep
+ * their order while different users are processed in parallel. After a few tasks a busy mailbox
+ * goes back to the end of the pool queue to let other users through. Empty mailboxes are removed.
+ */
+public final class UserMailboxes implements AutoCloseable {
+
+    private static final int CAPACITY = 32;
+    private static final int BATCH_SIZE = 8;
+
+    private final SessionRegistry<Mailbox> mailboxes = new SessionRegistry<>(64);
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final ExecutorService executor;
+
+    /**
+     * @param threads The amount of worker threads
+     */
+    public UserMailboxes(final int threads) {
+        final AtomicInteger threadIds = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "Mailbox-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a task for a user
+     * Tasks are dropped if the user already has too many pending tasks.
+     *
+     * @param userId The user
+     * @param task   The task
+     *
+     * @return False if the task was dropped
+     */
+    public boolean submit(final long userId, final Runnable task) {
+        final ReentrantLock lock = this.mailboxes.lockFor(userId);
+        final Mailbox mailbox;
+        final boolean schedule;
+        lock.lock();
+        try {
+            Mailbox existing = this.mailboxes.get(userId);
+            if (existing == null) {
+                existing = new Mailbox(userId);
+                this.mailboxes.putIfAbsent(userId, existing);
+            }
+            if (existing.tasks.size() >= CAPACITY) {
+                this.rejected.incrementAndGet();
+                return false;
+            }
+            mailbox = existing;
+            mailbox.tasks.add(new Task(task, System.nanoTime()));
+            schedule = !mailbox.scheduled;
+            mailbox.scheduled = true;
+        } finally {
+            lock.unlock();
+        }
+
+        this.depth.incrementAndGet();
+        if (schedule) {
+            this.execute(mailbox);
+        }
+        return true;
+    }
+
+    private void execute(final Mailbox mailbox) {
+        try {
+            this.executor.execute(mailbox);
+        } catch (final RejectedExecutionException ignored) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Gets the amount of queued tasks of all users
+     *
+     * @return The amount of queued tasks
+     */
+    public int getDepth() {
+        return this.depth.get();
+    }
+
+    /**
+     * Gets the amount of users with pending tasks
+     *
+     * @return The amount of mailboxes
+     */
+    public int getActiveMailboxes() {
+        return this.mailboxes.size();
+    }
+
+    /**
+     * Gets the amount of tasks that were dropped because a mailbox was full
+     *
+     * @return The amount of dropped tasks
+     */
+    public long getRejected() {
+        return this.rejected.get();
+    }
+
+    /**
+     * Gets the time from submitting a task until it finished
+     *
+     * @return The latency histogram
+     */
+    public LatencyHistogram getLatency() {
+        return this.latency;
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdown();
+    }
+
+    private static final class Task {
+
+        private final Runnable runnable;
+        private final long submitted;
+
+        private Task(final Runnable runnable, final long submitted) {
+            this.runnable = runnable;
+            this.submitted = submitted;
+        }
+
+    }
+
+    /**
+     * Tasks of a single user, only accessed while holding the registry lock of the user
+     */
+    private final class Mailbox implements Runnable {
+
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>(4);
+        private final long userId;
+        private boolean scheduled;
+
+        private Mailbox(final long userId) {
+            this.userId = userId;
+        }
+
+        @Override
+        public void run() {
+            final ReentrantLock lock = UserMailboxes.this.mailboxes.lockFor(this.userId);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                final Task task;
+                lock.lock();
+                try {
+                    task = this.tasks.poll();
+                    if (task == null) {
+                        this.scheduled = false;
+                        UserMailboxes.this.mailboxes.remove(this.userId, this);
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+
+                UserMailboxes.this.depth.decrementAndGet();
+                try {
+                    task.runnable.run();
+                } catch (final RuntimeException e) {
+                    e.printStackTrace();
+                    Launcher.log("ERROR: Failed to process task of user " + this.userId);
+                }
+                UserMailboxes.this.latency.record(System.nanoTime() - task.submitted);
+            }
+            // Still busy, give the other users a turn
+            UserMailboxes.this.execute(this);
+        }
+
+    }
+
+}
@@ -1,12 +1,15 @@
 package dev.cerus.dwordle.game;
 
-import static dev.cerus.dwordle.Const.INPUT_AMOUNT;
-import static dev.cerus.dwordle.Const.WORD_LENGTH;
-import java.util.HashSet;
-import java.util.Set;
+import dev.cerus.dwordle.Const;
+import dev.cerus.dwordle.word.WordDictionary;
+import dev.cerus.dwordle.word.WordList;
 
 /**
  * Game logic
+ * <p>
+ * The state is kept compact because there can be a lot of running games: the patterns of all
+ * rows are packed into one long (one lane per row, see {@link #laneBits(int)}) and guesses and
+ * the secret word are stored as packed ints (see {@link WordDictionary#pack(CharSequence)}).
  */
 public class WordleGame {
 
@@ -14,22 +17,91 @@ public class WordleGame {
     public static final int YELLOW = 1;
     public static final int GREEN = 2;
 
-    private final int[][] grid = new int[INPUT_AMOUNT][WORD_LENGTH];
-    private final String[] inputs = new String[INPUT_AMOUNT];
-    private final String wordList;
-    private final String secretWord;
+    private static final int[] POW3 = {1, 3, 9, 27, 81, 243, 729};
+
+    private final WordList wordList;
+    private final FeedbackMatrix feedbackMatrix;
+    private final int[] guesses;
+    private final int packedSecret;
+    private final int secretIndex;
+    private long patterns;
     private int index;
     private boolean done;
 
-    public WordleGame(String wordList, final String secretWord) {
+    public WordleGame(final WordList wordList, final String secretWord) {
+        this(wordList, secretWord, Const.INPUT_AMOUNT, null);
+    }
+
+    /**
+     * @param wordList       The word list, its word length is the length of this game
+     * @param secretWord     The secret word
+     * @param maxTries       The amount of guesses the user has, at most {@link #maxTries(int)}
+     * @param feedbackMatrix Precomputed patterns for the word list, can be null
+     */
+    public WordleGame(final WordList wordList, final String secretWord, final int maxTries, final FeedbackMatrix feedbackMatrix) {
+        this(wordList, WordDictionary.pack(secretWord), maxTries, feedbackMatrix);
+    }
+
+    /**
+     * @param wordList       The word list, its word length is the length of this game
+     * @param packedSecret   The packed secret word
+     * @param maxTries       The amount of guesses the user has, at most {@link #maxTries(int)}
+     * @param feedbackMatrix Precomputed patterns for the word list, can be null
+     */
+    public WordleGame(final WordList wordList, final int packedSecret, final int maxTries, final FeedbackMatrix feedbackMatrix) {
+        if (maxTries < 1 || maxTries > maxTries(wordList.getLength())) {
+            throw new IllegalArgumentException("Unsupported amount of tries");
+        }
         this.wordList = wordList;
-        this.secretWord = secretWord.toLowerCase();
+        this.guesses = new int[maxTries];
+        this.packedSecret = packedSecret;
+        this.secretIndex = wordList.getWords().indexOf(this.packedSecret);
+        this.feedbackMatrix = feedbackMatrix != null && feedbackMatrix.matches(wordList) ? feedbackMatrix : null;
         this.index = 0;
-        for (int i = 0; i < WORD_LENGTH; i++) {
-            for (int j = 0; j < WORD_LENGTH; j++) {
-                this.grid[i][j] = GRAY;
-            }
-        }
+    }
+
+    private WordleGame(final WordleGame game) {
+        this.wordList = game.wordList;
+        this.guesses = game.guesses.clone();
+        this.packedSecret = game.packedSecret;
+        this.secretIndex = game.secretIndex;
+        this.feedbackMatrix = game.feedbackMatrix;
+        this.patterns = game.patterns;
+        this.index = game.index;
+        this.done = game.done;
+    }
+
+    /**
+     * Copies the current state of this game
+     * Games are not thread safe, a copy can be read on another thread while this game goes on.
+     *
+     * @return A copy of this game
+     */
+    public WordleGame copy() {
+        return new WordleGame(this);
+    }
+
+    /**
+     * Gets the amount of bits needed to store the pattern of one row
+     *
+     * @param wordLength The word length
+     *
+     * @return The amount of bits
+     */
+    public static int laneBits(final int wordLength) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(POW3[wordLength] - 1);
+    }
+
+    /**
+     * Gets the maximum amount of tries a game can have
+     * The patterns of all rows have to fit into one long.
+     *
+     * @param wordLength The word length
+     *
+     * @return The maximum amount of tries
+     */
+    public static int maxTries(final int wordLength) {
+        return Math.min(Const.MAX_INPUT_AMOUNT, Long.SIZE / laneBits(wordLength));
     }
 
     /**
@@ -38,46 +110,133 @@ public class WordleGame {
      * @param input The word to process
      */
     public void handleInput(final String input) {
-        // Check input validity
-        final char[] processedInput = input.toLowerCase().trim().toCharArray();
-        if (processedInput.length != WORD_LENGTH) {
-            return;
+        // Check input validity, packing is case-insensitive so we only need to skip the surrounding whitespace
+        int from = 0;
+        int to = input.length();
+        while (from < to && input.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && input.charAt(to - 1) <= ' ') {
+            to--;
         }
-        if (this.index >= INPUT_AMOUNT) {
+        if (to - from != this.wordList.getLength()) {
             return;
         }
+        this.handleGuess(WordDictionary.pack(input, from, to));
+    }
 
-        // I don't like using sets here, is there a better way to solve this?
-        final Set<Character> greens = new HashSet<>();
-        final Set<Character> yellows = new HashSet<>();
-
-        // First iteration: Calculate all greens
-        int greenAmount = 0;
-        for (int i = 0; i < WORD_LENGTH; i++) {
-            if (processedInput[i] == this.secretWord.charAt(i)) {
-                this.grid[this.index][i] = GREEN;
-                greens.add(processedInput[i]);
-                greenAmount++;
-            }
+    /**
+     * Processes a packed guess and advances the game by one step.
+     *
+     * @param packedInput The packed word to process
+     */
+    public void handleGuess(final int packedInput) {
+        if (packedInput == WordDictionary.INVALID || WordDictionary.length(packedInput) != this.wordList.getLength()) {
+            return;
         }
-        // Second iteration: Calculate all yellows
-        for (int i = 0; i < WORD_LENGTH; i++) {
-            if (this.secretWord.contains(String.valueOf(processedInput[i]))) {
-                if (greens.contains(processedInput[i]) || yellows.contains(processedInput[i])) {
-                    continue;
-                }
-                this.grid[this.index][i] = YELLOW;
-                yellows.add(processedInput[i]);
-            }
+        if (this.index >= this.guesses.length) {
+            return;
         }
 
+        // Look the pattern up if we can, calculate it otherwise
+        final int pattern;
+        final int guessIndex = this.feedbackMatrix == null || this.secretIndex < 0 ? -1
+                : this.wordList.guessIndexOf(packedInput);
+        if (guessIndex >= 0) {
+            pattern = this.feedbackMatrix.getPattern(this.secretIndex, guessIndex);
+        } else {
+            pattern = score(this.packedSecret, packedInput);
+        }
+
+        this.patterns |= (long) pattern << (this.index * laneBits(this.wordList.getLength()));
+
         // Check if user has won
-        if (greenAmount == WORD_LENGTH) {
+        if (pattern == winningPattern(this.wordList.getLength())) {
             this.done = true;
         }
 
         // Save input
-        this.inputs[this.index++] = input.toLowerCase().trim();
+        this.guesses[this.index++] = packedInput;
+    }
+
+    /**
+     * Calculates the pattern of a guess
+     * <p>
+     * The pattern is a base 3 number, the digit at position n is the state of the nth letter.
+     * Greens are marked first. After that every remaining guess letter, from left to right, is
+     * marked yellow if the secret word has an occurrence of that letter that is not already
+     * green or yellow. A letter that appears twice in the guess but once in the secret word is
+     * therefore only marked once.
+     * <p>
+     * Works on the packed words only and does not allocate.
+     *
+     * @param secret The packed secret word, its length is the length of the pattern
+     * @param guess  The packed guess
+     *
+     * @return The pattern
+     */
+    public static int score(final int secret, final int guess) {
+        final int length = WordDictionary.length(secret);
+        int pattern = 0;
+        // Bit n is set once the nth letter of the secret word has been matched
+        int matched = 0;
+        for (int i = 0; i < length; i++) {
+            if (WordDictionary.letterAt(guess, i) == WordDictionary.letterAt(secret, i)) {
+                pattern += GREEN * POW3[i];
+                matched |= 1 << i;
+            }
+        }
+        final int greens = matched;
+        for (int i = 0; i < length; i++) {
+            if ((greens & (1 << i)) != 0) {
+                continue;
+            }
+            final int letter = WordDictionary.letterAt(guess, i);
+            for (int j = 0; j < length; j++) {
+                if ((matched & (1 << j)) == 0 && WordDictionary.letterAt(secret, j) == letter) {
+                    pattern += YELLOW * POW3[i];
+                    matched |= 1 << j;
+                    break;
+                }
+            }
+        }
+        return pattern;
+    }
+
+    /**
+     * Gets the state of a single letter from a pattern
+     *
+     * @param pattern The pattern
+     * @param column  The letter position
+     *
+     * @return The state
+     *
+     * @see #score(int, int)
+     */
+    public static int stateAt(final int pattern, final int column) {
+        return pattern / POW3[column] % 3;
+    }
+
+    /**
+     * Gets the pattern of a correct guess
+     *
+     * @param wordLength The word length
+     *
+     * @return The pattern where every letter is green
+     */
+    public static int winningPattern(final int wordLength) {
+        return POW3[wordLength] - 1;
+    }
+
+    /**
+     * Gets the amount of different patterns
+     *
+     * @param wordLength The word length
+     *
+     * @return 3 to the power of the word length
+     */
+    public static int patternCount(final int wordLength) {
+        return POW3[wordLength];
     }
 
     /**
@@ -91,7 +250,19 @@ public class WordleGame {
      * @return The state
      */
     public int getState(final int row, final int column) {
-        return this.grid[row][column];
+        return stateAt(this.getPattern(row), column);
+    }
+
+    /**
+     * Gets the pattern of a specific row
+     *
+     * @param row The row
+     *
+     * @return The pattern, see {@link #score(int, int)}
+     */
+    public int getPattern(final int row) {
+        final int bits = laneBits(this.wordList.getLength());
+        return (int) (this.patterns >>> (row * bits)) & ((1 << bits) - 1);
     }
 
     /**
@@ -120,7 +291,15 @@ public class WordleGame {
      * @return True if user has used all of their tries
      */
     public boolean isAtEnd() {
-        return this.index >= INPUT_AMOUNT;
+        return this.index >= this.guesses.length;
+    }
+
+    public int getWordLength() {
+        return this.wordList.getLength();
+    }
+
+    public int getMaxTries() {
+        return this.guesses.length;
     }
 
     /**
@@ -128,19 +307,40 @@ public class WordleGame {
      *
      * @param row The row
      *
-     * @return The input
+     * @return The input or null if the row is empty
      */
     public String getInput(final int row) {
-        return this.inputs[row];
+        return row < this.index ? WordDictionary.unpack(this.guesses[row]) : null;
+    }
+
+    /**
+     * Gets the packed input for the specified row
+     *
+     * @param row The row
+     *
+     * @return The packed input or 0 if the row is empty
+     */
+    public int getGuess(final int row) {
+        return row < this.index ? this.guesses[row] : 0;
+    }
+
+    /**
+     * Gets the word list this game was started with
+     * This snapshot does not change when the word list is reloaded during the game.
+     *
+     * @return Word list
+     */
+    public WordList getWordList() {
+        return this.wordList;
     }
 
     /**
-     * Gets the word list name
+     * Gets the feedback matrix of the word list this game was started with
      *
-     * @return Word list name
+     * @return The matrix or null if it wasn't ready when the game was started
      */
-    public String getWordList() {
-        return wordList;
+    public FeedbackMatrix getFeedbackMatrix() {
+        return this.feedbackMatrix;
     }
 
     /**
@@ -149,7 +349,7 @@ public class WordleGame {
      * @return The secret word
      */
     public String getSecretWord() {
-        return this.secretWord;
+        return WordDictionary.unpack(this.packedSecret);
     }
 
 }
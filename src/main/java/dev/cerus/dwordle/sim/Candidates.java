@@ -0,0 +1,171 @@
+package dev.cerus.dwordle.sim;
+
+import dev.cerus.dwordle.game.FeedbackMatrix;
+import dev.cerus.dwordle.game.WordleGame;
+import dev.cerus.dwordle.word.WordList;
+import java.util.Arrays;
+
+/**
+ * The secret words that are still possible in a simulated game
+ * <p>
+ * One instance is reused for all games a worker plays, so tracking the candidates does not
+ * allocate. Candidates are secret word indices, which are also the guess indices of those words.
+ */
+public final class Candidates {
+
+    private final WordList wordList;
+    private final FeedbackMatrix matrix;
+    private final OpeningPartitions openings;
+    private final int[] indices;
+    private final int patternRadix;
+    private int[] scratch = new int[0];
+    private int count;
+    private int round;
+    private long history;
+    private boolean all;
+
+    /**
+     * @param wordList The word list
+     * @param matrix   The feedback matrix of the word list, can be null
+     */
+    public Candidates(final WordList wordList, final FeedbackMatrix matrix) {
+        this(wordList, matrix, new OpeningPartitions(wordList, matrix));
+    }
+
+    Candidates(final WordList wordList, final FeedbackMatrix matrix, final OpeningPartitions openings) {
+        this.wordList = wordList;
+        this.matrix = matrix;
+        this.openings = openings;
+        this.indices = new int[wordList.getWords().size()];
+        this.patternRadix = WordleGame.patternCount(wordList.getLength()) + 1;
+        this.reset();
+    }
+
+    /**
+     * Makes every secret word possible again
+     */
+    public void reset() {
+        // The first filter copies the candidates from the partition of the opening
+        this.all = true;
+        this.count = this.indices.length;
+        this.round = 0;
+        this.history = 0;
+    }
+
+    /**
+     * Removes every candidate that would not have produced a pattern
+     *
+     * @param guessIndex The guess index of the guess
+     * @param pattern    The pattern the game returned
+     */
+    public void filter(final int guessIndex, final int pattern) {
+        int kept = 0;
+        if (this.all) {
+            final int[] partition = this.openings.get(guessIndex);
+            final int offset = this.openings.getPatternCount() + 1;
+            kept = partition[pattern + 1] - partition[pattern];
+            System.arraycopy(partition, offset + partition[pattern], this.indices, 0, kept);
+        } else {
+            final int guess = this.wordList.getGuess(guessIndex);
+            for (int i = 0; i < this.count; i++) {
+                final int candidate = this.indices[i];
+                if (this.pattern(candidate, guessIndex, guess) == pattern) {
+                    this.indices[kept++] = candidate;
+                }
+            }
+        }
+        this.all = false;
+        this.count = kept;
+        this.round++;
+        this.history = this.history * this.patternRadix + pattern + 1;
+    }
+
+    /**
+     * Gets the pattern of a guess against a secret word
+     *
+     * @param secretIndex The index of the secret word
+     * @param guessIndex  The guess index
+     * @param guess       The packed guess
+     *
+     * @return The pattern
+     */
+    public int pattern(final int secretIndex, final int guessIndex, final int guess) {
+        return this.matrix != null ? this.matrix.getPattern(secretIndex, guessIndex)
+                : WordleGame.score(this.wordList.getWords().get(secretIndex), guess);
+    }
+
+    /**
+     * Gets a candidate
+     *
+     * @param index The position, less than {@link #size()}
+     *
+     * @return The index of the secret word
+     */
+    public int get(final int index) {
+        return this.all ? index : this.indices[index];
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Gets the candidate indices
+     * Only the first {@link #size()} entries are valid.
+     *
+     * @return The indices
+     */
+    public int[] toArray() {
+        if (this.all) {
+            for (int i = 0; i < this.count; i++) {
+                this.indices[i] = i;
+            }
+            this.all = false;
+        }
+        return this.indices;
+    }
+
+    /**
+     * Gets the amount of guesses made so far
+     *
+     * @return The round
+     */
+    public int getRound() {
+        return this.round;
+    }
+
+    /**
+     * Gets a key for all patterns seen so far
+     * Two games with the same patterns in the same order have the same key.
+     *
+     * @return The key
+     */
+    public long getHistory() {
+        return this.history;
+    }
+
+    /**
+     * Gets a cleared int array that strategies can use while picking a guess
+     *
+     * @param size The minimum size
+     *
+     * @return The array
+     */
+    public int[] scratch(final int size) {
+        if (this.scratch.length < size) {
+            this.scratch = new int[size];
+        } else {
+            Arrays.fill(this.scratch, 0, size, 0);
+        }
+        return this.scratch;
+    }
+
+    public WordList getWordList() {
+        return this.wordList;
+    }
+
+    public FeedbackMatrix getMatrix() {
+        return this.matrix;
+    }
+
+}
@@ -0,0 +1,40 @@
+package dev.cerus.dwordle.sim;
+
+import dev.cerus.dwordle.game.SessionRegistry;
+import java.util.SplittableRandom;
+
+/**
+ * Base for strategies whose choice only depends on the patterns seen so far
+ * <p>
+ * Every game of such a strategy walks down the same decision tree, so choices are remembered
+ * by pattern history and each node of the tree is only calculated once. After that a game costs
+ * about as much as with any other strategy and the simulation mostly measures the game itself.
+ */
+public abstract class DeterministicStrategy implements Strategy {
+
+    private final SessionRegistry<Integer> choices = new SessionRegistry<>(256);
+
+    @Override
+    public final int nextGuess(final Candidates candidates, final SplittableRandom random) {
+        final long history = candidates.getHistory();
+        final Integer known = this.choices.get(history);
+        if (known != null) {
+            return known;
+        }
+
+        // Two workers might calculate the same choice at the same time, both get the same result
+        final int guess = this.choose(candidates);
+        this.choices.putIfAbsent(history, guess);
+        return guess;
+    }
+
+    /**
+     * Calculates the next guess
+     *
+     * @param candidates The secret words that are still possible, never empty
+     *
+     * @return The guess index of the guess
+     */
+    protected abstract int choose(Candidates candidates);
+
+}
@@ -0,0 +1,21 @@
+package dev.cerus.dwordle.sim;
+
+import dev.cerus.dwordle.game.HintSolver;
+
+/**
+ * Guesses the word with the highest expected information, like {@link HintSolver}
+ */
+public class EntropyStrategy extends DeterministicStrategy {
+
+    @Override
+    public String getName() {
+        return "entropy";
+    }
+
+    @Override
+    protected int choose(final Candidates candidates) {
+        return HintSolver.bestGuess(candidates.getWordList(), candidates.getMatrix(),
+                candidates.toArray(), candidates.size());
+    }
+
+}
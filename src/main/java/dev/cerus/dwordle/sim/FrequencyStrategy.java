@@ -0,0 +1,64 @@
+package dev.cerus.dwordle.sim;
+
+import dev.cerus.dwordle.word.WordDictionary;
+
+/**
+ * Guesses the possible word whose letters are the most common among the possible words
+ * <p>
+ * A letter scores how many candidates have it at the same position plus how many candidates
+ * contain it at all. Repeated letters only score their position, they reveal nothing new.
+ */
+public class FrequencyStrategy extends DeterministicStrategy {
+
+    private static final int LETTERS = WordDictionary.LETTER_MASK + 1;
+
+    @Override
+    public String getName() {
+        return "frequency";
+    }
+
+    @Override
+    protected int choose(final Candidates candidates) {
+        final WordDictionary words = candidates.getWordList().getWords();
+        final int length = candidates.getWordList().getLength();
+
+        // Positional counts first, followed by the counts of words that contain a letter
+        final int[] counts = candidates.scratch((length + 1) * LETTERS);
+        final int containsOffset = length * LETTERS;
+        for (int i = 0; i < candidates.size(); i++) {
+            final int word = words.get(candidates.get(i));
+            int seen = 0;
+            for (int pos = 0; pos < length; pos++) {
+                final int letter = WordDictionary.letterAt(word, pos);
+                counts[pos * LETTERS + letter]++;
+                if ((seen & (1 << letter)) == 0) {
+                    seen |= 1 << letter;
+                    counts[containsOffset + letter]++;
+                }
+            }
+        }
+
+        int best = candidates.get(0);
+        int bestScore = -1;
+        for (int i = 0; i < candidates.size(); i++) {
+            final int candidate = candidates.get(i);
+            final int word = words.get(candidate);
+            int score = 0;
+            int seen = 0;
+            for (int pos = 0; pos < length; pos++) {
+                final int letter = WordDictionary.letterAt(word, pos);
+                score += counts[pos * LETTERS + letter];
+                if ((seen & (1 << letter)) == 0) {
+                    seen |= 1 << letter;
+                    score += counts[containsOffset + letter];
+                }
+            }
+            if (score > bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+}
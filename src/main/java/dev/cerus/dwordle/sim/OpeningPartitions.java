@@ -0,0 +1,78 @@
+package dev.cerus.dwordle.sim;
+
+import dev.cerus.dwordle.game.FeedbackMatrix;
+import dev.cerus.dwordle.game.WordleGame;
+import dev.cerus.dwordle.word.WordList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * All secret words grouped by the pattern an opening guess gives them
+ * <p>
+ * The first guess of a game has to be checked against every secret word. The matrix stores the
+ * patterns of a secret word next to each other, so reading one guess for all secret words misses
+ * the cache on every read and made the first guess cost more than the rest of the game. Each
+ * opening is therefore partitioned once, after that the candidates of the first pattern are a
+ * single copy.
+ */
+final class OpeningPartitions {
+
+    private final WordList wordList;
+    private final FeedbackMatrix matrix;
+    private final int patternCount;
+    private final AtomicReferenceArray<int[]> partitions;
+
+    OpeningPartitions(final WordList wordList, final FeedbackMatrix matrix) {
+        this.wordList = wordList;
+        this.matrix = matrix;
+        this.patternCount = WordleGame.patternCount(wordList.getLength());
+        this.partitions = new AtomicReferenceArray<>(wordList.getGuessCount());
+    }
+
+    /**
+     * Gets the partition of an opening guess
+     * <p>
+     * The first {@link #patternCount} + 1 entries are offsets: the secret words with pattern p are
+     * stored from {@code partition[patternCount + 1 + partition[p]]} to
+     * {@code partition[patternCount + 1 + partition[p + 1]]}.
+     *
+     * @param guessIndex The guess index of the opening
+     *
+     * @return The partition
+     */
+    int[] get(final int guessIndex) {
+        int[] partition = this.partitions.get(guessIndex);
+        if (partition == null) {
+            // Calculating the same partition twice is harmless, the result is the same
+            partition = this.partition(guessIndex);
+            this.partitions.compareAndSet(guessIndex, null, partition);
+        }
+        return partition;
+    }
+
+    private int[] partition(final int guessIndex) {
+        final int secrets = this.wordList.getWords().size();
+        final int guess = this.wordList.getGuess(guessIndex);
+        final int[] patterns = new int[secrets];
+        final int[] partition = new int[this.patternCount + 1 + secrets];
+        for (int secret = 0; secret < secrets; secret++) {
+            patterns[secret] = this.matrix != null ? this.matrix.getPattern(secret, guessIndex)
+                    : WordleGame.score(this.wordList.getWords().get(secret), guess);
+            partition[patterns[secret] + 1]++;
+        }
+        for (int pattern = 0; pattern < this.patternCount; pattern++) {
+            partition[pattern + 1] += partition[pattern];
+        }
+
+        final int[] next = new int[this.patternCount];
+        for (int secret = 0; secret < secrets; secret++) {
+            final int pattern = patterns[secret];
+            partition[this.patternCount + 1 + partition[pattern] + next[pattern]++] = secret;
+        }
+        return partition;
+    }
+
+    int getPatternCount() {
+        return this.patternCount;
+    }
+
+}
@@ -0,0 +1,20 @@
+package dev.cerus.dwordle.sim;
+
+import java.util.SplittableRandom;
+
+/**
+ * Guesses a random word that is still possible
+ */
+public class RandomStrategy implements Strategy {
+
+    @Override
+    public String getName() {
+        return "random";
+    }
+
+    @Override
+    public int nextGuess(final Candidates candidates, final SplittableRandom random) {
+        return candidates.get(random.nextInt(candidates.size()));
+    }
+
+}
@@ -0,0 +1,309 @@
+package dev.cerus.dwordle.sim;
+
+import dev.cerus.dwordle.Const;
+import dev.cerus.dwordle.Launcher;
+import dev.cerus.dwordle.game.FeedbackMatrix;
+import dev.cerus.dwordle.game.FeedbackMatrixCache;
+import dev.cerus.dwordle.game.WordleGame;
+import dev.cerus.dwordle.word.NyTimesWordService;
+import dev.cerus.dwordle.word.WordDictionary;
+import dev.cerus.dwordle.word.WordList;
+import dev.cerus.dwordle.word.WordService;
+import dev.cerus.dwordle.word.WordleAtWordService;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Plays a lot of games without Discord
+ * <p>
+ * Usage: {@code Simulator <random|frequency|entropy> [games] [word list] [length] [guesses] [csv file]}
+ * <p>
+ * Game n plays secret word n modulo the amount of words, so every word is played equally often.
+ * Games are split across all cores with a fork/join pool and each worker reuses its state, so the
+ * measured throughput and allocation rate are mostly the ones of {@link WordleGame}. The report
+ * contains the overall guess distribution and is followed by the distribution of every secret word,
+ * which is also written to a csv file.
+ */
+public class Simulator implements AutoCloseable {
+
+    private static final int GAMES_PER_TASK = 4096;
+
+    private final WordList wordList;
+    private final FeedbackMatrix matrix;
+    private final Strategy strategy;
+    private final int maxTries;
+    private final int secrets;
+    private final OpeningPartitions openings;
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    public Simulator(final WordList wordList, final FeedbackMatrix matrix, final Strategy strategy, final int maxTries) {
+        this.wordList = wordList;
+        this.matrix = matrix;
+        this.strategy = strategy;
+        this.maxTries = maxTries;
+        this.secrets = wordList.getWords().size();
+        this.openings = new OpeningPartitions(wordList, matrix);
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 1 || Strategy.byName(args[0]) == null) {
+            System.out.println("Usage: Simulator <random|frequency|entropy> [games] [word list] [length] [guesses] [csv file]");
+            return;
+        }
+        final Strategy strategy = Strategy.byName(args[0]);
+        final long games = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+        final String wordListName = args.length > 2 ? args[2] : "official";
+        final int length = args.length > 3 ? Integer.parseInt(args[3]) : Const.WORD_LENGTH;
+        final int maxTries = args.length > 4 ? Integer.parseInt(args[4]) : Const.INPUT_AMOUNT;
+        final Path csvFile = Path.of(args.length > 5 ? args[5]
+                : "simulation-" + wordListName + "-" + length + "-" + strategy.getName() + ".csv");
+
+        final WordList wordList;
+        try (final WordService wordService = switch (wordListName) {
+            case "official" -> new NyTimesWordService();
+            case "german" -> new WordleAtWordService();
+            default -> throw new IllegalArgumentException("Unknown word list " + wordListName);
+        }) {
+            wordService.initialize().join();
+            wordList = wordService.getWordList(length);
+        }
+        if (wordList.isEmpty()) {
+            Launcher.log("ERROR: " + wordListName + " has no words with " + length + " letters");
+            return;
+        }
+        if (maxTries < 1 || maxTries > WordleGame.maxTries(length)) {
+            Launcher.log("ERROR: The amount of guesses has to be between 1 and " + WordleGame.maxTries(length));
+            return;
+        }
+
+        FeedbackMatrix matrix = null;
+        try {
+            matrix = FeedbackMatrix.openOrGenerate(FeedbackMatrixCache.defaultDir(), wordList);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            Launcher.log("ERROR: Failed to load feedback matrix, patterns will be calculated");
+        }
+
+        final Result result;
+        try (final Simulator simulator = new Simulator(wordList, matrix, strategy, maxTries)) {
+            Launcher.log("Warming up");
+            simulator.run(Math.min(games, 100_000));
+            Launcher.log("Simulating " + games + " games of " + wordList.getKey() + " with " + strategy.getName());
+            result = simulator.run(games);
+        }
+        result.print(System.out);
+        try (final PrintWriter writer = new PrintWriter(Files.newBufferedWriter(csvFile))) {
+            result.writeCsv(writer);
+        }
+        Launcher.log("Per word distribution written to " + csvFile.toAbsolutePath());
+    }
+
+    /**
+     * Plays games on all cores
+     *
+     * @param games The amount of games
+     *
+     * @return The result
+     */
+    public Result run(final long games) {
+        final Result result = new Result(this.wordList, this.maxTries);
+        final long start = System.nanoTime();
+        this.pool.invoke(new PlayTask(result, 0, games));
+        result.nanos = System.nanoTime() - start;
+        result.games = games;
+        return result;
+    }
+
+    @Override
+    public void close() {
+        this.pool.shutdown();
+    }
+
+    /**
+     * Gets the amount of bytes the current thread allocated so far
+     *
+     * @return The amount of bytes or -1 if the JVM can't tell
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean
+                && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            return threadMXBean.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * Plays a range of games
+     */
+    private final class PlayTask extends RecursiveAction {
+
+        private final Result result;
+        private final long from;
+        private final long to;
+
+        private PlayTask(final Result result, final long from, final long to) {
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > GAMES_PER_TASK) {
+                final long mid = (this.from + this.to) >>> 1;
+                invokeAll(new PlayTask(this.result, this.from, mid), new PlayTask(this.result, mid, this.to));
+                return;
+            }
+
+            final long allocatedBefore = allocatedBytes();
+            final Candidates candidates = new Candidates(Simulator.this.wordList, Simulator.this.matrix, Simulator.this.openings);
+            final SplittableRandom random = new SplittableRandom(this.from);
+            final WordDictionary words = Simulator.this.wordList.getWords();
+            for (long n = this.from; n < this.to; n++) {
+                final int secretIndex = (int) (n % Simulator.this.secrets);
+                final WordleGame game = new WordleGame(Simulator.this.wordList, words.get(secretIndex),
+                        Simulator.this.maxTries, Simulator.this.matrix);
+                candidates.reset();
+                while (!game.isDone() && !game.isAtEnd()) {
+                    final int guessIndex = Simulator.this.strategy.nextGuess(candidates, random);
+                    game.handleGuess(Simulator.this.wordList.getGuess(guessIndex));
+                    candidates.filter(guessIndex, game.getPattern(game.getTries() - 1));
+                }
+                this.result.record(secretIndex, game.isDone() ? game.getTries() : 0);
+            }
+            if (allocatedBefore >= 0) {
+                this.result.allocated.add(allocatedBytes() - allocatedBefore);
+            }
+        }
+
+    }
+
+    /**
+     * Guess distribution of a run
+     */
+    public static final class Result {
+
+        private final WordList wordList;
+        private final int columns;
+        // Column 0 counts the lost games, column n the games that were won with n guesses
+        private final AtomicIntegerArray distribution;
+        private final LongAdder allocated = new LongAdder();
+        private long games;
+        private long nanos;
+
+        private Result(final WordList wordList, final int maxTries) {
+            this.wordList = wordList;
+            this.columns = maxTries + 1;
+            this.distribution = new AtomicIntegerArray(wordList.getWords().size() * this.columns);
+        }
+
+        private void record(final int secretIndex, final int tries) {
+            this.distribution.incrementAndGet(secretIndex * this.columns + tries);
+        }
+
+        private long count(final int secretIndex, final int tries) {
+            return this.distribution.get(secretIndex * this.columns + tries);
+        }
+
+        private double average(final int secretIndex) {
+            long won = 0;
+            long guesses = 0;
+            for (int tries = 1; tries < this.columns; tries++) {
+                won += this.count(secretIndex, tries);
+                guesses += tries * this.count(secretIndex, tries);
+            }
+            // Lost games count as one guess more than allowed
+            final long lost = this.count(secretIndex, 0);
+            return won + lost == 0 ? 0 : (guesses + lost * this.columns) / (double) (won + lost);
+        }
+
+        /**
+         * Prints the summary
+         *
+         * @param out The output
+         */
+        public void print(final PrintStream out) {
+            final double seconds = this.nanos / 1_000_000_000D;
+            out.printf("Games: %d in %.2fs (%.0f games/s)%n", this.games, seconds, this.games / seconds);
+            out.printf("Allocated: %.1f MB (%.1f bytes/game, %.1f MB/s)%n",
+                    this.allocated.sum() / 1_048_576D,
+                    this.allocated.sum() / (double) this.games,
+                    this.allocated.sum() / 1_048_576D / seconds);
+
+            final long[] totals = new long[this.columns];
+            for (int secret = 0; secret < this.wordList.getWords().size(); secret++) {
+                for (int tries = 0; tries < this.columns; tries++) {
+                    totals[tries] += this.count(secret, tries);
+                }
+            }
+            long won = 0;
+            long guesses = 0;
+            for (int tries = 1; tries < this.columns; tries++) {
+                won += totals[tries];
+                guesses += tries * totals[tries];
+                out.printf("  %d: %d%n", tries, totals[tries]);
+            }
+            out.printf("  X: %d%n", totals[0]);
+            out.printf("Won: %.2f%%, %.3f guesses per won game%n", won * 100D / this.games, won == 0 ? 0 : guesses / (double) won);
+
+            final Integer[] bySecret = IntStream.range(0, this.wordList.getWords().size())
+                    .boxed()
+                    .sorted(Comparator.comparingDouble(this::average).reversed())
+                    .toArray(Integer[]::new);
+            out.println("Hardest words: " + this.describe(Arrays.copyOfRange(bySecret, 0, Math.min(10, bySecret.length))));
+            out.println("Easiest words: " + this.describe(Arrays.copyOfRange(bySecret,
+                    Math.max(0, bySecret.length - 10), bySecret.length)));
+        }
+
+        private String describe(final Integer[] secrets) {
+            final StringBuilder builder = new StringBuilder();
+            for (final int secret : secrets) {
+                if (builder.length() > 0) {
+                    builder.append(", ");
+                }
+                builder.append(this.wordList.getWords().getWord(secret))
+                        .append(String.format(" (%.2f)", this.average(secret)));
+            }
+            return builder.toString();
+        }
+
+        /**
+         * Writes the distribution of every secret word
+         *
+         * @param writer The output
+         */
+        public void writeCsv(final PrintWriter writer) {
+            writer.print("word,games,average");
+            for (int tries = 1; tries < this.columns; tries++) {
+                writer.print("," + tries);
+            }
+            writer.println(",lost");
+            for (int secret = 0; secret < this.wordList.getWords().size(); secret++) {
+                long games = 0;
+                for (int tries = 0; tries < this.columns; tries++) {
+                    games += this.count(secret, tries);
+                }
+                writer.print(this.wordList.getWords().getWord(secret) + "," + games + "," + String.format(Locale.ROOT, "%.3f", this.average(secret)));
+                for (int tries = 1; tries < this.columns; tries++) {
+                    writer.print("," + this.count(secret, tries));
+                }
+                writer.println("," + this.count(secret, 0));
+            }
+        }
+
+    }
+
+}
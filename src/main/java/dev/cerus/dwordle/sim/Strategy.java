@@ -0,0 +1,39 @@
+package dev.cerus.dwordle.sim;
+
+import java.util.SplittableRandom;
+
+/**
+ * Picks the guesses of simulated games
+ * Implementations are shared by all workers and have to be thread safe.
+ */
+public interface Strategy {
+
+    /**
+     * Creates a strategy by its name
+     *
+     * @param name random, frequency or entropy
+     *
+     * @return The strategy or null if the name is unknown
+     */
+    static Strategy byName(final String name) {
+        return switch (name) {
+            case "random" -> new RandomStrategy();
+            case "frequency" -> new FrequencyStrategy();
+            case "entropy" -> new EntropyStrategy();
+            default -> null;
+        };
+    }
+
+    String getName();
+
+    /**
+     * Picks the next guess
+     *
+     * @param candidates The secret words that are still possible, never empty
+     * @param random     The random of the current worker
+     *
+     * @return The guess index of the guess
+     */
+    int nextGuess(Candidates candidates, SplittableRandom random);
+
+}
@@ -28,6 +28,9 @@ public class SQLiteStatsService implements StatsService {
             connection.prepareStatement("CREATE TABLE IF NOT EXISTS `stats` (user_id BIGINT PRIMARY KEY, " +
                             "games_played BIGINT DEFAULT 0, games_won BIGINT DEFAULT 0, games_lost BIGINT DEFAULT 0)")
                     .executeUpdate();
+            connection.prepareStatement("CREATE TABLE IF NOT EXISTS `seen_words` (user_id BIGINT, word_list TEXT, " +
+                            "data BLOB, PRIMARY KEY (user_id, word_list))")
+                    .executeUpdate();
         } catch (final SQLException e) {
             e.printStackTrace();
         }
@@ -106,6 +109,39 @@ public class SQLiteStatsService implements StatsService {
         return this.queryLong("games_lost", userId);
     }
 
+    @Override
+    public byte[] getSeenWords(final long userId, final String wordList) {
+        try (final Connection connection = this.getConnection()) {
+            final PreparedStatement statement = connection.prepareStatement("SELECT data FROM `seen_words` " +
+                    "WHERE `user_id` = ? AND `word_list` = ?");
+            statement.setLong(1, userId);
+            statement.setString(2, wordList);
+            final ResultSet resultSet = statement.executeQuery();
+            if (resultSet.next()) {
+                return resultSet.getBytes("data");
+            }
+        } catch (final SQLException e) {
+            e.printStackTrace();
+            Launcher.log("ERROR: SQL query failed (getSeenWords)");
+        }
+        return null;
+    }
+
+    @Override
+    public void setSeenWords(final long userId, final String wordList, final byte[] data) {
+        try (final Connection connection = this.getConnection()) {
+            final PreparedStatement statement = connection.prepareStatement("INSERT INTO `seen_words` (user_id, " +
+                    "word_list, data) VALUES (?, ?, ?) ON CONFLICT(user_id, word_list) DO UPDATE SET data = excluded.data");
+            statement.setLong(1, userId);
+            statement.setString(2, wordList);
+            statement.setBytes(3, data);
+            statement.executeUpdate();
+        } catch (final SQLException e) {
+            e.printStackTrace();
+            Launcher.log("ERROR: SQL query failed (setSeenWords)");
+        }
+    }
+
     private void incrementLong(final String field, final long user) {
         // Increment specific field
         try (final Connection connection = this.getConnection()) {
@@ -109,4 +109,23 @@ public interface StatsService extends AutoCloseable {
      */
     long getAmountTotalGamesLost(long userId);
 
+    /**
+     * Gets the serialized set of secret words the user has already played
+     *
+     * @param userId   The user
+     * @param wordList The word list name
+     *
+     * @return The serialized set or null if there is none
+     */
+    byte[] getSeenWords(long userId, String wordList);
+
+    /**
+     * Saves the serialized set of secret words the user has already played
+     *
+     * @param userId   The user
+     * @param wordList The word list name
+     * @param data     The serialized set
+     */
+    void setSeenWords(long userId, String wordList, byte[] data);
+
 }
@@ -2,93 +2,151 @@ package dev.cerus.dwordle.word;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Random;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 
 /**
  * Word service for the official Wordle game word list
  * <p>
  * https://www.nytimes.com/games/wordle/
  */
-public class NyTimesWordService implements WordService {
+public class NyTimesWordService extends RemoteWordService {
 
     private static final String URL = "https://www.nytimes.com/games/wordle/main.bd4cb59c.js";
-    private static final String START = "var Ma=[\"";
-    private static final String END = "\"],Ra=";
-    private static final String SPLIT = ",Oa=\\[\"";
-    private static final String DELIMITER = "\",\"";
+    // The bundle contains two arrays: var Ma=["words",...],Oa=["inputs",...],Ra=...
+    private static final byte[] START = "var Ma=[\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SPLIT = ",Oa=[\"".getBytes(StandardCharsets.US_ASCII);
+    private static final int[] START_FAILURE = failureTable(START);
+    private static final int BUFFER_SIZE = 16 * 1024;
 
-    private final Random random = new Random();
-    private ExecutorService executorService;
-    private List<String> words;
-    private List<String> inputs;
+    private static final int STATE_SEEK_START = 0;
+    private static final int STATE_WORDS = 1;
+    private static final int STATE_SPLIT = 2;
+    private static final int STATE_INPUTS = 3;
+    private static final int STATE_DONE = 4;
 
-    @Override
-    public CompletableFuture<Void> initialize() {
-        this.executorService = Executors.newSingleThreadScheduledExecutor();
-        this.inputs = new ArrayList<>();
-        this.words = new ArrayList<>();
-        final CompletableFuture<Void> future = new CompletableFuture<>();
-
-        this.executorService.execute(() -> {
-            final String response;
-            try {
-                final HttpURLConnection connection = (HttpURLConnection) new URL(URL).openConnection();
-                connection.setDoInput(true);
-
-                // Read response content
-                final StringBuilder builder = new StringBuilder();
-                final InputStream in = connection.getInputStream();
-                int b;
-                while ((b = in.read()) != -1) {
-                    builder.append((char) b);
-                }
-                response = builder.toString();
-            } catch (final IOException e) {
-                future.completeExceptionally(e);
-                return;
-            }
-
-            // Trim response content
-            String trimmed = response.substring(response.indexOf(START) + START.length());
-            trimmed = trimmed.substring(0, trimmed.indexOf(END));
-            final String[] split = trimmed.split(SPLIT);
-
-            // Select words and inputs
-            final String[] words = split[0].split(DELIMITER);
-            final String[] inputs = split[1].split(DELIMITER);
-
-            NyTimesWordService.this.words.addAll(Arrays.asList(words));
-            NyTimesWordService.this.inputs.addAll(Arrays.asList(inputs));
-            future.complete(null);
-        });
+    public NyTimesWordService() {
+        this("official", URL, WordListSnapshot.defaultFile("official"));
+    }
 
-        return future;
+    public NyTimesWordService(final String name, final String url, final Path snapshotFile) {
+        super(name, url, snapshotFile);
     }
 
     @Override
-    public boolean isValidInput(final String str) {
-        return this.inputs.contains(str.toLowerCase())
-                || this.words.contains(str.toLowerCase());
+    protected void parse(final InputStream in, final WordDictionary.Builder words, final WordDictionary.Builder inputs) throws IOException {
+        parse(Channels.newChannel(in), words, inputs);
     }
 
-    @Override
-    public String getRandomSecretWord() {
-        return this.words.get(this.random.nextInt(this.words.size()));
+    /**
+     * Extracts the word lists from the bundle while it is being read
+     * <p>
+     * The bundle is never materialized. We scan for the start marker, then pack the letters of
+     * every string literal straight into the dictionary builders until the inputs array is closed.
+     * Reading stops right there, the rest of the bundle is not even downloaded.
+     *
+     * @param channel The bundle
+     * @param words   Receives the words
+     * @param inputs  Receives the inputs
+     *
+     * @throws IOException If the bundle can't be read or has an unexpected format
+     */
+    static void parse(final ReadableByteChannel channel,
+                      final WordDictionary.Builder words,
+                      final WordDictionary.Builder inputs) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        int state = STATE_SEEK_START;
+        int matched = 0;
+        boolean inString = false;
+        int packed = 0;
+        int length = 0;
+
+        while (state != STATE_DONE && channel.read(buffer) != -1) {
+            buffer.flip();
+            while (state != STATE_DONE && buffer.hasRemaining()) {
+                final byte b = buffer.get();
+                switch (state) {
+                    case STATE_SEEK_START -> {
+                        while (matched > 0 && b != START[matched]) {
+                            matched = START_FAILURE[matched - 1];
+                        }
+                        if (b == START[matched]) {
+                            matched++;
+                        }
+                        if (matched == START.length) {
+                            state = STATE_WORDS;
+                            inString = true;
+                        }
+                    }
+                    case STATE_WORDS, STATE_INPUTS -> {
+                        if (inString) {
+                            if (b == '"') {
+                                // Word complete, add it if it's a proper word
+                                if (length > 0 && length <= WordDictionary.MAX_LENGTH) {
+                                    (state == STATE_WORDS ? words : inputs).add(packed);
+                                }
+                                inString = false;
+                                packed = 0;
+                                length = 0;
+                            } else {
+                                final int letter = WordDictionary.letterOf((char) b);
+                                if (letter == 0 || length >= WordDictionary.MAX_LENGTH) {
+                                    // Not a valid word, make sure it won't be added
+                                    length = WordDictionary.MAX_LENGTH + 1;
+                                } else {
+                                    packed |= letter << (length++ * WordDictionary.BITS_PER_LETTER);
+                                }
+                            }
+                        } else if (b == '"') {
+                            inString = true;
+                        } else if (b == ']') {
+                            state = state == STATE_WORDS ? STATE_SPLIT : STATE_DONE;
+                            matched = 0;
+                        }
+                    }
+                    case STATE_SPLIT -> {
+                        if (b != SPLIT[matched]) {
+                            throw new IOException("Unexpected bundle format");
+                        }
+                        if (++matched == SPLIT.length) {
+                            state = STATE_INPUTS;
+                            inString = true;
+                        }
+                    }
+                }
+            }
+            buffer.compact();
+        }
+
+        if (state != STATE_DONE) {
+            throw new IOException("Unexpected end of bundle");
+        }
     }
 
-    @Override
-    public void close() throws Exception {
-        this.words.clear();
-        this.inputs.clear();
-        this.executorService.shutdown();
+    /**
+     * Computes the KMP failure table for a marker so matches can't be missed
+     * when a partial match is followed by the start of the actual marker
+     *
+     * @param marker The marker
+     *
+     * @return The failure table
+     */
+    private static int[] failureTable(final byte[] marker) {
+        final int[] table = new int[marker.length];
+        int k = 0;
+        for (int i = 1; i < marker.length; i++) {
+            while (k > 0 && marker[i] != marker[k]) {
+                k = table[k - 1];
+            }
+            if (marker[i] == marker[k]) {
+                k++;
+            }
+            table[i] = k;
+        }
+        return table;
     }
 
 }
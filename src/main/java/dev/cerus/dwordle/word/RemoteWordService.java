@@ -0,0 +1,198 @@
+package dev.cerus.dwordle.word;
+
+import dev.cerus.dwordle.Const;
+import dev.cerus.dwordle.Launcher;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Base for word services that download their word lists from a remote server
+ * <p>
+ * The decoded lists are persisted as a {@link WordListSnapshot}. On startup the snapshot is
+ * loaded right away and the remote is revalidated in the background with a conditional
+ * request (If-None-Match / If-Modified-Since), so an unchanged list only costs a 304 response.
+ */
+public abstract class RemoteWordService implements WordService {
+
+    private final String name;
+    private final String url;
+    private final Path snapshotFile;
+    private final AtomicReference<Map<Integer, WordList>> wordLists = new AtomicReference<>(Map.of());
+    // Returned for lengths without words, built once per length instead of on every lookup
+    private final Map<Integer, WordList> emptyLists = new ConcurrentHashMap<>();
+    private ExecutorService executorService;
+    // Only accessed by the executor thread
+    private String etag;
+    private String lastModified;
+
+    /**
+     * @param name         The name of the word list
+     * @param url          The url of the word list
+     * @param snapshotFile The file where the decoded word list is persisted
+     */
+    protected RemoteWordService(final String name, final String url, final Path snapshotFile) {
+        this.name = name;
+        this.url = url;
+        this.snapshotFile = snapshotFile;
+    }
+
+    @Override
+    public CompletableFuture<Void> initialize() {
+        this.executorService = Executors.newSingleThreadScheduledExecutor();
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        this.executorService.execute(() -> {
+            // Load the local snapshot first so we don't have to wait for the remote
+            try {
+                final WordListSnapshot snapshot = WordListSnapshot.read(this.snapshotFile);
+                if (snapshot != null && !snapshot.getWords().isEmpty()) {
+                    this.publish(snapshot.getWords(), snapshot.getInputs());
+                    this.etag = snapshot.getEtag();
+                    this.lastModified = snapshot.getLastModified();
+                    future.complete(null);
+                }
+            } catch (final IOException e) {
+                e.printStackTrace();
+                Launcher.log("WARN: Failed to read word list snapshot " + this.snapshotFile);
+            }
+
+            try {
+                this.revalidate();
+                future.complete(null);
+            } catch (final Exception e) {
+                if (!future.completeExceptionally(e)) {
+                    // We're already running off the snapshot
+                    e.printStackTrace();
+                    Launcher.log("WARN: Failed to revalidate word list " + this.url);
+                }
+            }
+        });
+
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Void> reload() {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        this.executorService.execute(() -> {
+            try {
+                this.revalidate();
+                future.complete(null);
+            } catch (final Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Asks the remote if the word list has changed and downloads it if it did
+     *
+     * @throws IOException If the word list can't be downloaded or decoded
+     */
+    protected void revalidate() throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(this.url).openConnection();
+        connection.setDoInput(true);
+        if (!this.wordLists.get().isEmpty()) {
+            if (this.etag != null) {
+                connection.setRequestProperty("If-None-Match", this.etag);
+            }
+            if (this.lastModified != null) {
+                connection.setRequestProperty("If-Modified-Since", this.lastModified);
+            }
+        }
+
+        final WordDictionary words;
+        final WordDictionary inputs;
+        try {
+            final int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Unexpected response code " + status + " from " + this.url);
+            }
+
+            final WordDictionary.Builder wordsBuilder = WordDictionary.builder();
+            final WordDictionary.Builder inputsBuilder = WordDictionary.builder();
+            try (final InputStream in = connection.getInputStream()) {
+                this.parse(in, wordsBuilder, inputsBuilder);
+            }
+            words = wordsBuilder.build();
+            inputs = inputsBuilder.build();
+            if (words.isEmpty()) {
+                throw new IOException("No words found at " + this.url);
+            }
+
+            this.publish(words, inputs);
+            this.etag = connection.getHeaderField("ETag");
+            this.lastModified = connection.getHeaderField("Last-Modified");
+        } finally {
+            connection.disconnect();
+        }
+
+        try {
+            new WordListSnapshot(this.etag, this.lastModified, words, inputs).write(this.snapshotFile);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            Launcher.log("WARN: Failed to write word list snapshot " + this.snapshotFile);
+        }
+    }
+
+    /**
+     * Splits the words by length and publishes the new word lists
+     *
+     * @param words  All words
+     * @param inputs All inputs
+     */
+    private void publish(final WordDictionary words, final WordDictionary inputs) {
+        final Map<Integer, WordList> lists = new HashMap<>();
+        for (int length = Const.MIN_WORD_LENGTH; length <= Const.MAX_WORD_LENGTH; length++) {
+            final WordDictionary lengthWords = words.filterLength(length);
+            if (!lengthWords.isEmpty()) {
+                lists.put(length, new WordList(this.name, length, lengthWords, inputs.filterLength(length)));
+            }
+        }
+        this.wordLists.set(Map.copyOf(lists));
+    }
+
+    /**
+     * Decodes the downloaded word list
+     *
+     * @param in     The response body
+     * @param words  Receives the possible secret words
+     * @param inputs Receives the additionally allowed inputs
+     *
+     * @throws IOException If the response can't be read or decoded
+     */
+    protected abstract void parse(InputStream in, WordDictionary.Builder words, WordDictionary.Builder inputs) throws IOException;
+
+    @Override
+    public WordList getWordList(final int length) {
+        final WordList list = this.wordLists.get().get(length);
+        return list != null ? list : this.emptyLists.computeIfAbsent(length,
+                len -> new WordList(this.name, len, WordDictionary.EMPTY, WordDictionary.EMPTY));
+    }
+
+    @Override
+    public Set<Integer> getWordLengths() {
+        return this.wordLists.get().keySet();
+    }
+
+    @Override
+    public void close() throws Exception {
+        this.executorService.shutdown();
+    }
+
+}
@@ -0,0 +1,221 @@
+package dev.cerus.dwordle.word;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compressed set of the secret words a user has already played
+ * <p>
+ * Words are identified by their index in {@link WordList#getWords()}. Like a single Roaring
+ * container, the set is stored as a sorted char array while it is sparse and switches to a plain
+ * bitmap once that is smaller, so a user who played a handful of games costs a few bytes.
+ * <p>
+ * Not thread safe.
+ */
+public final class SeenWords {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final byte TYPE_ARRAY = 0;
+    private static final byte TYPE_BITMAP = 1;
+
+    private final long listVersion;
+    private final int size;
+    private char[] array;
+    private long[] bitmap;
+    private int cardinality;
+
+    /**
+     * @param listVersion The version of the word list the indices belong to
+     * @param size        The amount of secret words in the word list
+     */
+    public SeenWords(final long listVersion, final int size) {
+        if (size > Character.MAX_VALUE + 1) {
+            throw new IllegalArgumentException("Word list too large");
+        }
+        this.listVersion = listVersion;
+        this.size = size;
+        this.array = new char[0];
+    }
+
+    /**
+     * Deserializes a set
+     *
+     * @param data The serialized set
+     *
+     * @return The set or null if the data can't be read
+     */
+    public static SeenWords deserialize(final byte[] data) {
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                return null;
+            }
+            final SeenWords seen = new SeenWords(in.readLong(), in.readInt());
+            final byte type = in.readByte();
+            seen.cardinality = in.readInt();
+            if (type == TYPE_ARRAY) {
+                seen.array = new char[seen.cardinality];
+                for (int i = 0; i < seen.cardinality; i++) {
+                    seen.array[i] = in.readChar();
+                }
+            } else {
+                seen.array = null;
+                seen.bitmap = new long[bitmapLength(seen.size)];
+                for (int i = 0; i < seen.bitmap.length; i++) {
+                    seen.bitmap[i] = in.readLong();
+                }
+            }
+            return seen;
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    private static int bitmapLength(final int size) {
+        return (size + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Serializes this set
+     *
+     * @return The serialized set
+     */
+    public byte[] serialize() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(this.listVersion);
+            out.writeInt(this.size);
+            out.writeByte(this.bitmap == null ? TYPE_ARRAY : TYPE_BITMAP);
+            out.writeInt(this.cardinality);
+            if (this.bitmap == null) {
+                for (int i = 0; i < this.cardinality; i++) {
+                    out.writeChar(this.array[i]);
+                }
+            } else {
+                for (final long word : this.bitmap) {
+                    out.writeLong(word);
+                }
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Selects a random word that has not been seen and marks it as seen
+     * Starts over once every word was seen.
+     *
+     * @param random The random source
+     *
+     * @return The index of the selected word
+     */
+    public int pickUnseen(final Random random) {
+        if (this.cardinality >= this.size) {
+            this.clear();
+        }
+        final int index = this.selectUnseen(random.nextInt(this.size - this.cardinality));
+        this.add(index);
+        return index;
+    }
+
+    /**
+     * Finds the nth index that has not been seen
+     *
+     * @param rank n
+     *
+     * @return The index
+     */
+    private int selectUnseen(final int rank) {
+        if (this.bitmap == null) {
+            // Every seen index at or below the candidate pushes it one further
+            int candidate = rank;
+            for (int i = 0; i < this.cardinality && this.array[i] <= candidate; i++) {
+                candidate++;
+            }
+            return candidate;
+        }
+
+        int remaining = rank;
+        for (int i = 0; i < this.bitmap.length; i++) {
+            final long unseen = ~this.bitmap[i];
+            final int count = Long.bitCount(unseen);
+            if (remaining < count) {
+                long bits = unseen;
+                for (int j = 0; j < remaining; j++) {
+                    bits &= bits - 1;
+                }
+                return i * Long.SIZE + Long.numberOfTrailingZeros(bits);
+            }
+            remaining -= count;
+        }
+        throw new IllegalStateException("Rank out of bounds");
+    }
+
+    /**
+     * Marks an index as seen
+     *
+     * @param index The index
+     */
+    public void add(final int index) {
+        if (this.bitmap != null) {
+            final long mask = 1L << index;
+            if ((this.bitmap[index >>> 6] & mask) == 0) {
+                this.bitmap[index >>> 6] |= mask;
+                this.cardinality++;
+            }
+            return;
+        }
+
+        final int pos = Arrays.binarySearch(this.array, 0, this.cardinality, (char) index);
+        if (pos >= 0) {
+            return;
+        }
+        final int insert = -pos - 1;
+        if ((this.cardinality + 1) * Character.BYTES > bitmapLength(this.size) * Long.BYTES) {
+            // The array got larger than a bitmap would be
+            this.bitmap = new long[bitmapLength(this.size)];
+            for (int i = 0; i < this.cardinality; i++) {
+                this.bitmap[this.array[i] >>> 6] |= 1L << this.array[i];
+            }
+            this.array = null;
+            this.bitmap[index >>> 6] |= 1L << index;
+        } else {
+            if (this.cardinality == this.array.length) {
+                final int maxLength = bitmapLength(this.size) * Long.BYTES / Character.BYTES;
+                this.array = Arrays.copyOf(this.array, Math.min(maxLength, Math.max(4, this.cardinality * 2)));
+            }
+            System.arraycopy(this.array, insert, this.array, insert + 1, this.cardinality - insert);
+            this.array[insert] = (char) index;
+        }
+        this.cardinality++;
+    }
+
+    public void clear() {
+        this.array = new char[0];
+        this.bitmap = null;
+        this.cardinality = 0;
+    }
+
+    /**
+     * Checks if this set belongs to a word list
+     *
+     * @param wordList The word list
+     *
+     * @return True if the indices of this set refer to the word list
+     */
+    public boolean matches(final WordList wordList) {
+        return this.listVersion == wordList.getVersion() && this.size == wordList.getWords().size();
+    }
+
+    public int getCardinality() {
+        return this.cardinality;
+    }
+
+}
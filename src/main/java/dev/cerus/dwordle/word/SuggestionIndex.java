@@ -0,0 +1,218 @@
+package dev.cerus.dwordle.word;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Deletion neighborhood index over all valid guesses of a word list, used to suggest words for invalid inputs
+ * <p>
+ * Two words are at most {@link #MAX_DISTANCE} edits apart only if deleting at most that many letters
+ * from each of them yields a common variant. At build time every variant of every guess is packed
+ * into an int and stored together with the guess index as one long in a single sorted array (no
+ * per-word objects, ~1.6 MB for the official list). A lookup generates the few variants of the input,
+ * binary searches them and only verifies the hits with a real edit distance, which takes microseconds
+ * instead of scanning the whole list.
+ */
+public final class SuggestionIndex {
+
+    public static final int MAX_DISTANCE = 2;
+
+    private final WordDictionary words;
+    private final WordDictionary inputs;
+    private final long[] entries;
+
+    public SuggestionIndex(final WordDictionary words, final WordDictionary inputs) {
+        this.words = words;
+        this.inputs = inputs;
+
+        final int size = words.size() + inputs.size();
+        final long[] buffer = new long[size * variantCount(WordDictionary.MAX_LENGTH)];
+        final int[] letters = new int[WordDictionary.MAX_LENGTH];
+        int count = 0;
+        for (int guessIndex = 0; guessIndex < size; guessIndex++) {
+            final int packed = this.wordAt(guessIndex);
+            final int length = WordDictionary.length(packed);
+            for (int i = 0; i < length; i++) {
+                letters[i] = WordDictionary.letterAt(packed, i);
+            }
+            count = collectVariants(letters, length, guessIndex, buffer, count);
+        }
+
+        Arrays.sort(buffer, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || buffer[unique - 1] != buffer[i]) {
+                buffer[unique++] = buffer[i];
+            }
+        }
+        this.entries = Arrays.copyOf(buffer, unique);
+    }
+
+    /**
+     * Gets the amount of variants a word of the specified length has
+     *
+     * @param length The word length
+     *
+     * @return 1 + length + (length choose 2)
+     */
+    private static int variantCount(final int length) {
+        return 1 + length + length * (length - 1) / 2;
+    }
+
+    /**
+     * Writes all packable variants of a word with up to two deleted letters into a buffer
+     *
+     * @param letters The letters of the word
+     * @param length  The amount of letters
+     * @param value   The value stored in the lower 32 bits of every entry
+     * @param buffer  The buffer
+     * @param count   The current size of the buffer
+     *
+     * @return The new size of the buffer
+     */
+    private static int collectVariants(final int[] letters, final int length, final int value, final long[] buffer, int count) {
+        for (int first = -1; first < length; first++) {
+            for (int second = first; second < length; second++) {
+                if (second == first && first != -1) {
+                    continue;
+                }
+                final int variant = packVariant(letters, length, first, second);
+                if (variant != WordDictionary.INVALID) {
+                    buffer[count++] = ((long) variant << 32) | value;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Packs a word without the letters at two positions
+     *
+     * @param letters The letters of the word
+     * @param length  The amount of letters
+     * @param skipA   First position to skip or -1
+     * @param skipB   Second position to skip or -1
+     *
+     * @return The packed variant or {@link WordDictionary#INVALID}
+     */
+    private static int packVariant(final int[] letters, final int length, final int skipA, final int skipB) {
+        int packed = 0;
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            if (i == skipA || i == skipB) {
+                continue;
+            }
+            if (letters[i] == 0 || position >= WordDictionary.MAX_LENGTH) {
+                return WordDictionary.INVALID;
+            }
+            packed |= letters[i] << (position++ * WordDictionary.BITS_PER_LETTER);
+        }
+        // The empty word matches everything, we don't want that
+        return position == 0 ? WordDictionary.INVALID : packed;
+    }
+
+    /**
+     * Finds the closest words to an input
+     *
+     * @param input       The input
+     * @param maxDistance The maximum edit distance, at most {@link #MAX_DISTANCE}
+     * @param limit       The maximum amount of suggestions
+     *
+     * @return The closest words, nearest first
+     */
+    public List<String> suggest(final CharSequence input, final int maxDistance, final int limit) {
+        final int length = input.length();
+        if (this.entries.length == 0 || limit <= 0 || length > WordDictionary.MAX_LENGTH + MAX_DISTANCE) {
+            // Every word would be too far away
+            return Collections.emptyList();
+        }
+
+        final int[] letters = new int[length];
+        for (int i = 0; i < length; i++) {
+            letters[i] = WordDictionary.letterOf(input.charAt(i));
+        }
+        final long[] variants = new long[variantCount(length)];
+        final int variantCount = collectVariants(letters, length, 0, variants, 0);
+
+        // Collect every guess that shares a variant with the input
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+        for (int v = 0; v < variantCount; v++) {
+            final long key = variants[v] & 0xFFFFFFFF00000000L;
+            int index = Arrays.binarySearch(this.entries, key);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            for (; index < this.entries.length && (this.entries[index] & 0xFFFFFFFF00000000L) == key; index++) {
+                if (candidateCount == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                }
+                candidates[candidateCount++] = (int) this.entries[index];
+            }
+        }
+
+        // Verify the candidates and keep the closest ones, ties are ordered by guess index so secret words come first
+        Arrays.sort(candidates, 0, candidateCount);
+        final int[] scratch = new int[2 * (length + 1)];
+        final long[] results = new long[candidateCount];
+        int resultCount = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            if (i > 0 && candidates[i] == candidates[i - 1]) {
+                continue;
+            }
+            final int distance = distance(letters, length, this.wordAt(candidates[i]), scratch);
+            if (distance > 0 && distance <= maxDistance) {
+                results[resultCount++] = ((long) distance << 32) | candidates[i];
+            }
+        }
+        Arrays.sort(results, 0, resultCount);
+
+        final List<String> result = new ArrayList<>(Math.min(limit, resultCount));
+        for (int i = 0; i < resultCount && i < limit; i++) {
+            result.add(WordDictionary.unpack(this.wordAt((int) results[i])));
+        }
+        return result;
+    }
+
+    /**
+     * Levenshtein distance between a letter array and a packed word
+     *
+     * @param letters The letters ({@link WordDictionary#letterOf(char)})
+     * @param length  The amount of letters
+     * @param packed  The packed word
+     * @param scratch Two rows of at least length + 1 ints
+     *
+     * @return The edit distance
+     */
+    private static int distance(final int[] letters, final int length, final int packed, final int[] scratch) {
+        final int width = length + 1;
+        int prev = 0;
+        int cur = width;
+        for (int i = 0; i <= length; i++) {
+            scratch[prev + i] = i;
+        }
+
+        final int wordLength = WordDictionary.length(packed);
+        for (int j = 1; j <= wordLength; j++) {
+            final int letter = WordDictionary.letterAt(packed, j - 1);
+            scratch[cur] = j;
+            for (int i = 1; i <= length; i++) {
+                final int substitution = scratch[prev + i - 1] + (letters[i - 1] == letter ? 0 : 1);
+                final int deletion = scratch[prev + i] + 1;
+                final int insertion = scratch[cur + i - 1] + 1;
+                scratch[cur + i] = Math.min(substitution, Math.min(deletion, insertion));
+            }
+            final int tmp = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return scratch[prev + length];
+    }
+
+    private int wordAt(final int guessIndex) {
+        return guessIndex < this.words.size() ? this.words.get(guessIndex) : this.inputs.get(guessIndex - this.words.size());
+    }
+
+}
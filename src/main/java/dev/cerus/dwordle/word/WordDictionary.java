@@ -0,0 +1,290 @@
+package dev.cerus.dwordle.word;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Compact, immutable set of words
+ * <p>
+ * Every word is packed into a single int (5 bits per letter, 'a' = 1 ... 'z' = 26,
+ * first letter in the lowest bits) and all packed words are kept in one sorted int array.
+ * A list of ~13k words needs ~52 KB instead of several megabytes of String objects and
+ * lookups are a binary search that reads the input characters directly without allocating.
+ */
+public final class WordDictionary {
+
+    public static final int BITS_PER_LETTER = 5;
+    public static final int LETTER_MASK = (1 << BITS_PER_LETTER) - 1;
+    public static final int MAX_LENGTH = Integer.SIZE / BITS_PER_LETTER;
+    public static final int INVALID = -1;
+    public static final WordDictionary EMPTY = new WordDictionary(new int[0]);
+
+    private final int[] words;
+
+    private WordDictionary(final int[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Creates a dictionary from a collection of words
+     * Words that can't be packed are skipped.
+     *
+     * @param words The words
+     *
+     * @return A new dictionary
+     */
+    public static WordDictionary of(final Collection<? extends CharSequence> words) {
+        final Builder builder = new Builder(words.size());
+        for (final CharSequence word : words) {
+            builder.add(word);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a new dictionary builder
+     *
+     * @return A new builder
+     */
+    public static Builder builder() {
+        return new Builder(1024);
+    }
+
+    /**
+     * Packs a word into an int
+     * <p>
+     * Letters are case-insensitive. Returns {@link #INVALID} if the word is empty, longer than
+     * {@link #MAX_LENGTH} or contains anything besides the letters a-z.
+     *
+     * @param str The word
+     *
+     * @return The packed word or {@link #INVALID}
+     */
+    public static int pack(final CharSequence str) {
+        return pack(str, 0, str.length());
+    }
+
+    /**
+     * Packs a part of a char sequence into an int
+     *
+     * @param str  The char sequence
+     * @param from Start index (inclusive)
+     * @param to   End index (exclusive)
+     *
+     * @return The packed word or {@link #INVALID}
+     *
+     * @see #pack(CharSequence)
+     */
+    public static int pack(final CharSequence str, final int from, final int to) {
+        final int len = to - from;
+        if (len <= 0 || len > MAX_LENGTH) {
+            return INVALID;
+        }
+        int packed = 0;
+        for (int i = 0; i < len; i++) {
+            final int letter = letterOf(str.charAt(from + i));
+            if (letter == 0) {
+                return INVALID;
+            }
+            packed |= letter << (i * BITS_PER_LETTER);
+        }
+        return packed;
+    }
+
+    /**
+     * Converts a char into its packed letter value
+     *
+     * @param c The char
+     *
+     * @return 1 - 26 for a - z (case-insensitive), 0 for everything else
+     */
+    public static int letterOf(final char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Unpacks a packed word
+     *
+     * @param packed The packed word
+     *
+     * @return The lowercase word
+     */
+    public static String unpack(final int packed) {
+        final char[] chars = new char[length(packed)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' - 1 + letterAt(packed, i));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Gets the packed letter value at the specified position
+     *
+     * @param packed The packed word
+     * @param index  The position
+     *
+     * @return 1 - 26 for a - z, 0 if the word is shorter
+     */
+    public static int letterAt(final int packed, final int index) {
+        return (packed >>> (index * BITS_PER_LETTER)) & LETTER_MASK;
+    }
+
+    /**
+     * Gets the length of a packed word
+     *
+     * @param packed The packed word
+     *
+     * @return The amount of letters
+     */
+    public static int length(final int packed) {
+        return (Integer.SIZE - Integer.numberOfLeadingZeros(packed) + BITS_PER_LETTER - 1) / BITS_PER_LETTER;
+    }
+
+    /**
+     * Checks if this dictionary contains a word
+     *
+     * @param str The word (case-insensitive)
+     *
+     * @return True if the word is in this dictionary
+     */
+    public boolean contains(final CharSequence str) {
+        final int packed = pack(str);
+        return packed != INVALID && this.contains(packed);
+    }
+
+    /**
+     * Checks if this dictionary contains a packed word
+     *
+     * @param packed The packed word
+     *
+     * @return True if the word is in this dictionary
+     */
+    public boolean contains(final int packed) {
+        return this.indexOf(packed) >= 0;
+    }
+
+    /**
+     * Gets the index of a packed word
+     *
+     * @param packed The packed word
+     *
+     * @return The index or a negative value if this dictionary does not contain the word
+     */
+    public int indexOf(final int packed) {
+        return Arrays.binarySearch(this.words, packed);
+    }
+
+    /**
+     * Gets the packed word at the specified index
+     *
+     * @param index The index
+     *
+     * @return The packed word
+     */
+    public int get(final int index) {
+        return this.words[index];
+    }
+
+    /**
+     * Gets the unpacked word at the specified index
+     *
+     * @param index The index
+     *
+     * @return The word
+     */
+    public String getWord(final int index) {
+        return unpack(this.words[index]);
+    }
+
+    /**
+     * Creates a dictionary that only contains the words of a specific length
+     *
+     * @param length The word length
+     *
+     * @return A new dictionary
+     */
+    public WordDictionary filterLength(final int length) {
+        final Builder builder = new Builder(this.words.length);
+        for (final int word : this.words) {
+            if (length(word) == length) {
+                builder.add(word);
+            }
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return this.words.length;
+    }
+
+    public boolean isEmpty() {
+        return this.words.length == 0;
+    }
+
+    /**
+     * Collects packed words and turns them into a dictionary
+     */
+    public static final class Builder {
+
+        private int[] words;
+        private int size;
+
+        private Builder(final int capacity) {
+            this.words = new int[Math.max(16, capacity)];
+        }
+
+        /**
+         * Adds a word, ignores it if it can't be packed
+         *
+         * @param word The word
+         *
+         * @return This builder
+         */
+        public Builder add(final CharSequence word) {
+            return this.add(pack(word));
+        }
+
+        /**
+         * Adds a packed word, ignores {@link #INVALID}
+         *
+         * @param packed The packed word
+         *
+         * @return This builder
+         */
+        public Builder add(final int packed) {
+            if (packed == INVALID) {
+                return this;
+            }
+            if (this.size == this.words.length) {
+                this.words = Arrays.copyOf(this.words, this.size * 2);
+            }
+            this.words[this.size++] = packed;
+            return this;
+        }
+
+        /**
+         * Builds the dictionary. Duplicates are removed.
+         *
+         * @return A new dictionary
+         */
+        public WordDictionary build() {
+            final int[] sorted = Arrays.copyOf(this.words, this.size);
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (unique == 0 || sorted[unique - 1] != sorted[i]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            return new WordDictionary(unique == sorted.length ? sorted : Arrays.copyOf(sorted, unique));
+        }
+
+    }
+
+}
@@ -0,0 +1,174 @@
+package dev.cerus.dwordle.word;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable snapshot of the words of one length of a loaded word list
+ * <p>
+ * Word services publish a new snapshot whenever their list is (re)loaded. Readers never
+ * see a half loaded list and games keep using the snapshot they were started with.
+ */
+public final class WordList {
+
+    private static final int SUGGESTION_DISTANCE = 2;
+
+    private final String name;
+    private final int length;
+    private final WordDictionary words;
+    private final WordDictionary inputs;
+    private final long version;
+    private final SuggestionIndex suggestionIndex;
+
+    /**
+     * Creates a new word list snapshot
+     * This also builds the suggestion index, so this should not be called on an event thread.
+     *
+     * @param name   The name of the list
+     * @param length The length of all words in this list
+     * @param words  The possible secret words
+     * @param inputs The additionally allowed inputs
+     */
+    public WordList(final String name, final int length, final WordDictionary words, final WordDictionary inputs) {
+        this.name = name;
+        this.length = length;
+        this.words = words;
+        this.inputs = inputs;
+        this.version = computeVersion(words, inputs);
+        this.suggestionIndex = new SuggestionIndex(words, inputs);
+    }
+
+    /**
+     * Computes a 64 bit FNV-1a hash over the contents of both dictionaries
+     *
+     * @param words  The words
+     * @param inputs The inputs
+     *
+     * @return The hash
+     */
+    private static long computeVersion(final WordDictionary words, final WordDictionary inputs) {
+        long hash = 0xcbf29ce484222325L;
+        for (final WordDictionary dictionary : new WordDictionary[] {words, inputs}) {
+            for (int i = 0; i < dictionary.size(); i++) {
+                hash ^= dictionary.get(i);
+                hash *= 0x100000001b3L;
+            }
+            // Separate the dictionaries so moving a word from one to the other changes the version
+            hash ^= dictionary.size();
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Checks if a string is a valid input
+     *
+     * @param str The input to check
+     *
+     * @return True or false
+     */
+    public boolean isValidInput(final CharSequence str) {
+        return str.length() == this.length
+                && (this.inputs.contains(str) || this.words.contains(str));
+    }
+
+    /**
+     * Finds valid inputs that are similar to an invalid input
+     *
+     * @param str   The invalid input
+     * @param limit The maximum amount of suggestions
+     *
+     * @return The suggestions, most similar first
+     */
+    public List<String> suggest(final CharSequence str, final int limit) {
+        return this.suggestionIndex.suggest(str, SUGGESTION_DISTANCE, limit);
+    }
+
+    /**
+     * Selects a random secret word
+     *
+     * @return A secret word
+     */
+    public String getRandomSecretWord() {
+        return this.words.getWord(ThreadLocalRandom.current().nextInt(this.words.size()));
+    }
+
+    /**
+     * Gets the amount of possible guesses (words and inputs)
+     *
+     * @return The amount of guesses
+     */
+    public int getGuessCount() {
+        return this.words.size() + this.inputs.size();
+    }
+
+    /**
+     * Gets the packed guess at the specified guess index
+     * Guess indices start with all words followed by all inputs.
+     *
+     * @param index The guess index
+     *
+     * @return The packed guess
+     */
+    public int getGuess(final int index) {
+        return index < this.words.size() ? this.words.get(index) : this.inputs.get(index - this.words.size());
+    }
+
+    /**
+     * Gets the guess index of a packed word
+     *
+     * @param packed The packed word
+     *
+     * @return The guess index or -1 if the word is not a valid guess
+     *
+     * @see #getGuess(int)
+     */
+    public int guessIndexOf(final int packed) {
+        final int wordIndex = this.words.indexOf(packed);
+        if (wordIndex >= 0) {
+            return wordIndex;
+        }
+        final int inputIndex = this.inputs.indexOf(packed);
+        return inputIndex >= 0 ? this.words.size() + inputIndex : -1;
+    }
+
+    public boolean isEmpty() {
+        return this.words.isEmpty();
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+
+    /**
+     * Gets a key that identifies this list and its word length
+     *
+     * @return The key
+     */
+    public String getKey() {
+        return this.name + ":" + this.length;
+    }
+
+    /**
+     * Gets the version of this list
+     * The version is derived from the contents, two lists with the same words have the same version.
+     *
+     * @return The version
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    public WordDictionary getWords() {
+        return this.words;
+    }
+
+    public WordDictionary getInputs() {
+        return this.inputs;
+    }
+
+}
@@ -0,0 +1,149 @@
+package dev.cerus.dwordle.word;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A decoded word list persisted on the local disk
+ * <p>
+ * Snapshots store the packed words together with the HTTP validators (ETag and Last-Modified)
+ * of the response they were decoded from, so the remote can be asked if anything has changed.
+ */
+public final class WordListSnapshot {
+
+    private static final int MAGIC = 0x44574C53; // "DWLS"
+    private static final int FORMAT_VERSION = 1;
+
+    private final String etag;
+    private final String lastModified;
+    private final WordDictionary words;
+    private final WordDictionary inputs;
+
+    public WordListSnapshot(final String etag,
+                            final String lastModified,
+                            final WordDictionary words,
+                            final WordDictionary inputs) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.words = words;
+        this.inputs = inputs;
+    }
+
+    /**
+     * Gets the default snapshot file for a word list
+     * The directory can be changed with the WORD_CACHE_DIR environment variable.
+     *
+     * @param name The name of the word list
+     *
+     * @return The snapshot file
+     */
+    public static Path defaultFile(final String name) {
+        String dir = System.getenv("WORD_CACHE_DIR");
+        if (dir == null) {
+            dir = "./wordlists";
+        }
+        return Path.of(dir, name + ".snapshot");
+    }
+
+    /**
+     * Reads a snapshot
+     *
+     * @param file The snapshot file
+     *
+     * @return The snapshot or null if the file does not exist or was written in an unknown format
+     *
+     * @throws IOException If the file can't be read
+     */
+    public static WordListSnapshot read(final Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            final String etag = readNullableString(in);
+            final String lastModified = readNullableString(in);
+            final WordDictionary words = readDictionary(in);
+            final WordDictionary inputs = readDictionary(in);
+            return new WordListSnapshot(etag, lastModified, words, inputs);
+        }
+    }
+
+    private static String readNullableString(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static WordDictionary readDictionary(final DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        final WordDictionary.Builder builder = WordDictionary.builder();
+        for (int i = 0; i < size; i++) {
+            builder.add(in.readInt());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes this snapshot
+     * The file is replaced atomically, readers will never see a partially written snapshot.
+     *
+     * @param file The snapshot file
+     *
+     * @throws IOException If the file can't be written
+     */
+    public void write(final Path file) throws IOException {
+        final Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        final Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeNullableString(out, this.etag);
+                writeNullableString(out, this.lastModified);
+                writeDictionary(out, this.words);
+                writeDictionary(out, this.inputs);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeNullableString(final DataOutputStream out, final String str) throws IOException {
+        out.writeBoolean(str != null);
+        if (str != null) {
+            out.writeUTF(str);
+        }
+    }
+
+    private static void writeDictionary(final DataOutputStream out, final WordDictionary dictionary) throws IOException {
+        out.writeInt(dictionary.size());
+        for (int i = 0; i < dictionary.size(); i++) {
+            out.writeInt(dictionary.get(i));
+        }
+    }
+
+    public String getEtag() {
+        return this.etag;
+    }
+
+    public String getLastModified() {
+        return this.lastModified;
+    }
+
+    public WordDictionary getWords() {
+        return this.words;
+    }
+
+    public WordDictionary getInputs() {
+        return this.inputs;
+    }
+
+}
@@ -1,5 +1,7 @@
 package dev.cerus.dwordle.word;
 
+import dev.cerus.dwordle.Const;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -15,6 +17,42 @@ public interface WordService extends AutoCloseable {
      */
     CompletableFuture<Void> initialize();
 
+    /**
+     * Reloads the word list
+     * The current word list stays in use until the new one is completely loaded.
+     *
+     * @return A callback
+     */
+    CompletableFuture<Void> reload();
+
+    /**
+     * Gets the currently loaded words of a specific length
+     * The returned snapshot never changes, reloads publish a new snapshot instead.
+     *
+     * @param length The word length
+     *
+     * @return The current word list, empty if there are no words of that length
+     */
+    WordList getWordList(int length);
+
+    /**
+     * Gets all word lengths that currently have words
+     *
+     * @return The word lengths
+     */
+    Set<Integer> getWordLengths();
+
+    /**
+     * Gets the currently loaded words of the default length
+     *
+     * @return The current word list
+     *
+     * @see #getWordList(int)
+     */
+    default WordList getWordList() {
+        return this.getWordList(Const.WORD_LENGTH);
+    }
+
     /**
      * Checks if a string is a valid input
      *
@@ -22,13 +60,17 @@ public interface WordService extends AutoCloseable {
      *
      * @return True or false
      */
-    boolean isValidInput(String str);
+    default boolean isValidInput(final String str) {
+        return this.getWordList().isValidInput(str);
+    }
 
     /**
      * Selects a random secret word
      *
      * @return A secret word
      */
-    String getRandomSecretWord();
+    default String getRandomSecretWord() {
+        return this.getWordList().getRandomSecretWord();
+    }
 
 }
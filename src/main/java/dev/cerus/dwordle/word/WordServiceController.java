@@ -1,28 +1,81 @@
 package dev.cerus.dwordle.word;
 
-import java.util.HashMap;
+import dev.cerus.dwordle.Const;
+import dev.cerus.dwordle.Launcher;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class WordServiceController {
 
-    private final Map<String, WordService> wordServiceMap = new HashMap<>();
+    private final Map<String, WordService> wordServiceMap = new ConcurrentHashMap<>();
 
     public void registerWordService(final String name, final WordService wordService) {
         this.wordServiceMap.put(name, wordService);
     }
 
-    public boolean isValidInput(final String name, final String str) {
-        if (!this.wordServiceMap.containsKey(name)) {
+    /**
+     * Gets the current snapshot of a word list
+     *
+     * @param name   The word list name
+     * @param length The word length
+     *
+     * @return The word list
+     */
+    public WordList getWordList(final String name, final int length) {
+        final WordService service = this.wordServiceMap.get(name);
+        if (service == null) {
             throw new IllegalArgumentException("Unknown word service");
         }
-        return this.wordServiceMap.get(name).isValidInput(str);
+        return service.getWordList(length);
+    }
+
+    /**
+     * Gets the current snapshot of a word list with the default word length
+     *
+     * @param name The word list name
+     *
+     * @return The word list
+     */
+    public WordList getWordList(final String name) {
+        return this.getWordList(name, Const.WORD_LENGTH);
+    }
+
+    /**
+     * Gets the word lengths a word list has words for
+     *
+     * @param name The word list name
+     *
+     * @return The word lengths
+     */
+    public Set<Integer> getWordLengths(final String name) {
+        final WordService service = this.wordServiceMap.get(name);
+        return service == null ? Set.of() : service.getWordLengths();
+    }
+
+    public boolean isValidInput(final String name, final String str) {
+        return this.getWordList(name).isValidInput(str);
     }
 
     public String getRandomSecretWord(final String name) {
-        if (!this.wordServiceMap.containsKey(name)) {
-            throw new IllegalArgumentException("Unknown word service");
-        }
-        return this.wordServiceMap.get(name).getRandomSecretWord();
+        return this.getWordList(name).getRandomSecretWord();
+    }
+
+    /**
+     * Reloads all registered word lists
+     *
+     * @return A callback that completes when all word lists were reloaded
+     */
+    public CompletableFuture<Void> reloadAll() {
+        return CompletableFuture.allOf(this.wordServiceMap.entrySet().stream()
+                .map(entry -> entry.getValue().reload().whenComplete((unused, throwable) -> {
+                    if (throwable != null) {
+                        throwable.printStackTrace();
+                        Launcher.log("ERROR: Failed to reload word list " + entry.getKey());
+                    }
+                }))
+                .toArray(CompletableFuture[]::new));
     }
 
     public void close() throws Exception {
@@ -32,8 +85,17 @@ public class WordServiceController {
         this.wordServiceMap.clear();
     }
 
-    public boolean isValidWordList(String wordListName) {
-        return wordServiceMap.containsKey(wordListName);
+    public boolean isValidWordList(final String wordListName) {
+        return this.isValidWordList(wordListName, Const.WORD_LENGTH);
+    }
+
+    public boolean isValidWordList(final String wordListName, final int length) {
+        final WordService service = this.wordServiceMap.get(wordListName);
+        return service != null && !service.getWordList(length).isEmpty();
+    }
+
+    public Set<String> getWordListNames() {
+        return this.wordServiceMap.keySet();
     }
 
 }
@@ -1,117 +1,135 @@
 package dev.cerus.dwordle.word;
 
-import dev.cerus.dwordle.Const;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.List;
-import java.util.Random;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
 
 /**
  * Word service for the German Wordle clone wordle.at
  * <p>
  * https://wordle.at/
  */
-public class WordleAtWordService implements WordService {
+public class WordleAtWordService extends RemoteWordService {
 
     private static final String URL = "https://wordle.at/word-list.js";
+    // Line 1 contains the encoded inputs, line 2 the encoded words
+    private static final int INPUTS_LINE = 1;
+    private static final int WORDS_LINE = 2;
+    // The encoded strings are split into words of this length
+    private static final int ENCODED_WORD_LENGTH = 5;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    public WordleAtWordService() {
+        this("german", URL, WordListSnapshot.defaultFile("german"));
+    }
 
-    private final Random random = new Random();
-    private ExecutorService executorService;
-    private List<String> words;
-    private List<String> inputs;
+    public WordleAtWordService(final String name, final String url, final Path snapshotFile) {
+        super(name, url, snapshotFile);
+    }
 
     @Override
-    public CompletableFuture<Void> initialize() {
-        this.executorService = Executors.newSingleThreadScheduledExecutor();
-        this.inputs = new ArrayList<>();
-        this.words = new ArrayList<>();
-        final CompletableFuture<Void> future = new CompletableFuture<>();
-
-        this.executorService.execute(() -> {
-            final String response;
-            try {
-                final HttpURLConnection connection = (HttpURLConnection) new URL(URL).openConnection();
-                connection.setDoInput(true);
-
-                // Read response content
-                final StringBuilder builder = new StringBuilder();
-                final InputStream in = connection.getInputStream();
-                int b;
-                while ((b = in.read()) != -1) {
-                    builder.append((char) b);
+    protected void parse(final InputStream in, final WordDictionary.Builder words, final WordDictionary.Builder inputs) throws IOException {
+        final ReadableByteChannel channel = Channels.newChannel(in);
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        final Decoder decoder = new Decoder();
+        int line = 0;
+        boolean inString = false;
+        boolean lineDone = false;
+
+        while (line <= WORDS_LINE && channel.read(buffer) != -1) {
+            buffer.flip();
+            while (line <= WORDS_LINE && buffer.hasRemaining()) {
+                final byte b = buffer.get();
+                if (b == '\n') {
+                    if (inString) {
+                        throw new IOException("Malformed word list");
+                    }
+                    line++;
+                    lineDone = false;
+                } else if (line != INPUTS_LINE && line != WORDS_LINE || lineDone) {
+                    // Not interested in this part
+                    continue;
+                } else if (b == '"') {
+                    if (inString) {
+                        lineDone = true;
+                    } else {
+                        decoder.reset(line == WORDS_LINE ? words : inputs);
+                    }
+                    inString = !inString;
+                } else if (inString) {
+                    // Read as unsigned like InputStream.read() does, bytes above 127 are chars 128 - 255
+                    decoder.accept((char) (b & 0xFF));
                 }
-                response = builder.toString();
-            } catch (final IOException e) {
-                future.completeExceptionally(e);
-                return;
             }
+            buffer.compact();
+        }
 
-            try {
-                // Parse inputs and words
-                final String[] lines = response.split("\n");
-                final String encodedInputs = lines[1].substring(lines[1].indexOf("\"") + 1, lines[1].length() - 2);
-                final String encodedWords = lines[2].substring(lines[2].indexOf("\"") + 1, lines[2].length() - 2);
-
-                // Decode inputs and words
-                this.inputs.addAll(this.decode(encodedInputs));
-                this.words.addAll(this.decode(encodedWords));
-
-                future.complete(null);
-            } catch (final Exception e) {
-                e.printStackTrace();
-            }
-        });
-
-        return future;
+        if (line <= WORDS_LINE) {
+            throw new IOException("Malformed word list");
+        }
     }
 
     /**
-     * Decodes and splits encoded strings with the wordle.at algorithm
-     *
-     * @param input String to decode
-     *
-     * @return Decoded strings
+     * Decodes strings with the wordle.at algorithm and splits them into packed words
+     * <p>
+     * Every char is rotated by 7 times its (1-based) position in the string. The rotation is
+     * applied to one char at a time and the letters go straight into the packed word, so
+     * decoding does not allocate anything.
      */
-    private Collection<String> decode(final String input) {
-        final AtomicInteger inc = new AtomicInteger(1);
-        final String result = Arrays.stream(input.split(""))
-                .map(s -> String.valueOf((char) ((s.charAt(0) - 97 + 7 * inc.getAndIncrement()) % 26 + 65)))
-                .collect(Collectors.joining(""));
-
-        int index = 0;
-        final List<String> list = new ArrayList<>();
-        while (index < result.length()) {
-            list.add(result.substring(index, index + Const.WORD_LENGTH).toLowerCase());
-            index += Const.WORD_LENGTH;
+    static final class Decoder {
+
+        private WordDictionary.Builder out;
+        private int rotation;
+        private int packed;
+        private int length;
+        private boolean valid;
+
+        /**
+         * Starts decoding a new string
+         *
+         * @param out Receives the decoded words
+         */
+        void reset(final WordDictionary.Builder out) {
+            this.out = out;
+            this.rotation = 7;
+            this.packed = 0;
+            this.length = 0;
+            this.valid = true;
         }
-        return list;
-    }
 
-    @Override
-    public boolean isValidInput(final String str) {
-        return this.inputs.contains(str) || this.words.contains(str);
-    }
+        /**
+         * Decodes the next char of the string
+         *
+         * @param c The encoded char
+         */
+        void accept(final char c) {
+            // The original algorithm computes (c - 'a' + 7 * position) % 26, which is only negative (and
+            // not a letter) for chars below 'a' near the start of the string. The rotation is kept exact
+            // until the sum can't be negative anymore, from then on only its remainder matters.
+            final int letter = (c - 'a' + this.rotation) % 26;
+            this.rotation += 7;
+            if (this.rotation >= 'a' + 26) {
+                this.rotation -= 26;
+            }
+            if (letter < 0) {
+                this.valid = false;
+            } else {
+                this.packed |= (letter + 1) << (this.length * WordDictionary.BITS_PER_LETTER);
+            }
 
-    @Override
-    public String getRandomSecretWord() {
-        return this.words.get(this.random.nextInt(this.words.size()));
-    }
+            if (++this.length == ENCODED_WORD_LENGTH) {
+                if (this.valid) {
+                    this.out.add(this.packed);
+                }
+                this.packed = 0;
+                this.length = 0;
+                this.valid = true;
+            }
+        }
 
-    @Override
-    public void close() throws Exception {
-        this.words.clear();
-        this.inputs.clear();
-        this.executorService.shutdown();
     }
 
 }
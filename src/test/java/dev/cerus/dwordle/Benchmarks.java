@@ -0,0 +1,153 @@
+package dev.cerus.dwordle;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Minimal harness for the benchmarks in the test sources
+ * <p>
+ * Every benchmark is a class with a main method, run it with the test classpath, for example
+ * {@code java -cp target/classes:target/test-classes:<dependencies> dev.cerus.dwordle.word.WordleAtDecoderBenchmark}.
+ * A measured body runs a fixed amount of operations and returns a value that depends on all of
+ * them, so the JIT can't drop the work. Results are the median time and the allocated bytes per
+ * operation over all measured rounds.
+ * <p>
+ * A benchmark compares an implementation with the one it replaced, it checks that both give the
+ * same results before it measures them.
+ */
+public final class Benchmarks {
+
+    public static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+    private static final int ROUNDS = 3;
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int MEASURED_ROUNDS = 10;
+    // Written after every call of a body, so the results are never dead
+    private static long sink;
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Measures variants one after another, in a few rounds so later rounds show the results after the JIT settled
+     *
+     * @param variants The variants
+     */
+    public static void compare(final Variant... variants) {
+        for (int round = 0; round < ROUNDS; round++) {
+            for (final Variant variant : variants) {
+                run(variant.name, variant.operations, variant.body);
+            }
+        }
+    }
+
+    /**
+     * Creates a measured variant
+     *
+     * @param name       The name of the variant
+     * @param operations The amount of operations one call of the body runs
+     * @param body       Runs the operations
+     *
+     * @return The variant
+     */
+    public static Variant variant(final String name, final long operations, final LongSupplier body) {
+        return new Variant(name, operations, body);
+    }
+
+    /**
+     * Draws distinct random words of lowercase letters
+     *
+     * @param random The random
+     * @param count  The amount of words
+     * @param length The word length
+     *
+     * @return The words in the order they were drawn
+     */
+    public static List<String> randomWords(final Random random, final int count, final int length) {
+        return randomWords(random, count, length, ALPHABET, Set.of());
+    }
+
+    /**
+     * Draws distinct random words
+     *
+     * @param random  The random
+     * @param count   The amount of words
+     * @param length  The word length
+     * @param letters The letters to draw from, a letter that appears more often is drawn more often
+     * @param exclude Words that must not be drawn
+     *
+     * @return The words in the order they were drawn
+     */
+    public static List<String> randomWords(final Random random, final int count, final int length,
+                                           final String letters, final Set<String> exclude) {
+        final Set<String> words = new LinkedHashSet<>();
+        final char[] word = new char[length];
+        while (words.size() < count) {
+            for (int i = 0; i < length; i++) {
+                word[i] = letters.charAt(random.nextInt(letters.length()));
+            }
+            final String str = new String(word);
+            if (!exclude.contains(str)) {
+                words.add(str);
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    /**
+     * Warms up and measures a body, prints the result
+     */
+    private static void run(final String name, final long operations, final LongSupplier body) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += body.getAsLong();
+        }
+        final long[] nanos = new long[MEASURED_ROUNDS];
+        long allocated = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            final long bytes = allocatedBytes();
+            final long start = System.nanoTime();
+            sink += body.getAsLong();
+            nanos[i] = System.nanoTime() - start;
+            allocated += allocatedBytes() - bytes;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-40s %12.1f ns/op %12.1f B/op%n", name,
+                (double) nanos[MEASURED_ROUNDS / 2] / operations,
+                (double) allocated / MEASURED_ROUNDS / operations);
+    }
+
+    /**
+     * Gets the bytes the current thread allocated so far
+     *
+     * @return The bytes or 0 if the JVM doesn't count them
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean) {
+            return bean.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * A measured implementation
+     */
+    public static final class Variant {
+
+        private final String name;
+        private final long operations;
+        private final LongSupplier body;
+
+        private Variant(final String name, final long operations, final LongSupplier body) {
+            this.name = name;
+            this.operations = operations;
+            this.body = body;
+        }
+
+    }
+
+}
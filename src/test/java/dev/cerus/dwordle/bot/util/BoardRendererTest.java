@@ -0,0 +1,126 @@
+package dev.cerus.dwordle.bot.util;
+
+import static dev.cerus.dwordle.Const.EMOTE_ARROW_RIGHT;
+import static dev.cerus.dwordle.Const.EMOTE_BLUE;
+import static dev.cerus.dwordle.Const.EMOTE_GRAY;
+import static dev.cerus.dwordle.Const.EMOTE_GREEN;
+import static dev.cerus.dwordle.Const.EMOTE_YELLOW;
+import static dev.cerus.dwordle.Const.NUMBER_EMOTES;
+import static dev.cerus.dwordle.Const.TIMEOUT;
+import static org.junit.jupiter.api.Assertions.fail;
+import dev.cerus.dwordle.Benchmarks;
+import dev.cerus.dwordle.game.WordleGame;
+import dev.cerus.dwordle.word.WordDictionary;
+import dev.cerus.dwordle.word.WordList;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the board messages with the output of the string builder renderer that MessageUtil used before
+ * <p>
+ * The old renderer is kept here as the reference. Games are played with random guesses, every
+ * board of every game is rendered by both.
+ */
+public class BoardRendererTest {
+
+    private static final int GAMES_PER_SIZE = 50;
+
+    @Test
+    public void startedBoardMatchesOldRenderer() {
+        final Random random = new Random(1);
+        for (int length = 4; length <= 6; length++) {
+            for (int tries = 1; tries <= WordleGame.maxTries(length); tries++) {
+                final long userId = random.nextLong() & Long.MAX_VALUE;
+                assertSameBytes(oldStarted(userId, length, tries), BoardRenderer.renderStarted(userId, length, tries));
+            }
+        }
+    }
+
+    @Test
+    public void runningAndEndedBoardsMatchOldRenderer() {
+        final Random random = new Random(2);
+        for (int length = 4; length <= 6; length++) {
+            // Words of a few letters, so guesses often share letters with the secret word
+            final List<String> words = Benchmarks.randomWords(random, 200, length, "abcdef", Set.of());
+            final WordList wordList = new WordList("test", length, WordDictionary.of(words), WordDictionary.EMPTY);
+            for (int tries = 1; tries <= WordleGame.maxTries(length); tries++) {
+                for (int i = 0; i < GAMES_PER_SIZE; i++) {
+                    final long userId = random.nextLong() & Long.MAX_VALUE;
+                    final WordleGame game = new WordleGame(wordList, words.get(random.nextInt(words.size())), tries, null);
+                    while (true) {
+                        assertSameBytes(oldUpdate(userId, game), BoardRenderer.renderUpdate(userId, game));
+                        assertSameBytes(oldEnded(userId, game), BoardRenderer.renderEnded(userId, game));
+                        if (game.isDone() || game.isAtEnd()) {
+                            break;
+                        }
+                        game.handleInput(random.nextInt(4) == 0 ? game.getSecretWord() : words.get(random.nextInt(words.size())));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertSameBytes(final String expected, final String actual) {
+        if (!Arrays.equals(expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8))) {
+            fail("Expected\n" + expected + "\nbut was\n" + actual);
+        }
+    }
+
+    private static String oldStarted(final long userId, final int wordLength, final int maxTries) {
+        final StringBuilder msgBuilder = new StringBuilder("<@!" + userId + ">\n\n");
+        for (int i = 0; i < maxTries; i++) {
+            final boolean start = i == 0;
+            msgBuilder.append(start ? EMOTE_ARROW_RIGHT : EMOTE_BLUE).append("  ")
+                    .append(EMOTE_GRAY.repeat(wordLength)).append("  ")
+                    .append(NUMBER_EMOTES[i]).append("\n");
+        }
+        msgBuilder.append("\nYou can start guessing by replying to this message with your guess. "
+                + "The game will automatically end if you don't guess for " + TIMEOUT + " minutes.");
+        return msgBuilder.toString();
+    }
+
+    private static String oldEnded(final long userId, final WordleGame game) {
+        final StringBuilder msgBuilder = new StringBuilder("<@!").append(userId).append(">\n\n");
+        appendOldGrid(msgBuilder, game);
+        msgBuilder.append("\nThe game has ended");
+        return msgBuilder.toString();
+    }
+
+    private static String oldUpdate(final long userId, final WordleGame game) {
+        final StringBuilder wordleGridBuilder = new StringBuilder();
+        appendOldGrid(wordleGridBuilder, game);
+        final String status;
+        if (game.isDone()) {
+            status = "You found the word! :partying_face: The word was `" + game.getSecretWord() + "`";
+        } else if (game.isAtEnd()) {
+            status = "You did not find the word in time :disappointed: The word was `" + game.getSecretWord() + "`";
+        } else {
+            final int triesLeft = game.getMaxTries() - game.getTries();
+            status = triesLeft + (triesLeft == 1 ? " try" : " tries") + " left";
+        }
+        return "<@!" + userId + ">\n\n" + wordleGridBuilder + "\n" + status;
+    }
+
+    private static void appendOldGrid(final StringBuilder builder, final WordleGame game) {
+        for (int row = 0; row < game.getMaxTries(); row++) {
+            builder.append(row == game.getTries() ? EMOTE_ARROW_RIGHT : EMOTE_BLUE).append("  ");
+            for (int col = 0; col < game.getWordLength(); col++) {
+                builder.append(switch (game.getState(row, col)) {
+                    case WordleGame.YELLOW -> EMOTE_YELLOW;
+                    case WordleGame.GREEN -> EMOTE_GREEN;
+                    default -> EMOTE_GRAY;
+                });
+            }
+            builder.append("  ").append(NUMBER_EMOTES[row]);
+            if (game.getInput(row) != null) {
+                builder.append("  '").append(game.getInput(row)).append("'");
+            }
+            builder.append("\n");
+        }
+    }
+
+}
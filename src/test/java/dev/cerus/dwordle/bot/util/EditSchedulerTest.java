@@ -0,0 +1,203 @@
+package dev.cerus.dwordle.bot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the edit scheduler against a sink that records the edits instead of sending them
+ */
+public class EditSchedulerTest {
+
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+    private EditScheduler scheduler;
+
+    @AfterEach
+    public void tearDown() {
+        if (this.scheduler != null) {
+            this.scheduler.close();
+        }
+    }
+
+    @Test
+    public void editsWaitForTheEditInFlightAndAreCoalesced() throws InterruptedException {
+        this.scheduler = new EditScheduler((channel, messageId, content, callback) ->
+                this.requests.add(new Request(messageId, content, callback)), 10, 1000);
+        final MessageChannel channel = channel(1);
+
+        this.scheduler.edit(channel, 100, "1", false);
+        this.await(() -> this.requests.size() == 1);
+        this.scheduler.edit(channel, 100, "2", false);
+        this.scheduler.edit(channel, 100, "3", false);
+        this.scheduler.edit(channel, 100, "4", false);
+        Thread.sleep(100);
+        assertEquals(1, this.requests.size(), "The message already has an edit in flight");
+        assertEquals(2, this.scheduler.getDropped());
+
+        this.requests.get(0).callback.run();
+        this.await(() -> this.requests.size() == 2);
+        assertEquals("4", this.requests.get(1).content);
+
+        this.requests.get(1).callback.run();
+        Thread.sleep(100);
+        assertEquals(2, this.requests.size());
+        assertEquals(0, this.scheduler.getDepth());
+    }
+
+    @Test
+    public void editsOfOtherMessagesAreNotBlocked() {
+        this.scheduler = new EditScheduler((channel, messageId, content, callback) ->
+                this.requests.add(new Request(messageId, content, callback)), 10, 1000);
+        final MessageChannel channel = channel(1);
+
+        this.scheduler.edit(channel, 100, "a", false);
+        this.scheduler.edit(channel, 200, "b", false);
+        this.scheduler.edit(channel(2), 300, "c", false);
+        this.await(() -> this.requests.size() == 3);
+    }
+
+    @Test
+    public void bucketLimitsEditsPerChannel() throws InterruptedException {
+        this.scheduler = new EditScheduler((channel, messageId, content, callback) -> {
+            this.requests.add(new Request(messageId, content, callback));
+            callback.run();
+        }, 2, 500);
+        final MessageChannel channel = channel(1);
+
+        for (int i = 0; i < 5; i++) {
+            this.scheduler.edit(channel, 100 + i, "edit", false);
+        }
+        Thread.sleep(100);
+        assertEquals(2, this.requests.size(), "Only the burst is sent right away");
+        this.await(() -> this.requests.size() == 5);
+    }
+
+    @Test
+    public void priorityEditsAreSentFirst() {
+        this.scheduler = new EditScheduler((channel, messageId, content, callback) -> {
+            this.requests.add(new Request(messageId, content, callback));
+            callback.run();
+        }, 1, 200);
+        final MessageChannel channel = channel(1);
+
+        this.scheduler.edit(channel, 100, "first", false);
+        this.await(() -> this.requests.size() == 1);
+        // The bucket is empty now, both have to wait
+        this.scheduler.edit(channel, 200, "normal", false);
+        this.scheduler.edit(channel, 300, "priority", true);
+        this.await(() -> this.requests.size() == 3);
+        assertEquals("first", this.requests.get(0).content);
+        assertEquals("priority", this.requests.get(1).content);
+        assertEquals("normal", this.requests.get(2).content);
+    }
+
+    @Test
+    public void concurrentEditsKeepOneRequestInFlightPerMessage() throws InterruptedException {
+        final int messages = 16;
+        final int editsPerMessage = 500;
+        final ScheduledExecutorService discord = Executors.newScheduledThreadPool(2);
+        final Map<Long, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        final Map<Long, String> delivered = new ConcurrentHashMap<>();
+        final AtomicInteger violations = new AtomicInteger();
+        this.scheduler = new EditScheduler((channel, messageId, content, callback) -> {
+            if (inFlight.computeIfAbsent(messageId, id -> new AtomicInteger()).incrementAndGet() > 1) {
+                violations.incrementAndGet();
+            }
+            this.requests.add(new Request(messageId, content, callback));
+            // Requests take a while, the callbacks arrive on other threads
+            discord.schedule(() -> {
+                delivered.put(messageId, content);
+                inFlight.get(messageId).decrementAndGet();
+                callback.run();
+            }, ThreadLocalRandom.current().nextInt(1000), TimeUnit.MICROSECONDS);
+        }, 5, 1);
+
+        // Every message is edited by its own thread, so its last edit is known
+        final List<Thread> threads = new ArrayList<>();
+        for (int m = 0; m < messages; m++) {
+            final long messageId = 1000 + m;
+            final MessageChannel channel = channel(m % 4);
+            final Thread thread = new Thread(() -> {
+                for (int i = 1; i <= editsPerMessage; i++) {
+                    this.scheduler.edit(channel, messageId, String.valueOf(i), i == editsPerMessage);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        try {
+            this.await(() -> delivered.size() == messages && delivered.values().stream()
+                    .allMatch(content -> content.equals(String.valueOf(editsPerMessage))));
+            assertEquals(0, violations.get(), "A message had more than one edit in flight");
+            assertEquals(0, this.scheduler.getDepth());
+            assertEquals(this.requests.size(), this.scheduler.getSent());
+            assertEquals((long) messages * editsPerMessage, this.scheduler.getSent() + this.scheduler.getDropped(),
+                    "Every edit is either sent or replaced");
+            assertTrue(this.scheduler.getDropped() > 0, "Nothing was coalesced");
+        } finally {
+            discord.shutdownNow();
+        }
+    }
+
+    private void await(final BooleanSupplier condition) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out, requests: " + this.requests);
+            try {
+                Thread.sleep(5);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static MessageChannel channel(final long channelId) {
+        return (MessageChannel) Proxy.newProxyInstance(MessageChannel.class.getClassLoader(), new Class<?>[] {MessageChannel.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getIdLong" -> channelId;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "Channel " + channelId;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static final class Request {
+
+        private final long messageId;
+        private final String content;
+        private final Runnable callback;
+
+        private Request(final long messageId, final String content, final Runnable callback) {
+            this.messageId = messageId;
+            this.content = content;
+            this.callback = callback;
+        }
+
+        @Override
+        public String toString() {
+            return this.messageId + ": " + this.content;
+        }
+
+    }
+
+}
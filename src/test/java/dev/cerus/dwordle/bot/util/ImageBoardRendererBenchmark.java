@@ -0,0 +1,156 @@
+package dev.cerus.dwordle.bot.util;
+
+import dev.cerus.dwordle.Benchmarks;
+import dev.cerus.dwordle.game.WordleGame;
+import dev.cerus.dwordle.word.WordDictionary;
+import dev.cerus.dwordle.word.WordList;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javax.imageio.ImageIO;
+
+/**
+ * Renders game boards with the tile atlas of {@link ImageBoardRenderer} and with Java2D and ImageIO
+ * <p>
+ * The Java2D renderer draws every tile of every board and encodes it with {@link ImageIO}, the way a
+ * board would be rendered without the atlas. Boards are five letter games with six tries and a
+ * random amount of guesses. The images of both renderers have to be equal pixel by pixel.
+ */
+public final class ImageBoardRendererBenchmark {
+
+    private static final int GAMES = 500;
+    private static final int TILE = 56;
+    private static final int GAP = 6;
+    private static final int PADDING = 10;
+    private static final Color BACKGROUND = new Color(0x121213);
+    private static final Color BORDER = new Color(0x3A3A3C);
+    private static final Color BORDER_CURRENT = new Color(0x818384);
+    private static final Color[] STATE_COLORS = {new Color(0x3A3A3C), new Color(0xB59F3B), new Color(0x538D4E)};
+
+    private ImageBoardRendererBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        ImageBoardRenderer.initialize();
+        final List<WordleGame> games = games(new Random(1));
+
+        for (final WordleGame game : games) {
+            final BufferedImage expected = decode(java2d(game));
+            final BufferedImage actual = decode(ImageBoardRenderer.render(game));
+            if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+                throw new IllegalStateException("The boards have different sizes");
+            }
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                        throw new IllegalStateException("The boards differ at " + x + ", " + y);
+                    }
+                }
+            }
+        }
+
+        Benchmarks.compare(
+                Benchmarks.variant("java2d and imageio (per board)", GAMES, () -> {
+                    long sum = 0;
+                    for (final WordleGame game : games) {
+                        sum += java2d(game).length;
+                    }
+                    return sum;
+                }),
+                Benchmarks.variant("atlas (per board)", GAMES, () -> {
+                    long sum = 0;
+                    for (final WordleGame game : games) {
+                        sum += ImageBoardRenderer.render(game).length;
+                    }
+                    return sum;
+                }));
+    }
+
+    private static List<WordleGame> games(final Random random) {
+        final List<String> wordList = Benchmarks.randomWords(random, 2000, 5);
+        final WordList list = new WordList("benchmark", 5, WordDictionary.of(wordList), WordDictionary.EMPTY);
+
+        final List<WordleGame> games = new ArrayList<>(GAMES);
+        for (int i = 0; i < GAMES; i++) {
+            final WordleGame game = new WordleGame(list, wordList.get(random.nextInt(wordList.size())), 6, null);
+            final int guesses = random.nextInt(7);
+            for (int j = 0; j < guesses && !game.isDone() && !game.isAtEnd(); j++) {
+                game.handleInput(wordList.get(random.nextInt(wordList.size())));
+            }
+            games.add(game);
+        }
+        return games;
+    }
+
+    /**
+     * Draws every tile with Java2D, the same way the atlas tiles are drawn, and encodes the board with ImageIO
+     */
+    private static byte[] java2d(final WordleGame game) {
+        final int width = size(game.getWordLength());
+        final int height = size(game.getMaxTries());
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        final Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, TILE * 3 / 5));
+        graphics.setStroke(new BasicStroke(2));
+        final FontMetrics metrics = graphics.getFontMetrics();
+        graphics.setColor(BACKGROUND);
+        graphics.fillRect(0, 0, width, height);
+
+        for (int row = 0; row < game.getMaxTries(); row++) {
+            for (int col = 0; col < game.getWordLength(); col++) {
+                final int left = PADDING + col * (TILE + GAP);
+                final int top = PADDING + row * (TILE + GAP);
+                // Atlas tiles are drawn on an image of one tile, so the antialiased border can't reach the gaps
+                graphics.setClip(left, top, TILE, TILE);
+                if (row < game.getTries()) {
+                    graphics.setColor(STATE_COLORS[game.getState(row, col)]);
+                    graphics.fillRect(left, top, TILE, TILE);
+                    final String text = String.valueOf(Character.toUpperCase(game.getInput(row).charAt(col)));
+                    graphics.setColor(Color.WHITE);
+                    graphics.drawString(text, left + (TILE - metrics.stringWidth(text)) / 2,
+                            top + (TILE - metrics.getHeight()) / 2 + metrics.getAscent());
+                } else {
+                    graphics.setColor(BACKGROUND);
+                    graphics.fillRect(left, top, TILE, TILE);
+                    graphics.setColor(row == game.getTries() ? BORDER_CURRENT : BORDER);
+                    graphics.drawRect(left + 1, top + 1, TILE - 2, TILE - 2);
+                }
+            }
+        }
+        graphics.dispose();
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static int size(final int tiles) {
+        return PADDING * 2 + tiles * TILE + (tiles - 1) * GAP;
+    }
+
+    private static BufferedImage decode(final byte[] png) {
+        try {
+            return ImageIO.read(new ByteArrayInputStream(png));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package dev.cerus.dwordle.game;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import dev.cerus.dwordle.stats.StatsService;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the stats in memory
+ */
+final class CountingStatsService implements StatsService {
+
+    final AtomicLong played = new AtomicLong();
+    final AtomicLong won = new AtomicLong();
+    final AtomicLong lost = new AtomicLong();
+    private final Map<String, byte[]> seenWords = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @Override
+    public void initialize(final ExecutorService exec) {
+        this.executor = exec;
+    }
+
+    /**
+     * Waits until all queued operations are done
+     */
+    void awaitWrites() throws InterruptedException {
+        this.executor.shutdown();
+        assertTrue(this.executor.awaitTermination(1, TimeUnit.MINUTES), "Stats were not written in time");
+    }
+
+    @Override
+    public void gamePlayed(final long userId) {
+        this.played.incrementAndGet();
+    }
+
+    @Override
+    public void gameWon(final long userId) {
+        this.won.incrementAndGet();
+    }
+
+    @Override
+    public void gameLost(final long userId) {
+        this.lost.incrementAndGet();
+    }
+
+    @Override
+    public CompletableFuture<Void> exec(final Runnable run) {
+        return CompletableFuture.runAsync(run, this.executor);
+    }
+
+    @Override
+    public CompletableFuture<Long> get(final Supplier<Long> func) {
+        return CompletableFuture.supplyAsync(func, this.executor);
+    }
+
+    @Override
+    public long getAmountTotalGamesPlayed() {
+        return this.played.get();
+    }
+
+    @Override
+    public long getAmountTotalGamesPlayed(final long userId) {
+        return 0;
+    }
+
+    @Override
+    public long getAmountTotalGamesWon() {
+        return this.won.get();
+    }
+
+    @Override
+    public long getAmountTotalGamesWon(final long userId) {
+        return 0;
+    }
+
+    @Override
+    public long getAmountTotalGamesLost() {
+        return this.lost.get();
+    }
+
+    @Override
+    public long getAmountTotalGamesLost(final long userId) {
+        return 0;
+    }
+
+    @Override
+    public byte[] getSeenWords(final long userId, final String wordList) {
+        return this.seenWords.get(userId + ":" + wordList);
+    }
+
+    @Override
+    public void setSeenWords(final long userId, final String wordList, final byte[] data) {
+        this.seenWords.put(userId + ":" + wordList, data);
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
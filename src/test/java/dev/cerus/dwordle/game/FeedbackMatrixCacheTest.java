@@ -0,0 +1,108 @@
+package dev.cerus.dwordle.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import dev.cerus.dwordle.word.WordDictionary;
+import dev.cerus.dwordle.word.WordList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Reloads a word list while games of the previous version are running
+ */
+public class FeedbackMatrixCacheTest {
+
+    private final WordList previous = list("test", "crane", "slate", "pious");
+    private final WordList current = list("test", "crane", "slate", "pious", "moldy");
+    private final WordList other = list("other", "crane", "slate");
+    @TempDir
+    Path dir;
+    private FeedbackMatrixCache cache;
+
+    private static WordList list(final String name, final String... words) {
+        return new WordList(name, 5, WordDictionary.of(List.of(words)), WordDictionary.EMPTY);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        this.cache = new FeedbackMatrixCache(this.dir);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.cache.close();
+    }
+
+    @Test
+    public void newVersionReplacesPrevious() throws Exception {
+        final FeedbackMatrix previousMatrix = this.await(this.previous);
+        final WordleGame game = new WordleGame(this.previous, "crane", 6, previousMatrix);
+        this.await(this.other);
+        this.await(this.current);
+
+        assertNull(this.cache.getLoaded(this.previous), "The previous version is still cached");
+        assertEquals(List.of(this.file(this.other), this.file(this.current)), this.files());
+
+        // The running game keeps its matrix
+        assertSame(previousMatrix, game.getFeedbackMatrix());
+        game.handleInput("slate");
+        assertEquals(WordleGame.score(WordDictionary.pack("crane"), WordDictionary.pack("slate")), game.getPattern(0));
+    }
+
+    @Test
+    public void hintForPreviousVersionDoesNotLoadIt() throws Exception {
+        this.await(this.previous);
+        final WordleGame game = new WordleGame(this.previous, "crane", 6, null);
+        this.await(this.current);
+
+        try (final HintSolver solver = new HintSolver(1, this.cache)) {
+            game.handleInput("pious");
+            assertEquals("crane", solver.hint(game).get(5, TimeUnit.SECONDS).getWord());
+        }
+        // Loads run one after another, the previous version would have been loaded before this
+        this.await(this.other);
+        assertNull(this.cache.getLoaded(this.previous));
+        assertFalse(this.files().contains(this.file(this.previous)), "The previous version was loaded again");
+        assertNotNull(this.cache.getLoaded(this.current));
+    }
+
+    private FeedbackMatrix await(final WordList wordList) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            final FeedbackMatrix matrix = this.cache.get(wordList);
+            if (matrix != null) {
+                return matrix;
+            }
+            Thread.sleep(10);
+        }
+        fail("The matrix of " + wordList.getKey() + " was not loaded");
+        return null;
+    }
+
+    private String file(final WordList wordList) {
+        return wordList.getName() + "-5-" + Long.toHexString(wordList.getVersion()) + ".fbm";
+    }
+
+    private List<String> files() throws IOException {
+        try (final Stream<Path> files = Files.list(this.dir)) {
+            final List<String> names = files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+            assertTrue(names.stream().allMatch(name -> name.endsWith(".fbm")));
+            return names;
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package dev.cerus.dwordle.game;
+
+import dev.cerus.dwordle.word.WordDictionary;
+import dev.cerus.dwordle.word.WordList;
+import dev.cerus.dwordle.word.WordService;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A word service with a single fixed word list
+ */
+final class FixedWordService implements WordService {
+
+    private final WordList wordList;
+
+    FixedWordService(final WordList wordList) {
+        this.wordList = wordList;
+    }
+
+    @Override
+    public CompletableFuture<Void> initialize() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> reload() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public WordList getWordList(final int length) {
+        return length == this.wordList.getLength() ? this.wordList
+                : new WordList(this.wordList.getName(), length, WordDictionary.EMPTY, WordDictionary.EMPTY);
+    }
+
+    @Override
+    public Set<Integer> getWordLengths() {
+        return Set.of(this.wordList.getLength());
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
@@ -0,0 +1,216 @@
+package dev.cerus.dwordle.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import dev.cerus.dwordle.word.WordDictionary;
+import dev.cerus.dwordle.word.WordList;
+import dev.cerus.dwordle.word.WordServiceController;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.entities.PrivateChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Restores a game whose private channel is not cached
+ * <p>
+ * The channel must not be opened at startup. It is taken from the first reply, or opened once the
+ * game needs it, and the board shown in it has to be the current one.
+ */
+public class GameRestoreTest {
+
+    private static final String WORD_LIST = "restore";
+    private static final long USER = 10;
+    private static final long CHANNEL = 20;
+    private static final long MESSAGE = 30;
+
+    private final Queue<Consumer<Object>> opens = new ConcurrentLinkedQueue<>();
+    private final Queue<String> edits = new ConcurrentLinkedQueue<>();
+    @TempDir
+    Path dir;
+    private CountingStatsService statsService;
+    private SecretSelector secretSelector;
+    private GameJournal journal;
+    private FeedbackMatrixCache feedbackMatrixCache;
+    private GameController controller;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        final WordList wordList = new WordList(WORD_LIST, 5, WordDictionary.of(List.of("crane", "slate", "pious", "moldy")),
+                WordDictionary.EMPTY);
+        final WordServiceController wordServiceController = new WordServiceController();
+        wordServiceController.registerWordService(WORD_LIST, new FixedWordService(wordList));
+
+        // A game with one guess that was running when the bot stopped
+        final GameJournal previous = new GameJournal(this.dir.resolve("journal"));
+        previous.open();
+        previous.started(USER, CHANNEL, WORD_LIST, 5, 6, WordDictionary.pack("crane"));
+        previous.messageSent(USER, MESSAGE);
+        previous.guessed(USER, WordDictionary.pack("slate"));
+        previous.close();
+
+        this.statsService = new CountingStatsService();
+        this.statsService.initialize(Executors.newSingleThreadExecutor());
+        this.secretSelector = new SecretSelector(this.statsService);
+        this.journal = new GameJournal(this.dir.resolve("journal"));
+        final List<GameJournal.Entry> entries = this.journal.open();
+        this.feedbackMatrixCache = new FeedbackMatrixCache(this.dir.resolve("matrices"));
+        this.controller = new GameController(wordServiceController, this.statsService, this.feedbackMatrixCache,
+                this.secretSelector, this.journal, false);
+        assertEquals(1, this.controller.restore(entries, this.jda()));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        this.controller.close();
+        this.secretSelector.close();
+        this.journal.close();
+        this.feedbackMatrixCache.close();
+        this.statsService.awaitWrites();
+    }
+
+    @Test
+    public void replyProvidesTheChannel() throws Exception {
+        assertTrue(this.opens.isEmpty(), "The channel was opened at startup");
+
+        this.controller.handleInput(USER, this.channel(CHANNEL), "pious");
+        this.awaitEdit("'pious'");
+        assertTrue(this.edits.peek().contains("'slate'"), "The restored guess is missing");
+        assertTrue(this.opens.isEmpty(), "The channel was opened although the reply provided it");
+    }
+
+    @Test
+    public void guessWithoutChannelShowsBoardOnceChannelIsOpen() throws Exception {
+        this.controller.handleInput(USER, null, "pious");
+        this.controller.handleInput(USER, null, "moldy");
+        assertEquals(1, this.opens.size(), "The channel has to be opened once");
+        assertTrue(this.edits.isEmpty());
+
+        this.opens.poll().accept(this.channel(CHANNEL));
+        this.awaitEdit("'moldy'");
+        assertTrue(this.controller.hasGame(USER));
+    }
+
+    @Test
+    public void endedGameShowsEndOnceChannelIsOpen() throws Exception {
+        this.controller.endGame(USER);
+        assertFalse(this.controller.hasGame(USER));
+        assertEquals(1, this.opens.size(), "The channel has to be opened to show the end");
+
+        this.opens.poll().accept(this.channel(CHANNEL));
+        this.awaitEdit("The game has ended");
+    }
+
+    @Test
+    public void wonGameShowsResultOnceChannelIsOpen() throws Exception {
+        this.controller.handleInput(USER, null, "crane");
+        assertFalse(this.controller.hasGame(USER));
+
+        this.opens.poll().accept(this.channel(CHANNEL));
+        this.awaitEdit("You found the word!");
+    }
+
+    @Test
+    public void otherChannelEndsGame() {
+        this.controller.handleInput(USER, null, "pious");
+        this.opens.poll().accept(this.channel(CHANNEL + 1));
+        assertFalse(this.controller.hasGame(USER), "A game without its channel can't continue");
+        assertTrue(this.edits.isEmpty());
+    }
+
+    private void awaitEdit(final String content) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (this.edits.stream().anyMatch(edit -> edit.contains(content))) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("No edit contains " + content + ": " + this.edits);
+    }
+
+    /**
+     * Creates a JDA without cached channels, opening a private channel waits until the test completes it
+     */
+    private JDA jda() {
+        return (JDA) Proxy.newProxyInstance(JDA.class.getClassLoader(), new Class<?>[] {JDA.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "openPrivateChannelById" -> this.action(method.getReturnType(), null);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    /**
+     * Creates a private channel that records the contents of all message edits
+     */
+    private PrivateChannel channel(final long channelId) {
+        return (PrivateChannel) Proxy.newProxyInstance(PrivateChannel.class.getClassLoader(), new Class<?>[] {PrivateChannel.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getIdLong" -> channelId;
+                    case "getId" -> Long.toUnsignedString(channelId);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "Channel " + channelId;
+                    case "editMessageById" -> {
+                        this.edits.add(args[1].toString());
+                        yield this.action(method.getReturnType(), this.message((MessageChannel) proxy));
+                    }
+                    default -> this.action(method.getReturnType(), this.message((MessageChannel) proxy));
+                });
+    }
+
+    /**
+     * Creates an action that succeeds with the result right away, or that is completed by the test if there is no result
+     */
+    private Object action(final Class<?> type, final Object result) {
+        if (!type.isInterface()) {
+            return null;
+        }
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if (method.getName().startsWith("queue")) {
+                @SuppressWarnings("unchecked") final Consumer<Object> success = args != null && args.length > 0
+                        && args[0] instanceof Consumer ? (Consumer<Object>) args[0] : null;
+                if (result == null) {
+                    this.opens.add(success);
+                } else if (success != null) {
+                    success.accept(result);
+                }
+                return null;
+            }
+            return switch (method.getName()) {
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> type.getSimpleName();
+                default -> method.getReturnType().isInstance(proxy) ? proxy : null;
+            };
+        });
+    }
+
+    private Message message(final MessageChannel channel) {
+        return (Message) Proxy.newProxyInstance(Message.class.getClassLoader(), new Class<?>[] {Message.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getIdLong" -> MESSAGE;
+                    case "getId" -> Long.toUnsignedString(MESSAGE);
+                    case "getChannel" -> channel;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+}
@@ -0,0 +1,159 @@
+package dev.cerus.dwordle.game;
+
+import dev.cerus.dwordle.Benchmarks;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Replays replies against the {@link MessageIdIndex} and against the user lock and session lookup it put in front of
+ * <p>
+ * 10000 games are running and 2% of the replies answer a game message, the others answer messages
+ * of the same users or of users without a game. The replay runs on one thread and on four threads
+ * at once, like the event threads of several shards. The allocations of the four thread runs only
+ * count the calling thread. Both paths have to accept the same replies.
+ */
+public final class MessageIdIndexBenchmark {
+
+    private static final int GAMES = 10_000;
+    private static final int REPLIES = 1_000_000;
+    private static final int GAME_REPLY_PERCENT = 2;
+    private static final int THREADS = 4;
+
+    private MessageIdIndexBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        final Random random = new Random(1);
+        final SessionRegistry<Session> sessions = new SessionRegistry<>(64);
+        final MessageIdIndex index = new MessageIdIndex();
+        final long[] users = new long[GAMES];
+        for (int i = 0; i < GAMES; i++) {
+            final Session session = new Session(snowflake(random));
+            users[i] = snowflake(random);
+            sessions.putIfAbsent(users[i], session);
+            index.add(session.messageId);
+        }
+
+        // Pairs of user and message id
+        final long[] replies = new long[REPLIES * 2];
+        for (int i = 0; i < REPLIES; i++) {
+            if (random.nextInt(100) < GAME_REPLY_PERCENT) {
+                final long user = users[random.nextInt(GAMES)];
+                replies[i * 2] = user;
+                replies[i * 2 + 1] = sessions.get(user).messageId;
+            } else {
+                replies[i * 2] = random.nextBoolean() ? users[random.nextInt(GAMES)] : snowflake(random);
+                replies[i * 2 + 1] = snowflake(random);
+            }
+        }
+
+        for (int i = 0; i < REPLIES; i++) {
+            if (lookup(sessions, replies[i * 2], replies[i * 2 + 1]) != indexed(index, sessions, replies[i * 2], replies[i * 2 + 1])) {
+                throw new IllegalStateException("The paths disagree on reply " + i);
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            Benchmarks.compare(
+                    Benchmarks.variant("lock and lookup (per message)", REPLIES, () -> replayLookup(sessions, replies, 0, 1)),
+                    Benchmarks.variant("index (per message)", REPLIES, () -> replayIndexed(index, sessions, replies, 0, 1)),
+                    Benchmarks.variant("lock and lookup, 4 threads (per message)", REPLIES, () ->
+                            parallel(executor, thread -> replayLookup(sessions, replies, thread, THREADS))),
+                    Benchmarks.variant("index, 4 threads (per message)", REPLIES, () ->
+                            parallel(executor, thread -> replayIndexed(index, sessions, replies, thread, THREADS))));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static long snowflake(final Random random) {
+        // A millisecond timestamp since the Discord epoch, 22 bits of worker, process and increment
+        return ((1_600_000_000_000L + random.nextInt(Integer.MAX_VALUE)) << 22) | random.nextInt(1 << 22);
+    }
+
+    /**
+     * The check before the index, every reply takes the lock of its user
+     */
+    private static boolean lookup(final SessionRegistry<Session> sessions, final long userId, final long msgId) {
+        final Lock lock = sessions.lockFor(userId);
+        lock.lock();
+        try {
+            final Session session = sessions.get(userId);
+            return session != null && session.messageId == msgId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The check of {@link GameController#isGameMessage(long, long)}
+     */
+    private static boolean indexed(final MessageIdIndex index, final SessionRegistry<Session> sessions, final long userId, final long msgId) {
+        return index.contains(msgId) && lookup(sessions, userId, msgId);
+    }
+
+    private static long replayLookup(final SessionRegistry<Session> sessions, final long[] replies, final int from, final int step) {
+        long hits = 0;
+        for (int i = from; i < REPLIES; i += step) {
+            if (lookup(sessions, replies[i * 2], replies[i * 2 + 1])) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static long replayIndexed(final MessageIdIndex index, final SessionRegistry<Session> sessions, final long[] replies,
+                                      final int from, final int step) {
+        long hits = 0;
+        for (int i = from; i < REPLIES; i += step) {
+            if (indexed(index, sessions, replies[i * 2], replies[i * 2 + 1])) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Runs a replay on every thread of the executor and waits for all of them
+     */
+    private static long parallel(final ExecutorService executor, final Replay replay) {
+        final List<Future<Long>> futures = new ArrayList<>(THREADS);
+        for (int thread = 0; thread < THREADS; thread++) {
+            final int from = thread;
+            futures.add(executor.submit(() -> replay.run(from)));
+        }
+        long hits = 0;
+        try {
+            for (final Future<Long> future : futures) {
+                hits += future.get();
+            }
+        } catch (final InterruptedException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+        return hits;
+    }
+
+    private interface Replay {
+
+        long run(int thread);
+
+    }
+
+    private static final class Session {
+
+        private final long messageId;
+
+        private Session(final long messageId) {
+            this.messageId = messageId;
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+package dev.cerus.dwordle.game;
+
+import dev.cerus.dwordle.Benchmarks;
+import dev.cerus.dwordle.Const;
+import dev.cerus.dwordle.word.WordDictionary;
+import dev.cerus.dwordle.word.WordList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Plays games with the packed {@link WordleGame} and with the grid of arrays and strings it replaced
+ * <p>
+ * Every game has five letters, the default amount of tries and four guesses. Measured are playing a
+ * game, reading its board like the renderer does, and the heap a running game retains. Both have
+ * to show the same boards.
+ */
+public final class PackedGameStateBenchmark {
+
+    private static final int GAMES = 10_000;
+    private static final int RETAINED_GAMES = 200_000;
+    private static final int GUESSES = 4;
+
+    private PackedGameStateBenchmark() {
+    }
+
+    public static void main(final String[] args) throws InterruptedException {
+        final Random random = new Random(1);
+        final List<String> words = Benchmarks.randomWords(random, 3000, 5);
+        final WordList wordList = new WordList("benchmark", 5, WordDictionary.of(words), WordDictionary.EMPTY);
+        final String[][] games = new String[GAMES][];
+        for (int i = 0; i < GAMES; i++) {
+            games[i] = new String[GUESSES + 1];
+            for (int j = 0; j < games[i].length; j++) {
+                games[i][j] = words.get(random.nextInt(words.size()));
+            }
+        }
+
+        final LegacyGame[] legacyGames = new LegacyGame[GAMES];
+        final WordleGame[] packedGames = new WordleGame[GAMES];
+        for (int i = 0; i < GAMES; i++) {
+            legacyGames[i] = playLegacy(wordList, games[i]);
+            packedGames[i] = playPacked(wordList, games[i]);
+            if (readBoard(packedGames[i]) != readBoard(legacyGames[i])) {
+                throw new IllegalStateException("The boards of " + String.join(", ", games[i]) + " differ");
+            }
+        }
+
+        Benchmarks.compare(
+                Benchmarks.variant("legacy play (per game)", GAMES, () -> {
+                    long sum = 0;
+                    for (final String[] game : games) {
+                        sum += playLegacy(wordList, game).index;
+                    }
+                    return sum;
+                }),
+                Benchmarks.variant("packed play (per game)", GAMES, () -> {
+                    long sum = 0;
+                    for (final String[] game : games) {
+                        sum += playPacked(wordList, game).getTries();
+                    }
+                    return sum;
+                }),
+                Benchmarks.variant("legacy read board (per game)", GAMES, () -> {
+                    long sum = 0;
+                    for (final LegacyGame game : legacyGames) {
+                        sum += readBoard(game);
+                    }
+                    return sum;
+                }),
+                Benchmarks.variant("packed read board (per game)", GAMES, () -> {
+                    long sum = 0;
+                    for (final WordleGame game : packedGames) {
+                        sum += readBoard(game);
+                    }
+                    return sum;
+                }));
+
+        retained("legacy retained (per game)", i -> playLegacy(wordList, games[i % GAMES]));
+        retained("packed retained (per game)", i -> playPacked(wordList, games[i % GAMES]));
+    }
+
+    private static WordleGame playPacked(final WordList wordList, final String[] game) {
+        final WordleGame packed = new WordleGame(wordList, game[0]);
+        for (int i = 1; i < game.length; i++) {
+            packed.handleInput(game[i]);
+        }
+        return packed;
+    }
+
+    private static LegacyGame playLegacy(final WordList wordList, final String[] game) {
+        final LegacyGame legacy = new LegacyGame(wordList, game[0], Const.INPUT_AMOUNT);
+        for (int i = 1; i < game.length; i++) {
+            legacy.handleInput(game[i]);
+        }
+        return legacy;
+    }
+
+    /**
+     * Reads every cell and input like the board renderer
+     */
+    private static long readBoard(final WordleGame game) {
+        long hash = game.getSecretWord().hashCode();
+        for (int row = 0; row < game.getMaxTries(); row++) {
+            for (int col = 0; col < game.getWordLength(); col++) {
+                hash = hash * 3 + game.getState(row, col);
+            }
+            final String input = game.getInput(row);
+            hash = hash * 31 + (input == null ? 0 : input.hashCode());
+        }
+        return hash;
+    }
+
+    private static long readBoard(final LegacyGame game) {
+        long hash = game.secretWord.hashCode();
+        for (int row = 0; row < game.grid.length; row++) {
+            for (int col = 0; col < game.grid[row].length; col++) {
+                hash = hash * 3 + game.grid[row][col];
+            }
+            final String input = game.inputs[row];
+            hash = hash * 31 + (input == null ? 0 : input.hashCode());
+        }
+        return hash;
+    }
+
+    /**
+     * Keeps a lot of games alive and prints the heap they take up per game
+     */
+    private static void retained(final String name, final IntFunction<Object> factory) throws InterruptedException {
+        final long before = usedHeap();
+        final Object[] games = new Object[RETAINED_GAMES];
+        for (int i = 0; i < RETAINED_GAMES; i++) {
+            games[i] = factory.apply(i);
+        }
+        final long after = usedHeap();
+        System.out.printf("%-40s %12.1f B%n", name, (double) (after - before) / RETAINED_GAMES);
+        if (games[RETAINED_GAMES - 1] == null) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The state WordleGame kept before it was packed, a grid of states and the inputs as strings
+     */
+    private static final class LegacyGame {
+
+        private final int[][] grid;
+        private final String[] inputs;
+        private final int wordLength;
+        private final int maxTries;
+        private final WordList wordList;
+        private final String secretWord;
+        private final int packedSecret;
+        private int index;
+        private boolean done;
+
+        private LegacyGame(final WordList wordList, final String secretWord, final int maxTries) {
+            this.wordLength = wordList.getLength();
+            this.maxTries = maxTries;
+            this.grid = new int[maxTries][this.wordLength];
+            this.inputs = new String[maxTries];
+            this.wordList = wordList;
+            this.secretWord = secretWord.toLowerCase();
+            this.packedSecret = WordDictionary.pack(this.secretWord);
+        }
+
+        private void handleInput(final String input) {
+            final String trimmed = input.trim();
+            if (trimmed.length() != this.wordLength || this.index >= this.maxTries) {
+                return;
+            }
+            final int packedInput = WordDictionary.pack(trimmed);
+            if (packedInput == WordDictionary.INVALID) {
+                return;
+            }
+            final int pattern = WordleGame.score(this.packedSecret, packedInput);
+            for (int i = 0; i < this.wordLength; i++) {
+                this.grid[this.index][i] = WordleGame.stateAt(pattern, i);
+            }
+            if (pattern == WordleGame.winningPattern(this.wordLength)) {
+                this.done = true;
+            }
+            this.inputs[this.index++] = WordDictionary.unpack(packedInput);
+        }
+
+    }
+
+}
@@ -0,0 +1,235 @@
+package dev.cerus.dwordle.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import dev.cerus.dwordle.word.WordDictionary;
+import dev.cerus.dwordle.word.WordList;
+import dev.cerus.dwordle.word.WordServiceController;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs game starts, guesses, ends and timeouts of the same users on many threads at once
+ * <p>
+ * Every started game has to end exactly once, no matter which of the operations ends it. The
+ * Discord side is faked: messages are "sent" on a separate thread, so the message callbacks race
+ * with the other operations like they do against the real API.
+ */
+public class SessionRegistryStressTest {
+
+    private static final String WORD_LIST = "stress";
+    private static final int LENGTH = 5;
+    private static final int USERS = 64;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 5000;
+
+    private final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+    private final AtomicLong messageIds = new AtomicLong(1);
+    private final AtomicLong warnings = new AtomicLong();
+    @TempDir
+    Path dir;
+    private ExecutorService discord;
+    private CountingStatsService statsService;
+    private SecretSelector secretSelector;
+    private GameJournal journal;
+    private FeedbackMatrixCache feedbackMatrixCache;
+    private GameController controller;
+    private WordList wordList;
+    private Thread.UncaughtExceptionHandler previousHandler;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        this.previousHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, throwable) -> this.errors.add(throwable));
+
+        this.wordList = createWordList();
+        final WordServiceController wordServiceController = new WordServiceController();
+        wordServiceController.registerWordService(WORD_LIST, new FixedWordService(this.wordList));
+
+        this.discord = Executors.newFixedThreadPool(2);
+        this.statsService = new CountingStatsService();
+        this.statsService.initialize(Executors.newFixedThreadPool(2));
+        this.secretSelector = new SecretSelector(this.statsService);
+        this.journal = new GameJournal(this.dir.resolve("journal"));
+        this.journal.open();
+        this.feedbackMatrixCache = new FeedbackMatrixCache(this.dir.resolve("matrices"));
+        // Timeouts and warnings expire within a few ticks, so they race with the guesses
+        this.controller = new GameController(wordServiceController, this.statsService, this.feedbackMatrixCache,
+                this.secretSelector, this.journal, false, 5, 40, 20);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.controller.close();
+        this.secretSelector.close();
+        this.journal.close();
+        this.feedbackMatrixCache.close();
+        this.discord.shutdownNow();
+        Thread.setDefaultUncaughtExceptionHandler(this.previousHandler);
+    }
+
+    @Test
+    public void everyStartedGameEndsOnce() throws Exception {
+        final AtomicLong started = new AtomicLong();
+        final CountDownLatch ready = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final MessageChannel channel = this.channel(t + 1);
+            final Thread thread = new Thread(() -> {
+                try {
+                    ready.await();
+                    final ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        final long userId = 1 + random.nextInt(USERS);
+                        final int operation = random.nextInt(10);
+                        if (operation < 3) {
+                            if (this.controller.startGame(userId, channel, WORD_LIST, LENGTH, 6)) {
+                                started.incrementAndGet();
+                            }
+                        } else if (operation < 9) {
+                            this.guess(userId, channel, random);
+                        } else {
+                            this.controller.endGame(userId);
+                        }
+                        if (random.nextInt(100) == 0) {
+                            // Let some games run into their timeout
+                            Thread.sleep(random.nextInt(50));
+                        }
+                    }
+                } catch (final Throwable throwable) {
+                    this.errors.add(throwable);
+                }
+            }, "Stress-" + t);
+            thread.start();
+            threads.add(thread);
+        }
+        ready.countDown();
+        for (final Thread thread : threads) {
+            thread.join(TimeUnit.MINUTES.toMillis(2));
+        }
+
+        // Games that are still running are ended now, afterwards no operation is in flight anymore
+        for (long userId = 1; userId <= USERS; userId++) {
+            this.controller.endGame(userId);
+        }
+        this.statsService.awaitWrites();
+
+        assertTrue(this.errors.isEmpty(), () -> "Operations failed: " + this.errors);
+        assertTrue(started.get() > 0, "No game was started");
+        assertEquals(0, this.controller.getRunningGames());
+        assertEquals(started.get(), this.statsService.played.get(), "Every started game has to be played once");
+        assertEquals(this.statsService.played.get(), this.statsService.won.get() + this.statsService.lost.get(),
+                "Every played game has to be won or lost");
+        assertTrue(this.statsService.won.get() > 0, "No game was won");
+        assertTrue(this.statsService.lost.get() > 0, "No game was lost");
+        assertTrue(this.warnings.get() > 0, "No game ran into its timeout");
+    }
+
+    /**
+     * Guesses the secret word sometimes, any other word of the list otherwise
+     */
+    private void guess(final long userId, final MessageChannel channel, final Random random) {
+        final WordleGame game = this.controller.getGame(userId);
+        if (game == null) {
+            return;
+        }
+        final String input = random.nextInt(8) == 0 ? game.getSecretWord()
+                : this.wordList.getWords().getWord(random.nextInt(this.wordList.getWords().size()));
+        this.controller.handleInput(userId, channel, input);
+    }
+
+    private static WordList createWordList() {
+        final Random random = new Random(42);
+        final Set<String> words = new LinkedHashSet<>();
+        final char[] word = new char[LENGTH];
+        while (words.size() < 300) {
+            for (int i = 0; i < LENGTH; i++) {
+                word[i] = (char) ('a' + random.nextInt(26));
+            }
+            words.add(new String(word));
+        }
+        return new WordList(WORD_LIST, LENGTH, WordDictionary.of(words), WordDictionary.EMPTY);
+    }
+
+    /**
+     * Creates a channel that "sends" every message on the Discord executor
+     * Messages and actions answer every call that is not about ids with themselves, that covers
+     * the builder methods of the actions.
+     */
+    private MessageChannel channel(final long channelId) {
+        final Object[] channel = new Object[1];
+        channel[0] = Proxy.newProxyInstance(MessageChannel.class.getClassLoader(), new Class<?>[] {MessageChannel.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getIdLong" -> channelId;
+                    case "getId" -> Long.toUnsignedString(channelId);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "Channel " + channelId;
+                    default -> {
+                        if (method.getName().equals("sendMessage") && args[0].toString().contains("Your game will end")) {
+                            this.warnings.incrementAndGet();
+                        }
+                        yield this.action(method.getReturnType(), (MessageChannel) channel[0]);
+                    }
+                });
+        return (MessageChannel) channel[0];
+    }
+
+    private Object action(final Class<?> type, final MessageChannel channel) {
+        if (!type.isInterface()) {
+            return null;
+        }
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if (method.getName().startsWith("queue")) {
+                @SuppressWarnings("unchecked") final Consumer<Object> success = args != null && args.length > 0
+                        && args[0] instanceof Consumer ? (Consumer<Object>) args[0] : null;
+                final Message message = this.message(this.messageIds.incrementAndGet(), channel);
+                this.discord.execute(() -> {
+                    if (success != null) {
+                        success.accept(message);
+                    }
+                });
+                return null;
+            }
+            return switch (method.getName()) {
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> type.getSimpleName();
+                default -> method.getReturnType().isInstance(proxy) ? proxy : null;
+            };
+        });
+    }
+
+    private Message message(final long messageId, final MessageChannel channel) {
+        return (Message) Proxy.newProxyInstance(Message.class.getClassLoader(), new Class<?>[] {Message.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getIdLong" -> messageId;
+                    case "getId" -> Long.toUnsignedString(messageId);
+                    case "getChannel" -> channel;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+}
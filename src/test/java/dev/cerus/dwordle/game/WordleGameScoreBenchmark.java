@@ -0,0 +1,108 @@
+package dev.cerus.dwordle.game;
+
+import dev.cerus.dwordle.Benchmarks;
+import dev.cerus.dwordle.word.WordDictionary;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Scores guesses with {@link WordleGame#score(int, int)} and with the hash set scoring it replaced
+ * <p>
+ * Guesses are strings like the replies of the users, so the packed variant includes packing the
+ * guess. The old scoring marked a repeated letter more than once, the variants only have to agree
+ * on words without repeated letters.
+ */
+public final class WordleGameScoreBenchmark {
+
+    private static final int WORDS = 3000;
+    private static final int GUESSES = 100_000;
+
+    private WordleGameScoreBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        final Random random = new Random(1);
+        final List<String> words = Benchmarks.randomWords(random, WORDS, 5);
+        final String[] secrets = new String[GUESSES];
+        final String[] guesses = new String[GUESSES];
+        final int[] packedSecrets = new int[GUESSES];
+        final int[] packedGuesses = new int[GUESSES];
+        for (int i = 0; i < GUESSES; i++) {
+            secrets[i] = words.get(random.nextInt(WORDS));
+            guesses[i] = words.get(random.nextInt(WORDS));
+            packedSecrets[i] = WordDictionary.pack(secrets[i]);
+            packedGuesses[i] = WordDictionary.pack(guesses[i]);
+        }
+
+        for (int i = 0; i < GUESSES; i++) {
+            if (distinctLetters(secrets[i]) && distinctLetters(guesses[i])
+                    && legacyScore(secrets[i], guesses[i]) != WordleGame.score(packedSecrets[i], packedGuesses[i])) {
+                throw new IllegalStateException("Secret " + secrets[i] + " and guess " + guesses[i] + " score differently");
+            }
+        }
+
+        Benchmarks.compare(
+                Benchmarks.variant("hash set scoring (per guess)", GUESSES, () -> {
+                    long sum = 0;
+                    for (int i = 0; i < GUESSES; i++) {
+                        sum += legacyScore(secrets[i], guesses[i]);
+                    }
+                    return sum;
+                }),
+                Benchmarks.variant("pack and score (per guess)", GUESSES, () -> {
+                    long sum = 0;
+                    for (int i = 0; i < GUESSES; i++) {
+                        sum += WordleGame.score(packedSecrets[i], WordDictionary.pack(guesses[i]));
+                    }
+                    return sum;
+                }),
+                Benchmarks.variant("score packed (per guess)", GUESSES, () -> {
+                    long sum = 0;
+                    for (int i = 0; i < GUESSES; i++) {
+                        sum += WordleGame.score(packedSecrets[i], packedGuesses[i]);
+                    }
+                    return sum;
+                }));
+    }
+
+    private static boolean distinctLetters(final String word) {
+        return word.chars().distinct().count() == word.length();
+    }
+
+    /**
+     * The scoring of WordleGame#handleInput before {@link WordleGame#score(int, int)}, returns the states as a pattern
+     */
+    private static int legacyScore(final String secretWord, final String input) {
+        final char[] processedInput = input.toLowerCase().trim().toCharArray();
+        final int[] row = new int[processedInput.length];
+        final Set<Character> greens = new HashSet<>();
+        final Set<Character> yellows = new HashSet<>();
+
+        // First iteration: Calculate all greens
+        for (int i = 0; i < processedInput.length; i++) {
+            if (processedInput[i] == secretWord.charAt(i)) {
+                row[i] = WordleGame.GREEN;
+                greens.add(processedInput[i]);
+            }
+        }
+        // Second iteration: Calculate all yellows
+        for (int i = 0; i < processedInput.length; i++) {
+            if (secretWord.contains(String.valueOf(processedInput[i]))) {
+                if (greens.contains(processedInput[i]) || yellows.contains(processedInput[i])) {
+                    continue;
+                }
+                row[i] = WordleGame.YELLOW;
+                yellows.add(processedInput[i]);
+            }
+        }
+
+        int pattern = 0;
+        for (int i = row.length - 1; i >= 0; i--) {
+            pattern = pattern * 3 + row[i];
+        }
+        return pattern;
+    }
+
+}
@@ -0,0 +1,98 @@
+package dev.cerus.dwordle.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import dev.cerus.dwordle.word.WordDictionary;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares {@link WordleGame#score(int, int)} with a straightforward letter counting implementation
+ * <p>
+ * All words of a small alphabet are checked against each other, so every combination of
+ * repeated letters in the secret word and the guess is covered.
+ */
+public class WordleGameScoreTest {
+
+    private static final String ALPHABET = "abc";
+
+    @Test
+    public void scoreMatchesReferenceForAllWords() {
+        for (int length = 4; length <= 6; length++) {
+            final List<String> words = allWords(length);
+            for (final String secret : words) {
+                final int packedSecret = WordDictionary.pack(secret);
+                for (final String guess : words) {
+                    final int pattern = WordleGame.score(packedSecret, WordDictionary.pack(guess));
+                    final int[] expected = referenceScore(secret, guess);
+                    final int[] actual = new int[length];
+                    for (int i = 0; i < length; i++) {
+                        actual[i] = WordleGame.stateAt(pattern, i);
+                    }
+                    if (!Arrays.equals(expected, actual)) {
+                        fail("Secret " + secret + ", guess " + guess + ": expected " + Arrays.toString(expected)
+                                + " but was " + Arrays.toString(actual));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void correctGuessScoresWinningPattern() {
+        for (int length = 4; length <= 6; length++) {
+            for (final String word : allWords(length)) {
+                final int packed = WordDictionary.pack(word);
+                assertEquals(WordleGame.winningPattern(length), WordleGame.score(packed, packed), word);
+            }
+        }
+    }
+
+    /**
+     * Scores a guess by counting the letters of the secret word that are not green
+     */
+    private static int[] referenceScore(final String secret, final String guess) {
+        final int[] states = new int[secret.length()];
+        final int[] remaining = new int[26];
+        for (int i = 0; i < secret.length(); i++) {
+            if (guess.charAt(i) == secret.charAt(i)) {
+                states[i] = WordleGame.GREEN;
+            } else {
+                remaining[secret.charAt(i) - 'a']++;
+            }
+        }
+        for (int i = 0; i < guess.length(); i++) {
+            if (states[i] == WordleGame.GREEN) {
+                continue;
+            }
+            if (remaining[guess.charAt(i) - 'a'] > 0) {
+                remaining[guess.charAt(i) - 'a']--;
+                states[i] = WordleGame.YELLOW;
+            } else {
+                states[i] = WordleGame.GRAY;
+            }
+        }
+        return states;
+    }
+
+    private static List<String> allWords(final int length) {
+        final List<String> words = new ArrayList<>();
+        final char[] word = new char[length];
+        int count = 1;
+        for (int i = 0; i < length; i++) {
+            count *= ALPHABET.length();
+        }
+        for (int n = 0; n < count; n++) {
+            int rest = n;
+            for (int i = 0; i < length; i++) {
+                word[i] = ALPHABET.charAt(rest % ALPHABET.length());
+                rest /= ALPHABET.length();
+            }
+            words.add(new String(word));
+        }
+        return words;
+    }
+
+}
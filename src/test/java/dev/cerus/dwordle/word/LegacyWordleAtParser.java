@@ -0,0 +1,68 @@
+package dev.cerus.dwordle.word;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * The string based wordle.at parser that was used before the streaming {@link WordleAtWordService.Decoder}
+ * Kept as the reference for its test and benchmark.
+ */
+final class LegacyWordleAtParser {
+
+    private static final int WORD_LENGTH = 5;
+
+    private LegacyWordleAtParser() {
+    }
+
+    static void parse(final InputStream in, final WordDictionary.Builder words, final WordDictionary.Builder inputs) throws IOException {
+        // Read response content
+        final StringBuilder builder = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            builder.append((char) b);
+        }
+        final String response = builder.toString();
+
+        try {
+            // Parse inputs and words
+            final String[] lines = response.split("\n");
+            final String encodedInputs = lines[1].substring(lines[1].indexOf("\"") + 1, lines[1].length() - 2);
+            final String encodedWords = lines[2].substring(lines[2].indexOf("\"") + 1, lines[2].length() - 2);
+
+            // Decode inputs and words
+            decode(encodedInputs).forEach(inputs::add);
+            decode(encodedWords).forEach(words::add);
+        } catch (final IndexOutOfBoundsException e) {
+            throw new IOException("Malformed word list", e);
+        }
+    }
+
+    /**
+     * Decodes and splits encoded strings with the wordle.at algorithm
+     *
+     * @param input String to decode
+     *
+     * @return Decoded strings
+     */
+    private static Collection<String> decode(final String input) {
+        final AtomicInteger inc = new AtomicInteger(1);
+        final String result = Arrays.stream(input.split(""))
+                .map(s -> String.valueOf((char) ((s.charAt(0) - 97 + 7 * inc.getAndIncrement()) % 26 + 65)))
+                .collect(Collectors.joining(""));
+
+        int index = 0;
+        final List<String> list = new ArrayList<>();
+        while (index < result.length()) {
+            list.add(result.substring(index, index + WORD_LENGTH).toLowerCase());
+            index += WORD_LENGTH;
+        }
+        return list;
+    }
+
+}
@@ -0,0 +1,126 @@
+package dev.cerus.dwordle.word;
+
+import dev.cerus.dwordle.Benchmarks;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Parses a synthetic NYT bundle with the streaming parser and the string based parser it replaced
+ * <p>
+ * The bundle has the size of the real one: about 300 KB of code, the two arrays with 2309 words
+ * and 10657 inputs, and more code after them. The streaming parser is checked against the words
+ * the bundle was built from. The old parser is not checked, it kept the closing {@code "]} on the
+ * last word of the first array and so dropped that word.
+ */
+public final class NyTimesBundleBenchmark {
+
+    private static final int WORDS = 2309;
+    private static final int INPUTS = 10657;
+
+    private NyTimesBundleBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        final Random random = new Random(1);
+        final List<String> words = Benchmarks.randomWords(random, WORDS, 5);
+        final List<String> inputs = Benchmarks.randomWords(random, INPUTS, 5);
+        final byte[] bundle = bundle(random, words, inputs);
+        final int operations = WORDS + INPUTS;
+        if (parse(bundle, false) != hash(WordDictionary.of(words), WordDictionary.of(inputs))) {
+            throw new IllegalStateException("The streaming parser returned other words than the bundle contains");
+        }
+
+        Benchmarks.compare(
+                Benchmarks.variant("legacy parser (per word)", operations, () -> parse(bundle, true)),
+                Benchmarks.variant("streaming parser (per word)", operations, () -> parse(bundle, false)));
+    }
+
+    private static long parse(final byte[] bundle, final boolean legacy) {
+        final WordDictionary.Builder words = WordDictionary.builder();
+        final WordDictionary.Builder inputs = WordDictionary.builder();
+        try {
+            if (legacy) {
+                legacyParse(new ByteArrayInputStream(bundle), words, inputs);
+            } else {
+                NyTimesWordService.parse(Channels.newChannel(new ByteArrayInputStream(bundle)), words, inputs);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return hash(words.build(), inputs.build());
+    }
+
+    private static long hash(final WordDictionary words, final WordDictionary inputs) {
+        long hash = words.size() * 31L + inputs.size();
+        for (int i = 0; i < words.size(); i++) {
+            hash = hash * 31 + words.get(i);
+        }
+        for (int i = 0; i < inputs.size(); i++) {
+            hash = hash * 31 + inputs.get(i);
+        }
+        return hash;
+    }
+
+    private static byte[] bundle(final Random random, final List<String> words, final List<String> inputs) {
+        final StringBuilder builder = new StringBuilder();
+        appendCode(builder, random, 300 * 1024);
+        builder.append("var Ma=[");
+        appendWords(builder, words);
+        builder.append("],Oa=[");
+        appendWords(builder, inputs);
+        builder.append("],Ra=\"present\";");
+        appendCode(builder, random, 500 * 1024);
+        return builder.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void appendWords(final StringBuilder builder, final List<String> words) {
+        for (int i = 0; i < words.size(); i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append('"').append(words.get(i)).append('"');
+        }
+    }
+
+    private static void appendCode(final StringBuilder builder, final Random random, final int size) {
+        final String[] tokens = {"function(e,t){", "return ", "var ", "e.length", "}", ";", "\"Ma\"", "[0]", "=>", "null"};
+        final int end = builder.length() + size;
+        while (builder.length() < end) {
+            builder.append(tokens[random.nextInt(tokens.length)]);
+        }
+    }
+
+    /**
+     * The parser that was used before {@link NyTimesWordService#parse(java.nio.channels.ReadableByteChannel,
+     * WordDictionary.Builder, WordDictionary.Builder)}
+     */
+    private static void legacyParse(final InputStream in, final WordDictionary.Builder words, final WordDictionary.Builder inputs) throws IOException {
+        // Read response content
+        final StringBuilder builder = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            builder.append((char) b);
+        }
+        final String response = builder.toString();
+
+        // Trim response content
+        String trimmed = response.substring(response.indexOf("var Ma=[\"") + "var Ma=[\"".length());
+        trimmed = trimmed.substring(0, trimmed.indexOf("\"],Ra="));
+        final String[] split = trimmed.split(",Oa=\\[\"");
+
+        // Select words and inputs
+        for (final String word : split[0].split("\",\"")) {
+            words.add(word);
+        }
+        for (final String input : split[1].split("\",\"")) {
+            inputs.add(input);
+        }
+    }
+
+}
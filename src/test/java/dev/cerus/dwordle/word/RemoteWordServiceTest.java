@@ -0,0 +1,213 @@
+package dev.cerus.dwordle.word;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs the download and revalidation of a word list against a local HTTP server
+ */
+public class RemoteWordServiceTest {
+
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    private final List<Headers> requests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger parsed = new AtomicInteger();
+    @TempDir
+    Path dir;
+    private HttpServer server;
+    private String url;
+    // What the server answers, changed by the tests
+    private volatile int status;
+    private volatile String etag;
+    private volatile String body;
+    private LineWordService service;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/words.txt", exchange -> {
+            this.requests.add(exchange.getRequestHeaders());
+            final int status = this.status;
+            if (status == 200) {
+                exchange.getResponseHeaders().set("ETag", this.etag);
+                exchange.getResponseHeaders().set("Last-Modified", LAST_MODIFIED);
+                final byte[] data = this.body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status, data.length);
+                try (final OutputStream out = exchange.getResponseBody()) {
+                    out.write(data);
+                }
+            } else {
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            }
+        });
+        this.server.start();
+        this.url = "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + "/words.txt";
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (this.service != null) {
+            this.service.close();
+        }
+        this.server.stop(0);
+    }
+
+    @Test
+    public void downloadsAndSavesSnapshot() throws Exception {
+        this.answer(200, "\"v1\"", "apple grape\nabcde");
+        this.service = this.createService();
+        this.service.initialize().get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, this.requests.size());
+        assertNull(this.requests.get(0).getFirst("If-None-Match"), "Nothing to revalidate yet");
+        final WordList list = this.service.getWordList(5);
+        assertEquals(2, list.getWords().size());
+        assertTrue(list.isValidInput("abcde"));
+
+        final WordListSnapshot snapshot = WordListSnapshot.read(this.snapshotFile());
+        assertEquals("\"v1\"", snapshot.getEtag());
+        assertEquals(LAST_MODIFIED, snapshot.getLastModified());
+        assertEquals(2, snapshot.getWords().size());
+    }
+
+    @Test
+    public void notModifiedKeepsWordList() throws Exception {
+        this.answer(200, "\"v1\"", "apple grape\n");
+        this.service = this.createService();
+        this.service.initialize().get(10, TimeUnit.SECONDS);
+        final WordList list = this.service.getWordList(5);
+
+        this.answer(304, null, null);
+        this.service.reload().get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, this.requests.size());
+        assertEquals("\"v1\"", this.requests.get(1).getFirst("If-None-Match"));
+        assertEquals(LAST_MODIFIED, this.requests.get(1).getFirst("If-Modified-Since"));
+        assertEquals(1, this.parsed.get(), "A 304 response must not be parsed");
+        assertSame(list, this.service.getWordList(5));
+    }
+
+    @Test
+    public void changedListReplacesWordList() throws Exception {
+        this.answer(200, "\"v1\"", "apple grape\n");
+        this.service = this.createService();
+        this.service.initialize().get(10, TimeUnit.SECONDS);
+
+        this.answer(200, "\"v2\"", "lemon melon mango\n");
+        this.service.reload().get(10, TimeUnit.SECONDS);
+
+        assertEquals(3, this.service.getWordList(5).getWords().size());
+        assertEquals("\"v2\"", WordListSnapshot.read(this.snapshotFile()).getEtag());
+    }
+
+    @Test
+    public void failedReloadKeepsWordList() throws Exception {
+        this.answer(200, "\"v1\"", "apple grape\n");
+        this.service = this.createService();
+        this.service.initialize().get(10, TimeUnit.SECONDS);
+        final WordList list = this.service.getWordList(5);
+
+        this.answer(500, null, null);
+        assertThrows(ExecutionException.class, () -> this.service.reload().get(10, TimeUnit.SECONDS));
+        assertSame(list, this.service.getWordList(5));
+
+        // A response without words is a failure as well
+        this.answer(200, "\"v2\"", "\n");
+        assertThrows(ExecutionException.class, () -> this.service.reload().get(10, TimeUnit.SECONDS));
+        assertSame(list, this.service.getWordList(5));
+        assertEquals("\"v1\"", WordListSnapshot.read(this.snapshotFile()).getEtag());
+    }
+
+    @Test
+    public void startsFromSnapshotWhenRemoteFails() throws Exception {
+        new WordListSnapshot("\"v1\"", LAST_MODIFIED, WordDictionary.of(List.of("apple", "grape")), WordDictionary.EMPTY)
+                .write(this.snapshotFile());
+        this.answer(500, null, null);
+        this.service = this.createService();
+        this.service.initialize().get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, this.service.getWordList(5).getWords().size());
+        // The revalidation runs after the snapshot was published
+        this.waitForRequests(1);
+        assertEquals("\"v1\"", this.requests.get(0).getFirst("If-None-Match"));
+    }
+
+    @Test
+    public void failsWithoutSnapshotWhenRemoteFails() throws Exception {
+        this.answer(404, null, null);
+        this.service = this.createService();
+        assertThrows(ExecutionException.class, () -> this.service.initialize().get(10, TimeUnit.SECONDS));
+        assertTrue(this.service.getWordList(5).isEmpty());
+        assertTrue(Files.notExists(this.snapshotFile()));
+    }
+
+    private void answer(final int status, final String etag, final String body) {
+        this.status = status;
+        this.etag = etag;
+        this.body = body;
+    }
+
+    private void waitForRequests(final int count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (this.requests.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private Path snapshotFile() {
+        return this.dir.resolve("snapshot.bin");
+    }
+
+    private LineWordService createService() {
+        return new LineWordService(this.url, this.snapshotFile());
+    }
+
+    /**
+     * Reads the words from the first line and the inputs from the second line
+     */
+    private final class LineWordService extends RemoteWordService {
+
+        private LineWordService(final String url, final Path snapshotFile) {
+            super("test", url, snapshotFile);
+        }
+
+        @Override
+        protected void parse(final InputStream in, final WordDictionary.Builder words, final WordDictionary.Builder inputs) throws IOException {
+            RemoteWordServiceTest.this.parsed.incrementAndGet();
+            final String[] lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n", -1);
+            for (final String word : lines[0].split(" ")) {
+                words.add(word);
+            }
+            if (lines.length > 1) {
+                for (final String input : lines[1].split(" ")) {
+                    inputs.add(input);
+                }
+            }
+        }
+
+    }
+
+}
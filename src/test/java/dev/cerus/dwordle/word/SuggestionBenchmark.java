@@ -0,0 +1,141 @@
+package dev.cerus.dwordle.word;
+
+import dev.cerus.dwordle.Benchmarks;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Suggests words for invalid guesses with the {@link SuggestionIndex} and with a scan over all guesses
+ * <p>
+ * The list has the size of the official one, 2315 words and 10657 inputs, drawn with English letter
+ * frequencies so typos have neighbors. Queries are valid guesses with one or two letters changed,
+ * inserted or removed. The suggestions of both must have the same distances.
+ */
+public final class SuggestionBenchmark {
+
+    private static final String LETTERS = "eeeeaaaarrrooottllliisssnnucyhdpgmbfkw";
+    private static final int WORDS = 2315;
+    private static final int INPUTS = 10657;
+    private static final int QUERIES = 1000;
+    private static final int LIMIT = 3;
+
+    private SuggestionBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        final Random random = new Random(1);
+        final List<String> words = Benchmarks.randomWords(random, WORDS, 5, LETTERS, Set.of());
+        final List<String> inputs = Benchmarks.randomWords(random, INPUTS, 5, LETTERS, Set.copyOf(words));
+        final WordList wordList = new WordList("benchmark", 5, WordDictionary.of(words), WordDictionary.of(inputs));
+        final List<String> guesses = new ArrayList<>(words);
+        guesses.addAll(inputs);
+        final List<String> queries = queries(random, wordList, guesses);
+
+        for (final String query : queries) {
+            final List<Integer> expected = distances(query, scan(query, guesses));
+            final List<Integer> actual = distances(query, wordList.suggest(query, LIMIT));
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("Suggestions for " + query + " have distances " + actual + " instead of " + expected);
+            }
+        }
+
+        Benchmarks.compare(
+                Benchmarks.variant("scan (per query)", QUERIES, () -> {
+                    long sum = 0;
+                    for (final String query : queries) {
+                        sum += scan(query, guesses).size();
+                    }
+                    return sum;
+                }),
+                Benchmarks.variant("index (per query)", QUERIES, () -> {
+                    long sum = 0;
+                    for (final String query : queries) {
+                        sum += wordList.suggest(query, LIMIT).size();
+                    }
+                    return sum;
+                }),
+                Benchmarks.variant("index build (per list)", 1, () ->
+                        new SuggestionIndex(wordList.getWords(), wordList.getInputs()).suggest("crane", 2, LIMIT).size()));
+    }
+
+    /**
+     * Computes the distance to every guess once and keeps the closest ones, ties in list order
+     */
+    private static List<String> scan(final String query, final List<String> guesses) {
+        final int[] scratch = new int[2 * (query.length() + 1)];
+        final long[] matches = new long[guesses.size()];
+        int count = 0;
+        for (int i = 0; i < guesses.size(); i++) {
+            final int distance = distance(query, guesses.get(i), scratch);
+            if (distance > 0 && distance <= SuggestionIndex.MAX_DISTANCE) {
+                matches[count++] = ((long) distance << 32) | i;
+            }
+        }
+        Arrays.sort(matches, 0, count);
+        final List<String> result = new ArrayList<>(LIMIT);
+        for (int i = 0; i < count && i < LIMIT; i++) {
+            result.add(guesses.get((int) matches[i]));
+        }
+        return result;
+    }
+
+    private static List<Integer> distances(final String query, final List<String> suggestions) {
+        final int[] scratch = new int[2 * (query.length() + 1)];
+        final List<Integer> distances = new ArrayList<>();
+        for (final String suggestion : suggestions) {
+            distances.add(distance(query, suggestion, scratch));
+        }
+        return distances;
+    }
+
+    /**
+     * Levenshtein distance with two rows of at least a.length() + 1 ints
+     */
+    private static int distance(final String a, final String b, final int[] scratch) {
+        final int width = a.length() + 1;
+        int prev = 0;
+        int cur = width;
+        for (int i = 0; i < width; i++) {
+            scratch[i] = i;
+        }
+        for (int j = 1; j <= b.length(); j++) {
+            scratch[cur] = j;
+            for (int i = 1; i < width; i++) {
+                scratch[cur + i] = Math.min(scratch[prev + i - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1),
+                        Math.min(scratch[prev + i] + 1, scratch[cur + i - 1] + 1));
+            }
+            final int tmp = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return scratch[prev + a.length()];
+    }
+
+    /**
+     * Guesses with typos, only inputs that are not valid themselves
+     */
+    private static List<String> queries(final Random random, final WordList wordList, final List<String> guesses) {
+        final List<String> queries = new ArrayList<>(QUERIES);
+        while (queries.size() < QUERIES) {
+            final StringBuilder query = new StringBuilder(guesses.get(random.nextInt(guesses.size())));
+            final int edits = 1 + random.nextInt(2);
+            for (int i = 0; i < edits; i++) {
+                final int position = random.nextInt(query.length());
+                final char letter = LETTERS.charAt(random.nextInt(LETTERS.length()));
+                switch (random.nextInt(3)) {
+                    case 0 -> query.setCharAt(position, letter);
+                    case 1 -> query.insert(position, letter);
+                    default -> query.deleteCharAt(position);
+                }
+            }
+            if (!wordList.isValidInput(query.toString())) {
+                queries.add(query.toString());
+            }
+        }
+        return queries;
+    }
+
+}
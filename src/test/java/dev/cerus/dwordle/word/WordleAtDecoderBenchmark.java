@@ -0,0 +1,50 @@
+package dev.cerus.dwordle.word;
+
+import dev.cerus.dwordle.Benchmarks;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Parses a wordle.at word list of realistic size with the streaming decoder and the string based parser it replaced
+ */
+public final class WordleAtDecoderBenchmark {
+
+    private static final int INPUTS = 12_000;
+    private static final int WORDS = 2_500;
+
+    private WordleAtDecoderBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        final Random random = new Random(1);
+        final byte[] file = WordleAtWordServiceTest.file(String.join("", Benchmarks.randomWords(random, INPUTS, 5)),
+                String.join("", Benchmarks.randomWords(random, WORDS, 5)));
+        final WordleAtWordService service = new WordleAtWordService("benchmark", "http://localhost/", Path.of("unused"));
+
+        Benchmarks.compare(
+                Benchmarks.variant("legacy parser (per word)", INPUTS + WORDS, () -> parse(file, (in, words, inputs) ->
+                        LegacyWordleAtParser.parse(in, words, inputs))),
+                Benchmarks.variant("streaming decoder (per word)", INPUTS + WORDS, () -> parse(file, service::parse)));
+    }
+
+    private static long parse(final byte[] file, final Parser parser) {
+        final WordDictionary.Builder words = WordDictionary.builder();
+        final WordDictionary.Builder inputs = WordDictionary.builder();
+        try {
+            parser.parse(new ByteArrayInputStream(file), words, inputs);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return words.build().size() + inputs.build().size();
+    }
+
+    private interface Parser {
+
+        void parse(ByteArrayInputStream in, WordDictionary.Builder words, WordDictionary.Builder inputs) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,111 @@
+package dev.cerus.dwordle.word;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the streaming wordle.at parser with the string based parser it replaced
+ */
+public class WordleAtWordServiceTest {
+
+    private final WordleAtWordService service = new WordleAtWordService("test", "http://localhost/", Path.of("unused"));
+
+    @Test
+    public void decodesEncodedWords() throws IOException {
+        final List<String> words = List.of("apfel", "birne", "zebra", "quarz", "xylit", "kiwis");
+        final List<String> inputs = List.of("aaaaa", "zzzzz", "hallo");
+        final byte[] file = file(encode(inputs), encode(words));
+
+        final WordDictionary.Builder decodedWords = WordDictionary.builder();
+        final WordDictionary.Builder decodedInputs = WordDictionary.builder();
+        this.service.parse(new ByteArrayInputStream(file), decodedWords, decodedInputs);
+
+        assertArrayEquals(toArray(WordDictionary.of(words)), toArray(decodedWords.build()));
+        assertArrayEquals(toArray(WordDictionary.of(inputs)), toArray(decodedInputs.build()));
+    }
+
+    @Test
+    public void matchesLegacyParserForAnyChars() throws IOException {
+        final Random random = new Random(4);
+        for (int i = 0; i < 500; i++) {
+            // Most chars are below 'a' or above 'z', including the ones at the start of the strings
+            final byte[] file = file(randomString(random, 5 * (1 + random.nextInt(40))),
+                    randomString(random, 5 * (1 + random.nextInt(40))));
+            assertSameResult(file);
+        }
+    }
+
+    @Test
+    public void matchesLegacyParserForRealisticLists() throws IOException {
+        final Random random = new Random(5);
+        final StringBuilder words = new StringBuilder();
+        final StringBuilder inputs = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            words.append((char) ('a' + random.nextInt(26)));
+            inputs.append((char) ('a' + random.nextInt(26)));
+        }
+        assertSameResult(file(inputs.toString(), words.toString()));
+    }
+
+    private void assertSameResult(final byte[] file) throws IOException {
+        final WordDictionary.Builder expectedWords = WordDictionary.builder();
+        final WordDictionary.Builder expectedInputs = WordDictionary.builder();
+        LegacyWordleAtParser.parse(new ByteArrayInputStream(file), expectedWords, expectedInputs);
+
+        final WordDictionary.Builder words = WordDictionary.builder();
+        final WordDictionary.Builder inputs = WordDictionary.builder();
+        this.service.parse(new ByteArrayInputStream(file), words, inputs);
+
+        final String content = new String(file, StandardCharsets.ISO_8859_1);
+        assertArrayEquals(toArray(expectedWords.build()), toArray(words.build()), content);
+        assertArrayEquals(toArray(expectedInputs.build()), toArray(inputs.build()), content);
+    }
+
+    /**
+     * Builds a word list file like the one wordle.at serves, one byte per char
+     */
+    static byte[] file(final String encodedInputs, final String encodedWords) {
+        return ("// wordle.at\nconst inputs = \"" + encodedInputs + "\";\nconst words = \"" + encodedWords + "\";\n")
+                .getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Encodes words with the inverse of the wordle.at algorithm
+     */
+    static String encode(final List<String> words) {
+        final StringBuilder builder = new StringBuilder();
+        for (final String word : words) {
+            for (int i = 0; i < word.length(); i++) {
+                final int position = builder.length() + 1;
+                builder.append((char) ('a' + Math.floorMod(word.charAt(i) - 'a' - 7 * position, 26)));
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String randomString(final Random random, final int length) {
+        final StringBuilder builder = new StringBuilder();
+        while (builder.length() < length) {
+            final char c = (char) (0x20 + random.nextInt(0xE0));
+            if (c != '"') {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static int[] toArray(final WordDictionary dictionary) {
+        final int[] words = new int[dictionary.size()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = dictionary.get(i);
+        }
+        return words;
+    }
+
+}